@@ -0,0 +1,106 @@
+#!/usr/bin/env bash
+# Cold-start timing of every vicidial-cli subcommand.
+#
+# Runs `<cli> <subcommand> --help` in a fresh process (JVM or native executable) RUNS times per
+# subcommand and prints the min and median wall time. --help parses the command line and builds the
+# whole command tree but sends no request, so it needs no Vicidial server: it measures startup alone.
+# Runs happen in an empty directory with the credentials unset, which also checks that no command
+# loads the configuration before issuing a request.
+#
+# Usage:
+#   benchmarks/cold-start.sh [--native PATH | --jar PATH] [--runs N] [--baseline FILE] [--save FILE]
+#
+#   --jar PATH       shaded jar to time (default: target/vicidial-cli-*.jar)
+#   --native PATH    native executable to time instead (mvn -Pnative package: target/vicidial-cli)
+#   --runs N         runs per subcommand (default: 10)
+#   --save FILE      write "<subcommand> <median ms>" lines, to be used as a later baseline
+#   --baseline FILE  compare with a saved run; exits 1 when a median is more than TOLERANCE percent
+#                    (default: 20) slower than its baseline
+
+set -euo pipefail
+
+root="$(cd "$(dirname "$0")/.." && pwd)"
+jar=""
+native=""
+runs=10
+baseline=""
+save=""
+tolerance="${TOLERANCE:-20}"
+
+while [ $# -gt 0 ]; do
+    case "$1" in
+        --jar) jar="$2"; shift 2 ;;
+        --native) native="$2"; shift 2 ;;
+        --runs) runs="$2"; shift 2 ;;
+        --baseline) baseline="$2"; shift 2 ;;
+        --save) save="$2"; shift 2 ;;
+        -h|--help) sed -n '2,19p' "$0" | sed 's/^# \{0,1\}//'; exit 0 ;;
+        *) echo "Unknown option: $1" >&2; exit 2 ;;
+    esac
+done
+
+if [ -n "$native" ]; then
+    cli=("$(cd "$(dirname "$native")" && pwd)/$(basename "$native")")
+else
+    if [ -z "$jar" ]; then
+        jar="$(ls "$root"/target/vicidial-cli-*.jar 2>/dev/null | grep -v original- | head -n 1 || true)"
+    fi
+    if [ -z "$jar" ] || [ ! -f "$jar" ]; then
+        echo "No jar found: run mvn package first, or pass --jar/--native." >&2
+        exit 2
+    fi
+    cli=(java -jar "$(cd "$(dirname "$jar")" && pwd)/$(basename "$jar")")
+fi
+
+workdir="$(mktemp -d)"
+trap 'rm -rf "$workdir"' EXIT
+cd "$workdir"
+unset BASE_URL API_USER API_PASSWORD VICIDIAL_CLI_SOCKET
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Subcommands as listed by the top-level help, plus the top level itself ("-").
+subcommands=("-" $("${cli[@]}" --help | awk '/^Commands:/ {on = 1; next} on && /^  [a-zA-Z]/ {print $1}'))
+
+printf '%-18s %8s %8s\n' "command" "min ms" "p50 ms"
+results=""
+for sub in "${subcommands[@]}"; do
+    args=(--help)
+    [ "$sub" != "-" ] && args=("$sub" --help)
+    times=()
+    for _ in $(seq "$runs"); do
+        start=$(now_ms)
+        if ! "${cli[@]}" "${args[@]}" > /dev/null 2> "$workdir/stderr"; then
+            echo "$sub --help failed:" >&2
+            cat "$workdir/stderr" >&2
+            exit 1
+        fi
+        times+=($(( $(now_ms) - start )))
+    done
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    min=${sorted[0]}
+    median=${sorted[$(( runs / 2 ))]}
+    printf '%-18s %8d %8d\n' "$sub" "$min" "$median"
+    results+="$sub $median"$'\n'
+done
+
+if [ -n "$save" ]; then
+    printf '%s' "$results" > "$save"
+fi
+
+if [ -n "$baseline" ]; then
+    regressions=0
+    while read -r sub median; do
+        [ -z "$sub" ] && continue
+        before=$(awk -v s="$sub" '$1 == s {print $2}' "$baseline")
+        [ -z "$before" ] && continue
+        if [ $(( median * 100 )) -gt $(( before * (100 + tolerance) )) ]; then
+            echo "Regression: $sub took ${median} ms (baseline ${before} ms, tolerance ${tolerance}%)" >&2
+            regressions=$(( regressions + 1 ))
+        fi
+    done <<< "$results"
+    [ "$regressions" -gt 0 ] && exit 1
+fi
+exit 0
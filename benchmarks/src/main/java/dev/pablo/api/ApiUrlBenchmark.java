@@ -0,0 +1,54 @@
+package dev.pablo.api;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.pablo.bench.Fixtures;
+import dev.pablo.models.LeadModel;
+
+/**
+ * URL assembly of api.php calls: buildApiUrl and the add_lead URL built by DuplicateLeadInList.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiUrlBenchmark {
+    private ApiUrlBuilder urls;
+    private LeadModel[] leads;
+    private int next;
+
+    @Setup
+    public void setup() {
+        urls = new ApiUrlBuilder("https://vicidial.example/agc/api.php", "java", "api_user", "supersecret");
+        String[] rows = Fixtures.leadRows(256);
+        leads = new LeadModel[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            leads[i] = new LeadModel(rows[i]);
+        }
+    }
+
+    @Benchmark
+    public String functionUrl() {
+        return urls.function("lead_all_info") + "&lead_id=" + next++;
+    }
+
+    @Benchmark
+    public String addLeadUrl() {
+        LeadModel lead = leads[next];
+        next = (next + 1) & (leads.length - 1);
+        return urls.addLead(lead, "1002");
+    }
+}
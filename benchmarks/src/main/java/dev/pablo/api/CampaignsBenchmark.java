@@ -0,0 +1,40 @@
+package dev.pablo.api;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import dev.pablo.bench.Fixtures;
+
+/**
+ * Row splitting and formatting of the campaigns_list response ({@link CampaignsCommand}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CampaignsBenchmark {
+    private String body;
+
+    @Setup
+    public void setup() {
+        body = Fixtures.campaigns(200);
+    }
+
+    @Benchmark
+    public List<String> formatRows() {
+        return CampaignsCommand.formatRows(body);
+    }
+}
@@ -0,0 +1,78 @@
+package dev.pablo.bench;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic Vicidial responses so the benchmarks run offline and deterministically.
+ */
+public final class Fixtures {
+    private static final String[] FIRST_NAMES = { "John", "María José", "Li", "Ana-Sofía", "Robert" };
+    private static final String[] CITIES = { "New York", "San José", "Austin", "Miami", "Portland" };
+
+    private Fixtures() {
+    }
+
+    /**
+     * Builds an admin ADD=1300 page with the given number of DID rows.
+     *
+     * @param rows number of records_list_ rows
+     * @return HTML page
+     */
+    public static String didTable(int rows) {
+        StringBuilder html = new StringBuilder(rows * 260 + 512);
+        html.append("<html><head><title>ADMINISTRATION: Inbound DIDs</title></head><body>")
+                .append("<table width=750 cellspacing=0 cellpadding=1>")
+                .append("<tr bgcolor=black><td>#</td><td>DID</td><td>DESCRIPTION</td><td>CARRIER</td>")
+                .append("<td>ACTIVE</td><td>GROUP</td><td>ROUTE</td><td>REC</td><td>MODIFY</td></tr>\n");
+        for (int i = 1; i <= rows; i++) {
+            html.append("<tr class=\"records_list_").append(i % 2 == 0 ? 'x' : 'y').append("\">")
+                    .append("<td><font size=1>").append(i).append("</font></td>")
+                    .append("<td><font size=1>").append(15550000000L + i).append("</font></td>")
+                    .append("<td><font size=1>Inbound line ").append(i).append("</font></td>")
+                    .append("<td><font size=1>CARRIER_").append(i % 7).append("</font></td>")
+                    .append("<td><font size=1>").append(i % 10 == 0 ? 'N' : 'Y').append("</font></td>")
+                    .append("<td><font size=1>GROUP_").append(i % 25).append("</font></td>")
+                    .append("<td><font size=1>IN_GROUP</font></td>")
+                    .append("<td><font size=1>N</font></td>")
+                    .append("<td><font size=1><a href=\"admin.php?ADD=3311&did_id=").append(i)
+                    .append("\">MODIFY</a></font></td></tr>\n");
+        }
+        html.append("</table></body></html>");
+        return html.toString();
+    }
+
+    /**
+     * Builds lead_all_info response rows (32 pipe-separated fields each).
+     *
+     * @param count number of rows
+     * @return rows, one lead each
+     */
+    public static String[] leadRows(int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        String[] rows = new String[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = "NEW|VDAD|VLC" + i + "|SRC|1001|-5.00|1|555" + (1000000 + random.nextInt(8999999))
+                    + "|Mr|" + FIRST_NAMES[i % FIRST_NAMES.length] + "|Q|Doe " + i
+                    + "|" + (100 + i) + " Main St|Apt " + (i % 50) + "||" + CITIES[i % CITIES.length]
+                    + "|NY||10001|USA|M|1980-01-01|5550001111|lead" + i + "@example.com|phrase"
+                    + "|Called twice, wants a callback & a quote|" + (i % 9)
+                    + "|2024-05-01 10:00:00|0|owner|1001|" + (100000 + i);
+        }
+        return rows;
+    }
+
+    /**
+     * Builds a campaigns_list response.
+     *
+     * @param campaigns number of campaigns
+     * @return response body
+     */
+    public static String campaigns(int campaigns) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < campaigns; i++) {
+            body.append("CAMP").append(i).append('|').append("Campaign number ").append(i).append('|')
+                    .append(i % 3 == 0 ? 'N' : 'Y').append("|RATIO|").append(i).append('\n');
+        }
+        return body.toString();
+    }
+}
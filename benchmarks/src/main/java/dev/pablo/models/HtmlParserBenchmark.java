@@ -0,0 +1,55 @@
+package dev.pablo.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.pablo.bench.Fixtures;
+
+/**
+ * Parsing of the admin ADD=1300 DID table: whole-document parse versus streaming parse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HtmlParserBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int rows;
+
+    private String html;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        html = Fixtures.didTable(rows);
+        bytes = html.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<DidModel> parseDIDs() {
+        return HtmlParser.ParseDIDs(html);
+    }
+
+    @Benchmark
+    public void streamDIDs(Blackhole bh) throws IOException {
+        HtmlParser.StreamDIDs(new ByteArrayInputStream(bytes), bh::consume);
+    }
+}
@@ -0,0 +1,82 @@
+package dev.pablo.models;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import dev.pablo.bench.Fixtures;
+
+/**
+ * Parsing of lead_all_info rows into {@link LeadModel}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LeadModelBenchmark {
+    private String[] rows;
+    private int next;
+    private final LeadModel reused = new LeadModel();
+
+    @Setup
+    public void setup() {
+        rows = Fixtures.leadRows(1024);
+    }
+
+    private String nextRow() {
+        String row = rows[next];
+        next = (next + 1) & (rows.length - 1);
+        return row;
+    }
+
+    /** Parse only. */
+    @Benchmark
+    public LeadModel parse() {
+        return new LeadModel(nextRow());
+    }
+
+    /** Parse and read the fields used to duplicate a lead (DuplicateLeadInList). */
+    @Benchmark
+    public void parseAndReadDuplicateFields(Blackhole bh) {
+        readDuplicateFields(new LeadModel(nextRow()), bh);
+    }
+
+    /** Same as {@link #parseAndReadDuplicateFields} reusing a single instance across rows. */
+    @Benchmark
+    public void resetAndReadDuplicateFields(Blackhole bh) {
+        readDuplicateFields(reused.reset(nextRow()), bh);
+    }
+
+    /** Parse and read a single field, as a lead_id lookup does. */
+    @Benchmark
+    public String parseAndReadLeadId() {
+        return new LeadModel(nextRow()).getLead_id();
+    }
+
+    private static void readDuplicateFields(LeadModel lead, Blackhole bh) {
+        bh.consume(lead.getPhone_number());
+        bh.consume(lead.getFirst_name());
+        bh.consume(lead.getLast_name());
+        bh.consume(lead.getAddress1());
+        bh.consume(lead.getAddress2());
+        bh.consume(lead.getAddress3());
+        bh.consume(lead.getCity());
+        bh.consume(lead.getState());
+        bh.consume(lead.getPostal_code());
+        bh.consume(lead.getAlt_phone());
+        bh.consume(lead.getEmail());
+        bh.consume(lead.getComments());
+    }
+}
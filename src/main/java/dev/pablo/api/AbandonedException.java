@@ -0,0 +1,14 @@
+package dev.pablo.api;
+
+import java.io.IOException;
+
+/**
+ * Raised for requests that were not sent, or were cancelled while in flight, because the command's
+ * {@link Deadline} expired or the command was aborted.
+ */
+class AbandonedException extends IOException {
+
+    AbandonedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,196 @@
+package dev.pablo.api;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+/**
+ * Adaptive (AIMD) limit on the number of HTTP requests in flight against the Vicidial server.
+ *
+ * <p>Callers obtain a {@link Permit} before sending a request and report how it went when it ends:
+ * <ul>
+ *   <li>success with a latency close to the best one observed: the limit grows by one while it is
+ *   actually being used (additive increase);</li>
+ *   <li>latency above {@code LATENCY_TOLERANCE} times the baseline, a non-200 status, a timeout or a
+ *   network error: the limit shrinks by {@code BACKOFF_RATIO} (multiplicative decrease).</li>
+ * </ul>
+ * The baseline is the minimum latency seen, slowly decayed upwards so a permanently slower server
+ * does not keep the limit pinned to the minimum. It is kept per endpoint label (Vicidial function or
+ * admin action): a slow admin page is compared with its own best time, not with the fastest API call,
+ * while every endpoint shares the one limit.</p>
+ *
+ * <p>Acquisition never blocks: {@link #acquire(String, boolean)} returns a future completed once a slot is free, so
+ * the limiter can sit in front of both the synchronous and the asynchronous request paths.</p>
+ */
+class AdaptiveLimiter {
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final double BASELINE_DECAY = 1.01;
+    private static final int BASELINE_DECAY_SAMPLES = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final IntConsumer onLimitChange;
+    private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+    private final Map<String, Baseline> baselines = new HashMap<>();
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * @param initialLimit  starting number of requests allowed in flight
+     * @param minLimit      lower bound of the limit
+     * @param maxLimit      upper bound of the limit
+     * @param onLimitChange called with the new limit whenever its integer value changes
+     */
+    AdaptiveLimiter(int initialLimit, int minLimit, int maxLimit, IntConsumer onLimitChange) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.onLimitChange = onLimitChange;
+    }
+
+    /**
+     * Reserves a slot for one request.
+     *
+     * @param label  endpoint the request targets, whose latencies are compared with each other
+     * @param urgent true to be served before the requests already waiting (e.g. a hedged request,
+     *               whose caller has been waiting longer than most)
+     * @return a future completed with the permit once the request may be sent
+     */
+    CompletableFuture<Permit> acquire(String label, boolean urgent) {
+        synchronized (this) {
+            if (waiters.isEmpty() && inFlight < getLimit()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit(label));
+            }
+            Waiter waiter = new Waiter(label, new CompletableFuture<>());
+            if (urgent) {
+                waiters.addFirst(waiter);
+            } else {
+                waiters.add(waiter);
+            }
+            return waiter.permit();
+        }
+    }
+
+    /**
+     * @return the current number of requests allowed in flight
+     */
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void release(String label, long latencyNanos, boolean dropped, boolean ignored) {
+        int before;
+        int after;
+        Deque<Permit> granted = new ArrayDeque<>();
+        Deque<CompletableFuture<Permit>> grantedTo = new ArrayDeque<>();
+
+        synchronized (this) {
+            before = (int) limit;
+            boolean saturated = inFlight * 2 >= before;
+            inFlight--;
+
+            if (!ignored) {
+                Baseline baseline = baselines.computeIfAbsent(label, key -> new Baseline());
+                if (++baseline.samples % BASELINE_DECAY_SAMPLES == 0 && baseline.nanos != Long.MAX_VALUE) {
+                    baseline.nanos = (long) (baseline.nanos * BASELINE_DECAY);
+                }
+                if (!dropped) {
+                    baseline.nanos = Math.min(baseline.nanos, latencyNanos);
+                }
+
+                if (dropped || latencyNanos > baseline.nanos * LATENCY_TOLERANCE) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                } else if (saturated) {
+                    limit = Math.min(maxLimit, limit + 1);
+                }
+            }
+            after = (int) limit;
+
+            while (!waiters.isEmpty() && inFlight < after) {
+                inFlight++;
+                Waiter waiter = waiters.poll();
+                grantedTo.add(waiter.permit());
+                granted.add(new Permit(waiter.label()));
+            }
+        }
+
+        // Complete outside the lock: dependent stages run on this thread.
+        while (!grantedTo.isEmpty()) {
+            Permit permit = granted.poll();
+            if (!grantedTo.poll().complete(permit)) {
+                // The waiter was cancelled in the meantime.
+                permit.ignore();
+            }
+        }
+
+        if (before != after && onLimitChange != null) {
+            onLimitChange.accept(after);
+        }
+    }
+
+    /**
+     * Request waiting for a slot.
+     */
+    private record Waiter(String label, CompletableFuture<Permit> permit) {
+    }
+
+    /**
+     * Best latency seen for one endpoint label.
+     */
+    private static final class Baseline {
+        long nanos = Long.MAX_VALUE;
+        int samples;
+    }
+
+    /**
+     * Slot held by one in-flight request. Exactly one of the completion methods must be called.
+     */
+    final class Permit {
+        private final String label;
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        private Permit(String label) {
+            this.label = label;
+        }
+
+        /** The request completed normally. */
+        void success() {
+            complete(false, false);
+        }
+
+        /** The request failed in a way that signals overload (non-200, timeout, network error). */
+        void dropped() {
+            complete(true, false);
+        }
+
+        /** The request ended without a meaningful signal (e.g. it was cancelled). */
+        void ignore() {
+            complete(false, true);
+        }
+
+        private void complete(boolean dropped, boolean ignored) {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            release(label, System.nanoTime() - startNanos, dropped, ignored);
+        }
+    }
+}
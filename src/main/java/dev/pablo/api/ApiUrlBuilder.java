@@ -0,0 +1,75 @@
+package dev.pablo.api;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+import dev.pablo.models.LeadModel;
+
+/**
+ * Assembles api.php URLs for {@link VicidialClientSingleton}.
+ *
+ * <p>The part shared by every call (base URL, source and credentials) is built once; each call then
+ * only appends the function name and its parameters. Every parameter value is URL-encoded.</p>
+ */
+final class ApiUrlBuilder {
+    private final String prefix;
+
+    /**
+     * @param baseUrl api.php endpoint
+     * @param source  value of the "source" parameter
+     * @param apiUser API username
+     * @param apiPass API password
+     */
+    ApiUrlBuilder(String baseUrl, String source, String apiUser, String apiPass) {
+        this.prefix = new StringBuilder()
+                .append(baseUrl)
+                .append("?source=").append(encode(source))
+                .append("&user=").append(encode(apiUser))
+                .append("&pass=").append(encode(apiPass))
+                .append("&function=")
+                .toString();
+    }
+
+    /**
+     * Builds a full API URL for a given Vicidial function name.
+     *
+     * @param functionName function name expected by the Vicidial API (e.g. "add_user")
+     * @return a full URL string ready to be extended with function-specific parameters
+     */
+    String function(String functionName) {
+        return prefix + functionName;
+    }
+
+    /**
+     * Builds the add_lead URL that recreates the given lead inside a list.
+     *
+     * @param lead   lead to copy
+     * @param listId destination list
+     * @return the add_lead URL
+     */
+    String addLead(LeadModel lead, String listId) {
+        return function("add_lead") +
+                "&phone_number=" + encode(lead.getPhone_number()) +
+                "&phone_code=1" +
+                "&list_id=" + encode(listId) +
+                "&first_name=" + encode(lead.getFirst_name()) +
+                "&last_name=" + encode(lead.getLast_name()) +
+                "&address1=" + encode(lead.getAddress1()) +
+                "&address2=" + encode(lead.getAddress2()) +
+                "&address3=" + encode(lead.getAddress3()) +
+                "&city=" + encode(lead.getCity()) +
+                "&state=" + encode(lead.getState()) +
+                "&postal_code=" + encode(lead.getPostal_code()) +
+                "&alt_phone=" + encode(lead.getAlt_phone()) +
+                "&email=" + encode(lead.getEmail()) +
+                "&comments=" + encode(lead.getComments());
+    }
+
+    /**
+     * Safely encodes a string for use in URL query parameters.
+     * Treats null as empty string to avoid URLEncoder throwing NPE.
+     */
+    static String encode(String s) {
+        return URLEncoder.encode((s == null) ? "" : s, StandardCharsets.UTF_8);
+    }
+}
@@ -4,6 +4,8 @@ import picocli.CommandLine.Command;
 import picocli.CommandLine.Help.Ansi;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 @Command(
@@ -12,10 +14,11 @@ import java.util.concurrent.Callable;
     mixinStandardHelpOptions = true
 )
 public class CampaignsCommand implements Callable<Integer> {
-    private final VicidialClientSingleton client;
-
-    public CampaignsCommand() {
-        this.client = VicidialClientSingleton.getInstance();
+    /**
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
+     */
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
     }
 
     @Override
@@ -24,17 +27,12 @@ public class CampaignsCommand implements Callable<Integer> {
 
         try {
             // 2. Call the API layer method to obtain formatted data
-            String formattedResult = client.getCampaigns();
+            String formattedResult = client().getCampaigns();
 
             System.out.println(Ansi.AUTO.text("\n@|blue Campaigns list's obtained:|@"));
             System.out.println("---------------------------------------------------------");
-            String[] rows = formattedResult.split("\\R");
-
-            for (String row : rows) {
-                String[] segments = row.split("\\|");
-                String active = segments[2].equalsIgnoreCase("y") ? "✅" : "❌";
-
-                System.out.println(active + " ID: " + segments[0] + " | Description: " + segments[1]);
+            for (String line : formatRows(formattedResult)) {
+                System.out.println(line);
             }
             System.out.println("---------------------------------------------------------");
 
@@ -49,4 +47,23 @@ public class CampaignsCommand implements Callable<Integer> {
             return 1;
         }
     }
+
+    /**
+     * Splits the campaigns_list response into one display line per campaign.
+     *
+     * @param body API response, one "id|description|active|..." row per line
+     * @return formatted lines, in response order
+     */
+    static List<String> formatRows(String body) {
+        String[] rows = body.split("\\R");
+        List<String> lines = new ArrayList<>(rows.length);
+
+        for (String row : rows) {
+            String[] segments = row.split("\\|");
+            String active = segments[2].equalsIgnoreCase("y") ? "✅" : "❌";
+
+            lines.add(active + " ID: " + segments[0] + " | Description: " + segments[1]);
+        }
+        return lines;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package dev.pablo.api;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Per-endpoint circuit breaker that fails fast while the endpoint is known to be down.
+ *
+ * <p>States:
+ * <ul>
+ *   <li>CLOSED — requests flow; {@code failureThreshold} consecutive failures open the circuit.</li>
+ *   <li>OPEN — requests fail immediately with {@link OpenException} for {@code openMillis}.</li>
+ *   <li>HALF_OPEN — a single probe request is let through; its success closes the circuit, its
+ *   failure opens it again.</li>
+ * </ul>
+ * Only timeouts, network errors and server-side statuses (5xx, 408, 429) count as failures. A request
+ * abandoned (by a deadline) or cancelled (a hedge that lost the race) says nothing about the endpoint:
+ * it neither closes nor opens the circuit and leaves the failure count alone, and a probe ending that
+ * way lets the next request probe again. Any other outcome proves the endpoint is reachable.</p>
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /** What the outcome of a call says about the endpoint. */
+    private enum Outcome {
+        SUCCESS,
+        FAILURE,
+        NEUTRAL
+    }
+
+    /**
+     * Raised instead of sending a request while the circuit is open.
+     */
+    static class OpenException extends IOException {
+        OpenException(String endpoint) {
+            super("Circuit open for " + endpoint + ": failing fast after repeated failures.");
+        }
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * @param name             endpoint name used in messages (e.g. "api.php")
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openMillis       time the circuit stays open before a probe is allowed
+     */
+    CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Runs the call if the circuit allows it and records its outcome.
+     *
+     * @param call supplier of the request future
+     * @return the request future, or a future failed with {@link OpenException}
+     */
+    <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> call) {
+        if (!tryAcquire()) {
+            return CompletableFuture.failedFuture(new OpenException(name));
+        }
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            // Nothing was sent.
+            onResult(Outcome.NEUTRAL);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> onResult(error == null ? Outcome.SUCCESS
+                : isNeutral(error) ? Outcome.NEUTRAL : isFailure(error) ? Outcome.FAILURE : Outcome.SUCCESS));
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                transition(State.HALF_OPEN);
+                probeInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                if (probeInFlight) {
+                    return false;
+                }
+                probeInFlight = true;
+                return true;
+        }
+    }
+
+    private synchronized void onResult(Outcome outcome) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (outcome == Outcome.FAILURE) {
+                open();
+            } else if (outcome == Outcome.SUCCESS) {
+                consecutiveFailures = 0;
+                transition(State.CLOSED);
+            }
+            return;
+        }
+
+        if (outcome == Outcome.SUCCESS) {
+            consecutiveFailures = 0;
+        } else if (outcome == Outcome.FAILURE && ++consecutiveFailures >= failureThreshold && state == State.CLOSED) {
+            open();
+        }
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        transition(State.OPEN);
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            state = next;
+            VicidialClientSingleton.debug("⚡ Circuit " + name + ": " + next);
+        }
+    }
+
+    /**
+     * @return true when the error means the endpoint itself is unhealthy
+     */
+    static boolean isFailure(Throwable error) {
+        Throwable cause = unwrap(error);
+        if (cause instanceof OpenException || cause instanceof AbandonedException) {
+            return false;
+        }
+        if (cause instanceof HttpStatusException status) {
+            return status.isServerFailure();
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * @return true when the request was abandoned or cancelled before its outcome was known
+     */
+    static boolean isNeutral(Throwable error) {
+        Throwable cause = unwrap(error);
+        // The HttpClient fails a cancelled exchange with an IOException caused by the cancellation.
+        return cause instanceof AbandonedException || cause instanceof CancellationException
+                || cause instanceof IOException && cause.getCause() instanceof CancellationException;
+    }
+
+    static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+}
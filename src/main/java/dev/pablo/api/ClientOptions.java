@@ -0,0 +1,91 @@
+package dev.pablo.api;
+
+/**
+ * Client settings chosen on the command line (-v, --no-cache, --hedge) for one command run.
+ *
+ * <p>The options are bound to the thread that runs the command and carried to the threads working for
+ * it by a {@link RunContext}, like a {@link Deadline}, so commands of a batch or of the daemon each
+ * keep their own settings instead of changing them for every later command of the JVM. Options bound
+ * while others are (a row of a batch) start from the enclosing ones, and closing them binds the
+ * enclosing ones again.</p>
+ */
+public final class ClientOptions implements AutoCloseable {
+    /** Options of a thread that runs no command: no diagnostics, cache on, hedging as configured. */
+    private static final ClientOptions DEFAULT = new ClientOptions(false, true, -1, null);
+
+    private static final ThreadLocal<ClientOptions> current = RunContext.newCarried();
+
+    private final boolean verbose;
+    private final boolean cacheEnabled;
+    /** Percentile after which read-only calls are hedged; 0 disables, -1 uses HEDGE_PERCENTILE. */
+    private final double hedgePercentile;
+    /** Options bound to the thread before these, restored on close. */
+    private final ClientOptions enclosing;
+
+    private ClientOptions(boolean verbose, boolean cacheEnabled, double hedgePercentile, ClientOptions enclosing) {
+        this.verbose = verbose;
+        this.cacheEnabled = cacheEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.enclosing = enclosing;
+    }
+
+    /**
+     * Binds the options of a run to the current thread.
+     *
+     * @param verbose         print client diagnostics to stderr
+     * @param noCache         never answer read-only calls from the response cache
+     * @param hedgePercentile percentile after which read-only calls are hedged, or -1 to keep the
+     *                        enclosing setting (HEDGE_PERCENTILE outside of a batch)
+     * @return the options; close them when the run ends
+     */
+    public static ClientOptions bind(boolean verbose, boolean noCache, double hedgePercentile) {
+        ClientOptions outer = current.get();
+        ClientOptions base = outer != null ? outer : DEFAULT;
+        ClientOptions options = new ClientOptions(verbose || base.verbose, base.cacheEnabled && !noCache,
+                hedgePercentile >= 0 ? hedgePercentile : base.hedgePercentile, outer);
+        current.set(options);
+        return options;
+    }
+
+    /**
+     * @return the options of the run executing on this thread, or the defaults when there is none
+     */
+    public static ClientOptions current() {
+        ClientOptions options = current.get();
+        return options != null ? options : DEFAULT;
+    }
+
+    /**
+     * @return whether client diagnostics are printed to stderr
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * @return whether read-only calls may be answered from the response cache
+     */
+    boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * @param configured HEDGE_PERCENTILE of the client
+     * @return percentile after which read-only calls are hedged (0 when hedging is off)
+     */
+    double hedgePercentile(double configured) {
+        return hedgePercentile >= 0 ? hedgePercentile : configured;
+    }
+
+    /**
+     * Unbinds the options from the current thread, binding the enclosing ones again if any.
+     */
+    @Override
+    public void close() {
+        if (enclosing != null) {
+            current.set(enclosing);
+        } else {
+            current.remove();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package dev.pablo.api;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration of one Vicidial cluster, read from a profile file.
+ *
+ * <p>The file lists one section per cluster, with the same keys as .env:
+ * <pre>
+ *   # keys before the first section apply to every profile
+ *   RETRY_MAX_ATTEMPTS=5
+ *
+ *   [east]
+ *   BASE_URL=https://east.example/agc/api.php
+ *   API_USER=api
+ *   API_PASSWORD=secret
+ *   SERVER_URL=https://east.example/vicidial/admin.php
+ *
+ *   [west]
+ *   ...
+ * </pre>
+ * Keys missing from a profile fall back to .env and then to the environment.</p>
+ *
+ * <p>A profile is bound to the thread running a command and carried to the threads working for it by a
+ * {@link RunContext}, like a {@link Deadline}; {@link VicidialClientSingleton#getInstance()} then returns the client of that
+ * cluster.</p>
+ */
+public final class ClientProfile {
+    /** Environment variable pointing at the profile file. */
+    public static final String FILE_ENV = "VICIDIAL_CLI_PROFILES";
+
+    private static final ThreadLocal<ClientProfile> current = RunContext.newCarried();
+
+    private final String name;
+    private final Map<String, String> values;
+
+    private ClientProfile(String name, Map<String, String> values) {
+        this.name = name;
+        this.values = Map.copyOf(values);
+    }
+
+    /**
+     * @return $VICIDIAL_CLI_PROFILES of the caller (see {@link Invocation}), or ~/.vicidial-cli-profiles
+     */
+    public static Path defaultPath() {
+        Invocation invocation = Invocation.current();
+        String env = invocation.getenv(FILE_ENV);
+        if (env != null && !env.isBlank()) {
+            return invocation.resolve(env);
+        }
+        return Paths.get(System.getProperty("user.home"), ".vicidial-cli-profiles");
+    }
+
+    /**
+     * Reads every profile of a file. Blank lines and lines starting with '#' or ';' are skipped;
+     * values may be wrapped in single or double quotes.
+     *
+     * @param path profile file
+     * @return profiles by name, in file order
+     * @throws IOException when the file cannot be read or a line is invalid
+     */
+    public static Map<String, ClientProfile> load(Path path) throws IOException {
+        Map<String, String> shared = new HashMap<>();
+        Map<String, Map<String, String>> sections = new LinkedHashMap<>();
+        Map<String, String> section = shared;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String text = line.strip();
+                if (text.isEmpty() || text.startsWith("#") || text.startsWith(";")) {
+                    continue;
+                }
+                if (text.startsWith("[")) {
+                    if (!text.endsWith("]") || text.length() < 3) {
+                        throw new IOException(path + ":" + lineNumber + ": invalid section header: " + text);
+                    }
+                    String name = text.substring(1, text.length() - 1).strip();
+                    if (sections.containsKey(name)) {
+                        throw new IOException(path + ":" + lineNumber + ": duplicate profile: " + name);
+                    }
+                    section = new HashMap<>();
+                    sections.put(name, section);
+                    continue;
+                }
+                int equals = text.indexOf('=');
+                if (equals <= 0) {
+                    throw new IOException(path + ":" + lineNumber + ": expected KEY=VALUE: " + text);
+                }
+                section.put(text.substring(0, equals).strip(), unquote(text.substring(equals + 1).strip()));
+            }
+        }
+
+        Map<String, ClientProfile> profiles = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : sections.entrySet()) {
+            Map<String, String> values = new HashMap<>(shared);
+            values.putAll(entry.getValue());
+            profiles.put(entry.getKey(), new ClientProfile(entry.getKey(), values));
+        }
+        return profiles;
+    }
+
+    private static String unquote(String value) {
+        if (value.length() >= 2 && (value.startsWith("\"") && value.endsWith("\"")
+                || value.startsWith("'") && value.endsWith("'"))) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * @return the profile bound to this thread, or null when commands use the .env configuration
+     */
+    public static ClientProfile current() {
+        return current.get();
+    }
+
+    /**
+     * Returns the name of a file kept per cluster: under --targets the name of the bound profile is
+     * appended ({@code name@<profile>}, made file-name safe), so clusters running at once never share a
+     * file. Without a bound profile the name is returned unchanged.
+     */
+    static String qualify(String name) {
+        ClientProfile profile = current();
+        return profile == null ? name : name + "@" + profile.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    /**
+     * Same as {@link #qualify(String)} for a path; the suffix goes before the extension of the file
+     * name ({@code agents.csv.vault} becomes {@code agents.csv@east.vault}).
+     */
+    static Path qualify(Path path) {
+        if (current() == null) {
+            return path;
+        }
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot <= 0 ? path.resolveSibling(qualify(name))
+                : path.resolveSibling(qualify(name.substring(0, dot)) + name.substring(dot));
+    }
+
+    /**
+     * Binds the profile to the current thread.
+     */
+    public void bind() {
+        current.set(this);
+    }
+
+    /**
+     * @return profile (cluster) name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the value of a key, or null when the profile does not set it (or sets it blank)
+     */
+    String get(String key) {
+        String value = values.get(key);
+        return value == null || value.isBlank() ? null : value;
+    }
+}
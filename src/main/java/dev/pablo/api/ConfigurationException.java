@@ -0,0 +1,14 @@
+package dev.pablo.api;
+
+/**
+ * Raised when the client configuration (.env or environment variables) is incomplete.
+ *
+ * <p>The client is created on the first request, so this surfaces from a command's execution rather
+ * than while the command line is being parsed.</p>
+ */
+public class ConfigurationException extends IllegalStateException {
+
+    ConfigurationException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,21 @@
 package dev.pablo.api;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
+import dev.pablo.models.CsvParser;
+import dev.pablo.models.JobJournal;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -15,9 +28,17 @@ import picocli.CommandLine.Help.Ansi;
  * using the shared {@link VicidialClientSingleton} instance and prints progress and result
  * messages to standard output.</p>
  *
+ * <p>Bulk mode ({@code --file}) reads {@code ID,password,userGroupId[,name]} rows from a CSV file and
+ * creates each credential on a virtual thread, keeping at most {@code --concurrency} rows in flight.
+ * A per-row report and the achieved throughput are printed at the end. With {@code --job-id} each row
+ * is recorded in a {@link JobJournal}: running the job again skips the credentials it created, and
+ * only creates the phone of a row whose user was created. A row an earlier run was creating when it
+ * died is reported as in doubt and left alone ({@code --retry-in-doubt} creates it again).</p>
+ *
  * <p>Usage:
  * <pre>
  *   createCreds &lt;ID&gt; &lt;password&gt; &lt;userGroupId&gt; [-n|--name &lt;displayName&gt;]
+ *   createCreds --file &lt;agents.csv&gt; [--concurrency &lt;N&gt;] [--job-id &lt;id&gt; [--retry-in-doubt]]
  *   Example: createCreds agent001 S3cr3t UG_DEFAULT -n "Agent One"
  * </pre>
  * </p>
@@ -25,7 +46,7 @@ import picocli.CommandLine.Help.Ansi;
  * <p>Exit codes:
  * <ul>
  *   <li>0 — Credentials successfully created.</li>
- *   <li>1 — API/network error or interruption</li>
+ *   <li>1 — API/network error or interruption (in bulk mode: at least one row failed)</li>
  * </ul>
  * </p>
  *
@@ -36,35 +57,69 @@ import picocli.CommandLine.Help.Ansi;
     description = {
         "Creates a credential with its user and phone.",
         "Usage: vicidial-cli createCreds <ID> <password> <userGroupId> [-n|--name <displayName>]",
-        "Example: vicidial-cli createCreds agent001 secret_password TestGroup -n \"Agent One\""
+        "       vicidial-cli createCreds --file <agents.csv> [--concurrency <N>] [--job-id <id>]",
+        "Example: vicidial-cli createCreds agent001 secret_password TestGroup -n \"Agent One\"",
+        "Example: vicidial-cli createCreds --file agents.csv --concurrency 32"
     },
     mixinStandardHelpOptions = true
 )
 public class CreatCredentialCommand implements Callable<Integer> {
-    /** Vicidial API client singleton used to perform create operations. */
-    private VicidialClientSingleton client;
-
     /** Credential user ID (used for both the user's campaign and phone). */
-    @Parameters(index = "0", description = "Credential user ID (used for both the user's campaign and phone)")
+    @Parameters(index = "0", arity = "0..1", description = "Credential user ID (used for both the user's campaign and phone)")
     private String ID;
 
     /** Password for the credential. */
-    @Parameters(index = "1", description = "Password for the credential.")
+    @Parameters(index = "1", arity = "0..1", description = "Password for the credential.")
     private String password;
 
     /** User group ID the user belongs to. */
-    @Parameters(index = "2", description = "User group ID the user belongs to.")
+    @Parameters(index = "2", arity = "0..1", description = "User group ID the user belongs to.")
     private String userGroupId;
 
     /** Display name to identify the agent in reports. Defaults to empty string. */
     @Option(names = {"-n", "--name"}, description = "Display name to identify the agent in reports.", defaultValue="")
     private String name;
 
+    /** CSV file with ID,password,userGroupId[,name] rows used by bulk mode. */
+    @Option(names = {"-f", "--file"}, description = "CSV file with ID,password,userGroupId[,name] rows (bulk mode).", defaultValue="")
+    private String file;
+
+    /** Maximum number of rows being created at the same time in bulk mode. */
+    @Option(names = {"--concurrency"}, description = "Maximum rows in flight in bulk mode (default: ${DEFAULT-VALUE}).", defaultValue="16")
+    private int concurrency;
+
+    /** Journal of the bulk run, so a run that died halfway can be resumed. */
+    @Option(names = {"--job-id"}, description = "Journal bulk mode under this ID; running it again with the same ID skips the credentials already created.", defaultValue="")
+    private String jobId;
+
+    /** Creates again the rows an interrupted run of the job may have created. */
+    @Option(names = {"--retry-in-doubt"}, description = "With --job-id, also create the rows an earlier run may have created before it died.")
+    private boolean retryInDoubt;
+
+    /** Outcome of a single bulk row. */
+    enum Status {
+        CREATED,
+        SKIPPED,
+        USER_FAILED,
+        PHONE_FAILED,
+        INVALID,
+        IN_DOUBT,
+        ABANDONED
+    }
+
+    /** One credential read from the bulk file. */
+    private record CredentialRow(int line, String id, String password, String userGroupId, String name) {
+    }
+
+    /** Result reported for one credential row. */
+    private record CredentialResult(CredentialRow row, Status status, String message) {
+    }
+
     /**
-     * Creates a new command instance and obtains the shared Vicidial client.
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
      */
-    public CreatCredentialCommand() {
-        this.client = VicidialClientSingleton.getInstance();
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
     }
 
     /**
@@ -76,17 +131,25 @@ public class CreatCredentialCommand implements Callable<Integer> {
      */
     @Override
     public Integer call() {
+        if (!file.isBlank()) {
+            return createFromFile();
+        }
+        if (ID == null || password == null || userGroupId == null) {
+            System.out.println(Ansi.AUTO.text("❌ @|red ID, password and userGroupId are required (or use --file).|@"));
+            return 1;
+        }
+
         try {
             // Create User
             System.out.println(Ansi.AUTO.text("⏳ @|yellow Creating Credentials ...|@ "));
             if(this.name.isEmpty()){
                 this.name= this.ID + "1";
             }
-            client.createUser(ID, password, name, userGroupId);
+            client().createUser(ID, password, name, userGroupId);
             System.out.println(Ansi.AUTO.text("☑️ @|blue User has been created: " + ID + " |@"));
 
             // Create Phone
-            client.createPhone(ID, password);
+            client().createPhone(ID, password);
             System.out.println(Ansi.AUTO.text("☑️ @|blue Phone has been created: " + ID + " |@"));
 
             System.out.println(Ansi.AUTO.text("✅ @|green Credentials successfully created. |@"));
@@ -101,4 +164,241 @@ public class CreatCredentialCommand implements Callable<Integer> {
         }
     }
 
+    /**
+     * Bulk mode: creates every credential listed in {@link #file} on virtual threads, with at most
+     * {@link #concurrency} rows in flight, then prints a per-row report and the achieved throughput.
+     *
+     * @return 0 when every row was created, 1 otherwise
+     */
+    private Integer createFromFile() {
+        List<CredentialRow> rows;
+        try {
+            rows = readRows(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ " + e.getMessage()));
+            return 1;
+        }
+
+        JobJournal journal;
+        try {
+            journal = Jobs.open(jobId, "createCreds");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(Ansi.AUTO.text("❌ @|red Job error:|@ " + e.getMessage()));
+            return 1;
+        }
+
+        int limit = Math.max(1, concurrency);
+        System.out.println(Ansi.AUTO.text("⏳ @|yellow Creating " + rows.size() + " credentials (concurrency " + limit + ") ...|@ "));
+
+        Semaphore inFlight = new Semaphore(limit);
+        List<Future<CredentialResult>> futures = new ArrayList<>(rows.size());
+        List<CredentialResult> results = new ArrayList<>(rows.size());
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(RunContext.capture().threads(Thread.ofVirtual().factory()))) {
+            for (CredentialRow row : rows) {
+                if (journal != null && journal.isCompleted(row.id())) {
+                    futures.add(CompletableFuture.completedFuture(new CredentialResult(row, Status.SKIPPED, "")));
+                    continue;
+                }
+                if (journal != null && !retryInDoubt && journal.isInDoubt(row.id())) {
+                    String message = journal.isCompleted("user:" + row.id())
+                            ? "the user was created; the phone may have been created too"
+                            : "the user and the phone may have been created";
+                    futures.add(CompletableFuture.completedFuture(new CredentialResult(row, Status.IN_DOUBT, message)));
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    inFlight.acquire();
+                    try {
+                        return createRow(row, journal);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            // One future per row: a row that failed unexpectedly is reported, not the whole run.
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new CredentialResult(rows.get(i), Status.USER_FAILED, "Unexpected error: " + describe(e.getCause())));
+                }
+            }
+        } catch (InterruptedException e) {
+            System.out.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            Jobs.close(journal);
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return printReport(results, seconds);
+    }
+
+    /**
+     * Creates the user and then the phone of a single row, recording both steps in the job journal
+     * (when there is one).
+     */
+    private CredentialResult createRow(CredentialRow row, JobJournal journal) throws InterruptedException {
+        if (row.id().isEmpty() || row.password().isEmpty() || row.userGroupId().isEmpty()) {
+            return new CredentialResult(row, Status.INVALID, "ID, password and userGroupId are required");
+        }
+        if (!VicidialClientSingleton.isValidPassword(row.password())) {
+            return new CredentialResult(row, Status.INVALID, "password may only contain letters, digits, '-' and '_'");
+        }
+        if (journal != null) {
+            try {
+                journal.startedDurably(row.id());
+            } catch (IOException e) {
+                return new CredentialResult(row, Status.USER_FAILED, "not created: " + describe(e));
+            }
+        }
+        CredentialResult result = createRow(row, journal != null && journal.isCompleted("user:" + row.id()), journal);
+        if (journal != null) {
+            if (result.status() == Status.CREATED) {
+                journal.completed(row.id(), "");
+            } else {
+                journal.failed(row.id(), result.status() + " " + result.message());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the user (unless an earlier run of the job did) and then the phone of a single row.
+     */
+    private CredentialResult createRow(CredentialRow row, boolean userExists, JobJournal journal)
+            throws InterruptedException {
+        String displayName = row.name().isEmpty() ? row.id() + "1" : row.name();
+
+        if (!userExists) {
+            try {
+                client().createUser(row.id(), row.password(), displayName, row.userGroupId());
+            } catch (AbandonedException e) {
+                return new CredentialResult(row, Status.ABANDONED, describe(e));
+            } catch (IOException | RuntimeException e) {
+                return new CredentialResult(row, Status.USER_FAILED, describe(e));
+            }
+            if (journal != null) {
+                journal.completed("user:" + row.id(), "");
+            }
+        }
+
+        // From here on the user exists: an abandoned phone request is a phone failure to fix by hand.
+
+        try {
+            client().createPhone(row.id(), row.password());
+        } catch (IOException | RuntimeException e) {
+            return new CredentialResult(row, Status.PHONE_FAILED, describe(e));
+        }
+
+        return new CredentialResult(row, Status.CREATED, "");
+    }
+
+    /**
+     * Prints one line per row (in file order) followed by totals and throughput.
+     *
+     * @return 0 when every row was created, 1 otherwise
+     */
+    private Integer printReport(List<CredentialResult> results, double seconds) {
+        int created = 0;
+        int skipped = 0;
+        int userFailed = 0;
+        int phoneFailed = 0;
+        int invalid = 0;
+        int inDoubt = 0;
+        int abandoned = 0;
+
+        System.out.println("---------------------------------------------------------");
+        for (CredentialResult result : results) {
+            String id = result.row().id();
+            String line = "line " + result.row().line() + " " + id;
+            switch (result.status()) {
+                case CREATED:
+                    created++;
+                    System.out.println(Ansi.AUTO.text("✅ @|green " + line + " created.|@"));
+                    break;
+                case SKIPPED:
+                    skipped++;
+                    System.out.println(Ansi.AUTO.text("@|faint " + line + " created by an earlier run of the job, skipped.|@"));
+                    break;
+                case USER_FAILED:
+                    userFailed++;
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " user failed:|@ " + result.message()));
+                    break;
+                case PHONE_FAILED:
+                    phoneFailed++;
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " phone failed:|@ " + result.message()));
+                    break;
+                case INVALID:
+                    invalid++;
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " invalid row:|@ " + result.message()));
+                    break;
+                case IN_DOUBT:
+                    inDoubt++;
+                    System.out.println(Ansi.AUTO.text("⚠️ @|yellow " + line + " in doubt, an earlier run of the job stopped while creating it:|@ "
+                            + result.message() + ". Check it, then use --retry-in-doubt to create it again."));
+                    break;
+                case ABANDONED:
+                    abandoned++;
+                    System.out.println(Ansi.AUTO.text("⏱ @|yellow " + line + " abandoned:|@ " + result.message()));
+                    break;
+            }
+        }
+        System.out.println("---------------------------------------------------------");
+
+        double rate = seconds > 0 ? results.size() / seconds : results.size();
+        System.out.println(Ansi.AUTO.text("@|blue Created: " + created + " | Skipped: " + skipped + " | User failed: " + userFailed
+                + " | Phone failed: " + phoneFailed + " | Invalid: " + invalid + " | In doubt: " + inDoubt
+                + " | Abandoned: " + abandoned + "|@"));
+        System.out.println(Ansi.AUTO.text(String.format("@|blue Processed %d rows in %.2f s (%.1f rows/s).|@",
+                results.size(), seconds, rate)));
+
+        return created + skipped == results.size() ? 0 : 1;
+    }
+
+    /**
+     * Reads ID,password,userGroupId[,name] rows from a CSV file. Blank lines, lines starting with '#'
+     * and a leading header row (first column "ID") are skipped.
+     *
+     * @param listPath CSV file path
+     * @return rows in file order
+     * @throws IOException              when file access fails
+     * @throws IllegalArgumentException when path is invalid
+     */
+    private List<CredentialRow> readRows(String listPath) throws IOException {
+        Path path = Invocation.current().resolve(listPath);
+        if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Invalid path: " + path.toAbsolutePath());
+        }
+
+        List<CredentialRow> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> cells = CsvParser.parseLine(line);
+                if (rows.isEmpty() && cells.get(0).equalsIgnoreCase("id")) {
+                    continue;
+                }
+                rows.add(new CredentialRow(lineNumber, cell(cells, 0), cell(cells, 1), cell(cells, 2), cell(cells, 3)));
+            }
+        }
+        return rows;
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static String cell(List<String> cells, int index) {
+        return index < cells.size() ? cells.get(index) : "";
+    }
 }
@@ -0,0 +1,163 @@
+package dev.pablo.api;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Time budget of one command run, shared by every request the command sends.
+ *
+ * <p>A deadline is bound to the thread that runs the command and carried to the threads working for it
+ * by a {@link RunContext}. {@link VicidialClientSingleton} picks it up when a request is issued: the request timeout is capped to the remaining budget, and requests issued after the
+ * deadline fail immediately with {@link AbandonedException}. When the deadline expires, or the run is
+ * cancelled after a fatal error, every request still in flight is completed with the same exception,
+ * so callers stop waiting at once and can report the item as abandoned.</p>
+ *
+ * <p>This plays the role of a {@code StructuredTaskScope} with a deadline: Java 21 only ships that
+ * API as a preview, so the scope is tracked here instead.</p>
+ */
+public final class Deadline implements AutoCloseable {
+    private static final ThreadLocal<Deadline> current = RunContext.newCarried();
+
+    private final Duration budget;
+    private final long expiresAtNanos;
+    /** Deadline bound to the thread before this one started, restored on close. */
+    private final Deadline enclosing;
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger cancelledRequests = new AtomicInteger();
+    private volatile AbandonedException reason;
+
+    private Deadline(Duration budget, Deadline enclosing) {
+        this.budget = budget;
+        this.enclosing = enclosing;
+        long expiresAt = System.nanoTime() + budget.toNanos();
+        this.expiresAtNanos = enclosing != null && enclosing.expiresAtNanos - expiresAt < 0
+                ? enclosing.expiresAtNanos : expiresAt;
+    }
+
+    /**
+     * Starts a deadline for the current thread.
+     *
+     * <p>A deadline started while another one is bound (e.g. a command of a batch run) never expires
+     * after the enclosing one, and closing it binds the enclosing one again.</p>
+     *
+     * @param budget time allowed for the whole run
+     * @return the deadline; close it when the run ends
+     */
+    public static Deadline start(Duration budget) {
+        Deadline deadline = new Deadline(budget, current.get());
+        current.set(deadline);
+        CompletableFuture.delayedExecutor(deadline.remaining().toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> deadline.cancel("deadline of " + format(budget) + " reached"));
+        return deadline;
+    }
+
+    /**
+     * @return the deadline of the run executing on this thread, or null when there is none
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * @return true when the error (or its cause) is a request abandoned because of a deadline or an abort
+     */
+    static boolean isAbandoned(Throwable error) {
+        return CircuitBreaker.unwrap(error) instanceof AbandonedException;
+    }
+
+    /**
+     * @return budget left, zero or negative once expired
+     */
+    Duration remaining() {
+        return Duration.ofNanos(expiresAtNanos - System.nanoTime());
+    }
+
+    /**
+     * @return the exception for requests issued now, or null while the budget lasts
+     */
+    AbandonedException getReason() {
+        if (reason == null && !remaining().isPositive()) {
+            cancel("deadline of " + format(budget) + " reached");
+        }
+        return reason;
+    }
+
+    /**
+     * Tracks a request future so it can be cancelled when the deadline expires.
+     *
+     * @return the same future
+     */
+    <T> CompletableFuture<T> track(CompletableFuture<T> request) {
+        inFlight.add(request);
+        request.whenComplete((value, error) -> inFlight.remove(request));
+        AbandonedException abandoned = reason;
+        if (abandoned != null && request.completeExceptionally(abandoned)) {
+            cancelledRequests.incrementAndGet();
+        }
+        return request;
+    }
+
+    /**
+     * Abandons every request in flight and every later one.
+     *
+     * @param why short explanation included in the error of the abandoned requests
+     */
+    public void cancel(String why) {
+        synchronized (this) {
+            if (reason != null) {
+                return;
+            }
+            reason = new AbandonedException("Request abandoned: " + why + ".");
+        }
+        for (CompletableFuture<?> request : inFlight) {
+            if (request.completeExceptionally(reason)) {
+                cancelledRequests.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return true once the deadline expired or the run was cancelled
+     */
+    public boolean isOver() {
+        return getReason() != null;
+    }
+
+    /**
+     * @return number of in-flight requests cancelled by {@link #cancel(String)}
+     */
+    public int getCancelledRequests() {
+        return cancelledRequests.get();
+    }
+
+    /**
+     * @return budget given to the run
+     */
+    public Duration getBudget() {
+        return budget;
+    }
+
+    /**
+     * Unbinds the deadline from the current thread, binding the enclosing one again if any.
+     */
+    @Override
+    public void close() {
+        if (enclosing != null) {
+            current.set(enclosing);
+        } else {
+            current.remove();
+        }
+    }
+
+    /**
+     * Formats a duration as e.g. "90s" or "1500ms".
+     */
+    public static String format(Duration duration) {
+        long millis = duration.toMillis();
+        return millis % 1000 == 0 ? (millis / 1000) + "s" : millis + "ms";
+    }
+}
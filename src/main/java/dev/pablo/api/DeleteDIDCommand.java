@@ -1,18 +1,29 @@
 package dev.pablo.api;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import dev.pablo.models.DidInventory;
 import dev.pablo.models.DidModel;
+import dev.pablo.models.DidSnapshot;
 import dev.pablo.models.HtmlParser;
+import dev.pablo.models.JobJournal;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Help.Ansi;
 import picocli.CommandLine.Option;
@@ -29,14 +40,25 @@ import picocli.CommandLine.Option;
  *
  * <p>
  * Workflow:
- * 1) Fetch DID table HTML from Vicidial admin page using VicidialClientSingleton.
- * 2) Parse HTML into DidModel objects using HtmlParser.ParseDIDs.
- * 3) Remove matched DIDs according to the selected mode (simulated removal).
+ * 1) Load the DID table from the on-disk snapshot when it is younger than --snapshot-max-age
+ *    (and --refresh was not given). Otherwise, for a small target set (up to --filter-threshold
+ *    DIDs, or one group) ask the admin page for the matching rows only; for larger sets, or when the
+ *    server turns out to ignore the filter, stream the whole DID table HTML, parse rows as they
+ *    arrive (HtmlParser.StreamDIDs) and save them as the new snapshot.
+ * 2) Index the DIDs in a DidInventory.
+ * 3) Remove matched DIDs according to the selected mode, optionally over a pool of
+ *    --parallel workers. Each removed DID is flagged as deleted in the snapshot. Results are always
+ *    printed in input order, followed by a summary.
+ * 4) With --job-id, every removal is recorded in a JobJournal keyed by callerId. Running the job
+ *    again skips the DIDs it already removed, before they are even looked up. A removal that was in
+ *    flight when a run died is simply tried again: a DID removed already is no longer listed.
  * </p>
  *
  * Examples:
  *   vicidial-cli deleteDIDs --did 15551234567
  *   vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt
+ *   vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt --parallel 8
+ *   vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt --job-id purge-2024-05
  *   vicidial-cli deleteDIDs -m GROUP  -g SALES_TEAM
  */
 @Command(name = "deleteDIDs", description = {
@@ -48,11 +70,17 @@ import picocli.CommandLine.Option;
     "Examples:",
     "  vicidial-cli deleteDIDs --did 15551234567",
     "  vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt",
+    "  vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt --parallel 8",
+    "  vicidial-cli deleteDIDs -m MULTIPLE -l /path/to/dids.txt --job-id purge-2024-05",
     "  vicidial-cli deleteDIDs -m GROUP --group SALES_TEAM",
     " "
 }, mixinStandardHelpOptions = true)
 public class DeleteDIDCommand implements Callable<Integer> {
-  private final String DIDS_URL = "https://cloud.yourserviceva.net/vicidial/admin.php?ADD=1300";
+  // Search parameters of the DID listing. A server that ignores them returns the whole table: the
+  // first filtered page is streamed and checked, and when it lists DIDs the filter does not match it is
+  // used (and saved) as the full table. Matches are always checked locally either way.
+  private static final String DID_FILTER_PARAM = "did_pattern";
+  private static final String GROUP_FILTER_PARAM = "group";
 
   /**
    * Modes supported by the command.
@@ -63,6 +91,39 @@ public class DeleteDIDCommand implements Callable<Integer> {
     GROUP
   }
 
+  /**
+   * Outcome of a single DID removal.
+   */
+  enum Outcome {
+    DELETED,
+    FAILED,
+    SKIPPED,
+    ABANDONED
+  }
+
+  /**
+   * Result of a removal attempt together with the line printed for it.
+   */
+  private record RemovalResult(Outcome outcome, String message) {
+  }
+
+  /**
+   * Search parameter of the DID listing and the rows a server honouring it may return.
+   */
+  private record DidFilter(String param, String value) {
+    String query() {
+      return param + "=" + ApiUrlBuilder.encode(value);
+    }
+
+    boolean matches(DidModel did) {
+      if (param.equals(GROUP_FILTER_PARAM)) {
+        return value.equals(did.getGroup());
+      }
+      // did_pattern is a search pattern: any callerId containing it may be listed.
+      return did.getCallerId() != null && did.getCallerId().contains(value);
+    }
+  }
+
   private final int DEFAULT_DID_ID = 1;
 
   /**
@@ -102,20 +163,68 @@ public class DeleteDIDCommand implements Callable<Integer> {
       "--list" }, description = "Path to a newline-separated text file containing DIDs to remove (one DID per line). Used with MULTIPLE mode.", defaultValue = "")
   private String list;
 
-  private List<DidModel> dids = new ArrayList<>();
+  /**
+   * Number of deletions executed concurrently.
+   */
+  @Option(names = {
+      "--parallel" }, description = "Number of DIDs deleted concurrently (default: ${DEFAULT-VALUE}).", defaultValue = "1")
+  private int parallel;
+
+  /**
+   * Snapshot file of the DID table reused between runs.
+   */
+  @Option(names = {
+      "--snapshot" }, description = "DID table snapshot file (default: ~/.vicidial-cli-dids.bin; under --targets, <name>@<profile>.bin).", defaultValue = "")
+  private String snapshotFile;
+
+  /**
+   * Maximum age of a snapshot that can be used instead of downloading the DID table.
+   */
+  @Option(names = {
+      "--snapshot-max-age" }, description = "Use the DID snapshot when it is younger than this many seconds; 0 always downloads (default: ${DEFAULT-VALUE}).", defaultValue = "900")
+  private long snapshotMaxAge;
+
+  /**
+   * Forces a fresh download of the DID table.
+   */
+  @Option(names = {
+      "--refresh" }, description = "Download the DID table even if the snapshot is fresh.")
+  private boolean refresh;
+
+  /**
+   * Largest number of DIDs looked up through filtered requests instead of the full listing.
+   */
+  @Option(names = {
+      "--filter-threshold" }, description = "Look up at most this many DIDs with filtered requests instead of downloading the whole table; 0 always downloads it (default: ${DEFAULT-VALUE}).", defaultValue = "5")
+  private int filterThreshold;
+
+  /**
+   * Journal of the run, so a run that died halfway can be resumed.
+   */
+  @Option(names = {
+      "--job-id" }, description = "Journal the removals under this ID; running it again with the same ID skips the DIDs already removed.", defaultValue = "")
+  private String jobId;
+
+  private JobJournal journal;
 
-  private final VicidialClientSingleton client;
+  private DidInventory inventory = DidInventory.of(List.of());
 
-  public DeleteDIDCommand() {
-    this.client = VicidialClientSingleton.getInstance();
+  private DidSnapshot snapshot;
+
+  /**
+   * Returns the shared Vicidial client, created (configuration loaded) on the first request.
+   */
+  private VicidialClientSingleton client() {
+    return VicidialClientSingleton.getInstance();
   }
 
   /**
    * Entry point executed by picocli.
    *
    * Steps:
-   * 1. Fetch DIDs HTML via VicidialClientSingleton#GetDIDs
-   * 2. Parse DIDs into DidModel list using HtmlParser
+   * 1. Load DIDs from the snapshot, or stream the DIDs HTML via VicidialClientSingleton#getFromWebStream
+   *    and parse it row by row using HtmlParser#StreamDIDs
+   * 2. Index the DIDs
    * 3. Execute removal flow depending on selected mode
    *
    * Returns exit code (0 success, 1 on error).
@@ -123,9 +232,15 @@ public class DeleteDIDCommand implements Callable<Integer> {
   @Override
   public Integer call() {
     try {
-      String html = client.getFromWeb(DIDS_URL);
-      dids = HtmlParser.ParseDIDs(html);
-      System.out.println(Ansi.AUTO.text("@|blue Total of #️⃣ " + dids.size() + " DIDs Found.|@"));
+      journal = Jobs.open(jobId, "deleteDIDs");
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println(Ansi.AUTO.text("❌ @|red Job error:|@ " + e.getMessage()));
+      return 1;
+    }
+
+    try {
+      inventory = DidInventory.of(loadDids(targetDids(), mode == MODE.GROUP ? group : ""));
+      System.out.println(Ansi.AUTO.text("@|blue Total of #️⃣ " + inventory.size() + " DIDs Found.|@"));
 
       // Check mode
       if (mode.equals(MODE.SINGLE)) {
@@ -159,17 +274,182 @@ public class DeleteDIDCommand implements Callable<Integer> {
     } catch (InterruptedException e) {
       System.out.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
       return 1;
+    } finally {
+      closeSnapshot();
+      Jobs.close(journal);
     }
     return 0;
   }
 
-  private void removeGroupDID() {
+  /**
+   * Returns the DIDs from a fresh snapshot of the DID page of SERVER_URL. Without one, a small target set is
+   * fetched with filtered requests; otherwise the DID page is downloaded, parsed and saved as the new
+   * snapshot. The first filtered page is streamed like the full one: if it lists rows its filter does
+   * not match, the server ignored the filter, and the page is the full table, saved as the snapshot
+   * instead of requesting the other filters. A filtered run keeps the existing snapshot of the same page
+   * open, stale or not, so its removals are flagged there too. A snapshot that cannot be read or written
+   * is only reported: the command then works on the downloaded table.
+   *
+   * @param targets  callerIds the command will look up, or null when unknown
+   * @param byGroup  group the command will look up ("" for none)
+   */
+  private List<DidModel> loadDids(Collection<String> targets, String byGroup)
+      throws IOException, InterruptedException {
+    Path path = snapshotPath();
+    String listUrl = client().getDidListUrl();
+
+    DidSnapshot existing = null;
+    if (Files.exists(path)) {
+      try {
+        DidSnapshot cached = DidSnapshot.open(path);
+        if (!cached.getSourceUrl().equals(listUrl)) {
+          cached.close();
+        } else if (!refresh && snapshotMaxAge > 0 && cached.getAge().getSeconds() < snapshotMaxAge) {
+          snapshot = cached;
+          System.out.println(Ansi.AUTO.text("@|blue Using DID snapshot from " + cached.getAge().getSeconds()
+              + " s ago (--refresh to download again).|@"));
+          return cached.getDids();
+        } else {
+          existing = cached;
+        }
+      } catch (IOException e) {
+        System.err.println(Ansi.AUTO.text("⚠️ @|yellow Ignoring DID snapshot:|@ " + e.getMessage()));
+      }
+    }
+    // Kept on the filtered path so its removals are flagged; replaced on the full one.
+    snapshot = existing;
+
+    List<DidFilter> filters = new ArrayList<>();
+    if (!byGroup.isBlank() && filterThreshold > 0) {
+      filters.add(new DidFilter(GROUP_FILTER_PARAM, byGroup));
+    } else if (targets != null && targets.isEmpty()) {
+      // Nothing valid to look up.
+      return List.of();
+    } else if (targets != null && targets.size() <= filterThreshold) {
+      for (String target : targets) {
+        filters.add(new DidFilter(DID_FILTER_PARAM, target));
+      }
+    }
+
+    String url = filters.isEmpty() ? listUrl : listUrl + "&" + filters.get(0).query();
+    List<DidModel> parsed = new ArrayList<>();
+    try (InputStream html = client().getFromWebStream(url)) {
+      HtmlParser.StreamDIDs(html, parsed::add);
+    }
+    if (!filters.isEmpty()) {
+      DidFilter first = filters.get(0);
+      if (parsed.stream().allMatch(first::matches)) {
+        return fetchFiltered(listUrl, parsed, filters.subList(1, filters.size()));
+      }
+      System.err.println(Ansi.AUTO.text("⚠️ @|yellow The server ignored the " + first.param()
+          + " filter: using the whole DID table it returned.|@"));
+    }
+
+    closeSnapshot();
+    try {
+      DidSnapshot.write(path, listUrl, parsed);
+      snapshot = DidSnapshot.open(path);
+    } catch (IOException e) {
+      System.err.println(Ansi.AUTO.text("⚠️ @|yellow Could not save DID snapshot:|@ " + e.getMessage()));
+    }
+    return parsed;
+  }
+
+  /**
+   * Fetches the DID listing once per remaining filter, concurrently, and merges the rows with those of
+   * the first filter (first occurrence of each DID id wins). The result is partial, so it is not saved
+   * as a snapshot.
+   *
+   * @param listUrl   URL of the DID page
+   * @param firstPage rows of the first filter, already checked against it
+   * @param others    the other filters
+   */
+  private List<DidModel> fetchFiltered(String listUrl, List<DidModel> firstPage, List<DidFilter> others)
+      throws IOException, InterruptedException {
+    List<CompletableFuture<String>> pages = new ArrayList<>();
+    for (DidFilter filter : others) {
+      pages.add(client().getFromWebAsync(listUrl + "&" + filter.query()));
+    }
+
+    Map<Integer, DidModel> merged = new LinkedHashMap<>();
+    firstPage.forEach(parsed -> merged.putIfAbsent(parsed.getId(), parsed));
+    try {
+      for (CompletableFuture<String> page : pages) {
+        for (DidModel parsed : HtmlParser.ParseDIDs(page.get())) {
+          merged.putIfAbsent(parsed.getId(), parsed);
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = CircuitBreaker.unwrap(e.getCause());
+      throw cause instanceof IOException io ? io : new IOException(cause);
+    } finally {
+      pages.forEach(page -> page.cancel(true));
+    }
+    System.out.println(Ansi.AUTO.text("@|blue Looked up " + (others.size() + 1) + " filtered DID page(s).|@"));
+    return new ArrayList<>(merged.values());
+  }
+
+  /**
+   * Valid callerIds targeted by SINGLE and MULTIPLE modes and not removed by an earlier run of the job,
+   * or null when the mode has none or the list file cannot be read (the removal step reports it).
+   */
+  private Set<String> targetDids() {
+    Set<String> targets = new LinkedHashSet<>();
+    try {
+      if (mode == MODE.SINGLE && !did.isBlank()) {
+        targets.add(did);
+      } else if (mode == MODE.MULTIPLE && !list.isBlank()) {
+        targets.addAll(readFile(list));
+      } else {
+        return null;
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+    targets.removeIf(target -> {
+      if (isJournaled(target)) {
+        return true;
+      }
+      try {
+        checkDidFormat(target);
+        return false;
+      } catch (IllegalArgumentException e) {
+        return true;
+      }
+    });
+    return targets;
+  }
+
+  /**
+   * Snapshot file of the run, kept per profile under --targets ({@code .vicidial-cli-dids@<profile>.bin},
+   * or the --snapshot file with the same suffix), like job journals, so clusters never replace each
+   * other's table.
+   */
+  private Path snapshotPath() {
+    Path path = snapshotFile.isBlank() ? Paths.get(System.getProperty("user.home"), ".vicidial-cli-dids.bin")
+        : Invocation.current().resolve(snapshotFile);
+    return ClientProfile.qualify(path);
+  }
+
+  private synchronized void closeSnapshot() {
+    if (snapshot != null) {
+      try {
+        snapshot.close();
+      } catch (IOException e) {
+        // Nothing left to write: flags are forced to disk as they are set.
+      }
+      snapshot = null;
+    }
+  }
+
+  private void removeGroupDID() throws InterruptedException {
     List<DidModel> didsMatch = didMatchGroup(group);
 
+    List<Callable<RemovalResult>> removals = new ArrayList<>();
     for (DidModel d : didsMatch) {
-      removeDid(d);
+      removals.add(() -> removeJournaled(d));
     }
-
+    runRemovals(removals);
   }
 
   /**
@@ -177,35 +457,89 @@ public class DeleteDIDCommand implements Callable<Integer> {
    *
    * @throws IOException if reading the file fails.
    */
-  private void removeMultipleDID() throws IOException {
+  private void removeMultipleDID() throws IOException, InterruptedException {
     Set<String> didsProvided = readFile(list);
 
+    List<Callable<RemovalResult>> removals = new ArrayList<>();
     for (String s : didsProvided) {
+      if (isJournaled(s)) {
+        removals.add(() -> skippedByJob(s));
+        continue;
+      }
       try {
         checkDidFormat(s);
         DidModel didModel = didMatch(s);
         if (didModel == null) {
-          System.out.println(Ansi.AUTO.text("❌ @|red Phone not found in Vicidial: " + s + "|@ "));
+          removals.add(() -> skipped("❌ @|red Phone not found in Vicidial: " + s + "|@ "));
           continue;
         }
-        removeDid(didModel);
+        removals.add(() -> removeJournaled(didModel));
       } catch (IllegalArgumentException e) {
-        System.out.println(Ansi.AUTO.text("❌ @|red Invalid Phone number: " + s + "|@ "));
+        removals.add(() -> skipped("❌ @|red Invalid Phone number: " + s + "|@ "));
+      }
+    }
+    runRemovals(removals);
+  }
+
+  /**
+   * Executes the removals over a pool of {@link #parallel} workers and prints each result in
+   * submission order, followed by deleted/failed/skipped/abandoned counts and the achieved rate.
+   *
+   * @param removals removal tasks, in the order their results must be printed
+   * @throws InterruptedException when interrupted while waiting for the workers
+   */
+  private void runRemovals(List<Callable<RemovalResult>> removals) throws InterruptedException {
+    int deleted = 0;
+    int failed = 0;
+    int skipped = 0;
+    int abandoned = 0;
+    long start = System.nanoTime();
+    int workers = Math.max(1, parallel);
+
+    ExecutorService executor = Executors.newFixedThreadPool(workers, RunContext.capture().threads(Executors.defaultThreadFactory()));
+    try {
+      List<Future<RemovalResult>> futures = new ArrayList<>(removals.size());
+      for (Callable<RemovalResult> removal : removals) {
+        futures.add(executor.submit(removal));
+      }
+
+      for (Future<RemovalResult> future : futures) {
+        RemovalResult result;
+        try {
+          result = future.get();
+        } catch (ExecutionException e) {
+          result = new RemovalResult(Outcome.FAILED, "❌ @|red Unexpected error: " + e.getCause() + "|@");
+        }
+        System.out.println(Ansi.AUTO.text(result.message()));
+        switch (result.outcome()) {
+          case DELETED -> deleted++;
+          case FAILED -> failed++;
+          case SKIPPED -> skipped++;
+          case ABANDONED -> abandoned++;
+        }
       }
+    } finally {
+      executor.shutdownNow();
     }
+
+    double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+    double rate = seconds > 0 ? deleted / seconds : deleted;
+    System.out.println(Ansi.AUTO.text(String.format(
+        "@|blue Deleted: %d | Failed: %d | Skipped: %d | Abandoned: %d | %.2f s (%.1f deletions/s, %d workers)|@",
+        deleted, failed, skipped, abandoned, seconds, rate, workers)));
   }
 
   /**
    * Reads a newline-separated file and returns a set of DID strings.
    *
    * @param listPath file path to read
-   * @return set of DIDs (unique)
+   * @return set of DIDs (unique, in file order)
    * @throws IOException              when file access fails
    * @throws IllegalArgumentException when path is invalid
    */
   private Set<String> readFile(String listPath) throws IOException {
-    Path path = Paths.get(listPath);
-    Set<String> dids = new HashSet<>();
+    Path path = Invocation.current().resolve(listPath);
+    Set<String> dids = new LinkedHashSet<>();
 
     // check if file exists
     if (!Files.exists(path) || !Files.isRegularFile(path)) {
@@ -223,10 +557,15 @@ public class DeleteDIDCommand implements Callable<Integer> {
    *
    * Throws IllegalArgumentException when DID format is invalid (caught by caller).
    */
-  private void removeSingleDID() {
+  private void removeSingleDID() throws InterruptedException {
     // check if phone number is valid
     checkDidFormat(did);
 
+    if (isJournaled(did)) {
+      runRemovals(List.of(() -> skippedByJob(did)));
+      return;
+    }
+
     DidModel didModel = didMatch(did);
 
     if (didModel == null) {
@@ -234,7 +573,7 @@ public class DeleteDIDCommand implements Callable<Integer> {
       return;
     }
 
-    removeDid(didModel);
+    runRemovals(List.of(() -> removeJournaled(didModel)));
   }
 
   /**
@@ -244,18 +583,11 @@ public class DeleteDIDCommand implements Callable<Integer> {
    * @return matched DidModel or null if not found
    */
   private DidModel didMatch(String s) {
-    DidModel didModel = null;
-    Optional<DidModel> didMatch = dids.stream().filter(d -> d.getCallerId().equals(s)).findFirst();
-
-    if (didMatch.isPresent()) {
-      didModel = didMatch.get();
-    }
-
-    return didModel;
+    return inventory.findByCallerId(s);
   }
 
   private List<DidModel> didMatchGroup(String s) {
-    List<DidModel> didsMatch = dids.stream().filter(d -> d.getGroup().equals(s)).toList();
+    List<DidModel> didsMatch = inventory.findByGroup(s);
 
     System.out
         .println(Ansi.AUTO.text("@|blue Total of #️⃣ " + didsMatch.size() + " dids Found from " + s + " group.|@"));
@@ -263,39 +595,93 @@ public class DeleteDIDCommand implements Callable<Integer> {
   }
 
   /**
-   * Performs safety checks and prints removal result.
+   * Performs safety checks and removes the DID.
    *
    * - ignores null matches
    * - protects the default DID id (DEFAULT_DID_ID)
    *
-   * @param did DidModel to remove (simulated)
+   * @param did DidModel to remove
+   * @return the outcome and the line to print for it
    */
-  private void removeDid(DidModel did) {
+  private RemovalResult removeDid(DidModel did) {
     if (did == null) {
-      System.out.println(Ansi.AUTO.text("@|red Can't remove DID from null. |@"));
-      return;
+      return skipped("@|red Can't remove DID from null. |@");
     }
 
     if (did.getId() == DEFAULT_DID_ID) {
-      System.out.println(Ansi.AUTO.text("@|red Can't remove default DID. |@"));
-      return;
+      return skipped("@|red Can't remove default DID. |@");
     }
 
     try {
-      client.removeDID(did.getId());
-      System.out.println(
-        Ansi.AUTO.text("@|green ID: " + did.getId() + " DID: " + did.getCallerId() + " removed successfully. |@"));
-      
+      client().removeDID(did.getId());
+      markDeleted(did);
+      return new RemovalResult(Outcome.DELETED,
+          "@|green ID: " + did.getId() + " DID: " + did.getCallerId() + " removed successfully. |@");
+
+    } catch (AbandonedException e) {
+      return new RemovalResult(Outcome.ABANDONED, "⏱ @|yellow Removal abandoned for DID ID: " + did.getId() + "|@");
     } catch (IOException e) {
-      System.out.println(Ansi.AUTO.text("❌ @|red I/O error removing DID ID: " + did.getId() + "|@"));
+      return new RemovalResult(Outcome.FAILED, "❌ @|red I/O error removing DID ID: " + did.getId() + "|@");
     } catch (InterruptedException e) {
-      System.out.println(Ansi.AUTO.text("❌ @|red Removal interrupted for DID ID: " + did.getId() + "|@"));
       Thread.currentThread().interrupt();
+      return new RemovalResult(Outcome.FAILED, "❌ @|red Removal interrupted for DID ID: " + did.getId() + "|@");
     } catch (Exception e) {
-      System.out.println(Ansi.AUTO.text("❌ @|red Unexpected error removing DID ID: " + did.getId() + "|@"));
+      return new RemovalResult(Outcome.FAILED, "❌ @|red Unexpected error removing DID ID: " + did.getId() + "|@");
     }
   }
 
+  /**
+   * Removes a DID, recording the attempt and its outcome in the job journal (when there is one).
+   */
+  private RemovalResult removeJournaled(DidModel did) {
+    if (journal == null || did == null) {
+      return removeDid(did);
+    }
+    journal.started(did.getCallerId());
+    RemovalResult result = removeDid(did);
+    if (result.outcome() == Outcome.DELETED) {
+      journal.completed(did.getCallerId(), String.valueOf(did.getId()));
+    } else {
+      journal.failed(did.getCallerId(), result.outcome().name());
+    }
+    return result;
+  }
+
+  /**
+   * @return true when an earlier run of the job removed the DID
+   */
+  private boolean isJournaled(String callerId) {
+    return journal != null && journal.isCompleted(callerId);
+  }
+
+  private RemovalResult skippedByJob(String callerId) {
+    return skipped("@|faint DID " + callerId + " already removed by an earlier run of the job.|@");
+  }
+
+  /**
+   * Flags a removed DID in the snapshot so later runs do not list it.
+   */
+  private synchronized void markDeleted(DidModel did) {
+    if (snapshot == null) {
+      return;
+    }
+    try {
+      snapshot.markDeleted(did.getId());
+    } catch (IOException e) {
+      System.err.println(Ansi.AUTO.text("⚠️ @|yellow Could not update DID snapshot:|@ " + e.getMessage()));
+      closeSnapshot();
+      try {
+        Files.deleteIfExists(snapshotPath());
+      } catch (IOException ignored) {
+        // The next run will find a stale snapshot unreadable or old and download the table.
+      }
+    }
+  }
+
+  private RemovalResult skipped(String message) {
+    return new RemovalResult(Outcome.SKIPPED, message);
+  }
+
   /**
    * Validates the DID format expected by the system.
    *
@@ -1,13 +1,33 @@
 package dev.pablo.api;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.lang.InterruptedException;
 
+import dev.pablo.models.CsvParser;
+import dev.pablo.models.JobJournal;
+import dev.pablo.models.LeadModel;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
-import picocli.CommandLine.Help.Ansi; 
+import picocli.CommandLine.Help.Ansi;
 
 /**
  * Command to duplicate an existing lead and place the new lead into a specified list.
@@ -16,9 +36,22 @@ import picocli.CommandLine.Help.Ansi;
  * inside the provided destination list. Optionally the agent can override comments
  * and/or the email address for the duplicated lead.</p>
  *
+ * <p>Batch mode ({@code --file}) streams {@code leadId,listId[,comments,email]} rows from a CSV file
+ * through a two-stage pipeline: up to {@code --fetch-concurrency} workers look leads up
+ * (lead_all_info) and hand them to up to {@code --create-concurrency} workers that create the copies
+ * (add_lead). Stages are joined by bounded queues, so a slow stage holds the previous one back
+ * instead of buffering the whole file. The outcome of every row is appended to the output CSV as
+ * soon as it is known. With {@code --job-id} every lead/list pair is recorded in a {@link JobJournal}:
+ * running the job again skips the pairs it already duplicated instead of creating second copies.
+ * A pair whose add_lead was in flight when an earlier run died is reported as in doubt and not sent
+ * again, since it may have been created; {@code --retry-in-doubt} sends those pairs once they have
+ * been checked.</p>
+ *
  * <p>Usage:
  * <pre>
  *   duplicateInList &lt;leadId&gt; &lt;listId&gt; [-c|--comments &lt;notes&gt;] [-e|--email &lt;email&gt;]
+ *   duplicateInList --file &lt;leads.csv&gt; [-o|--output &lt;results.csv&gt;]
+ *                   [--fetch-concurrency &lt;N&gt;] [--create-concurrency &lt;N&gt;] [--job-id &lt;id&gt; [--retry-in-doubt]]
  *   Example: duplicateInList 12345 10 -c "Transfer to new list" -e new@example.com
  * </pre>
  * </p>
@@ -26,7 +59,7 @@ import picocli.CommandLine.Help.Ansi;
  * <p>Exit codes:
  * <ul>
  *   <li>0 — Lead duplicated successfully.</li>
- *   <li>1 — API/network error or interruption.</li>
+ *   <li>1 — API/network error or interruption (in batch mode: at least one row was not duplicated).</li>
  * </ul>
  * </p>
  *
@@ -37,27 +70,77 @@ import picocli.CommandLine.Help.Ansi;
     description = {
         "Creates a new Lead based on an existing one and places it in a specific list.",
         "Usage: vicidial-cli duplicateInList <leadId> <listId> [-c|--comments <notes>] [-e|--email <email>]",
-        "Example: vicidial-cli duplicateInList 12345 10 -c \"Transfer to new list\" -e new@example.com"
+        "       vicidial-cli duplicateInList --file <leads.csv> [-o|--output <results.csv>] [--job-id <id>]",
+        "Example: vicidial-cli duplicateInList 12345 10 -c \"Transfer to new list\" -e new@example.com",
+        "Example: vicidial-cli duplicateInList --file leads.csv --fetch-concurrency 16 --create-concurrency 4"
     },
     mixinStandardHelpOptions = true
 )
 public class DuplicateLeadCommand implements Callable<Integer> {
+    /** Header of the batch output file. */
+    private static final String[] OUTPUT_HEADER = {"line", "leadId", "listId", "status", "newLeadId", "message"};
 
-    private VicidialClientSingleton client;
-    @Parameters(index = "0", description="The lead ID (contact identifier).")
+    @Parameters(index = "0", arity = "0..1", description="The lead ID (contact identifier).")
     private String leadId;
-    @Parameters(index = "1", description="Destination list ID.")
+    @Parameters(index = "1", arity = "0..1", description="Destination list ID.")
     private String listId;
     @Option(names = { "-c", "--comments"}, description = "Agent notes.", defaultValue="")
     private String comments;
     @Option(names = { "-e", "--email" }, description = "Email to overwrite (optional).", defaultValue="")
     private String email;
+    @Option(names = { "-f", "--file" }, description = "CSV file with leadId,listId[,comments,email] rows (batch mode).", defaultValue="")
+    private String file;
+    @Option(names = { "-o", "--output" }, description = "CSV file receiving the outcome of each row (default: <file>.results.csv).", defaultValue="")
+    private String output;
+    @Option(names = { "--fetch-concurrency" }, description = "Leads looked up at the same time in batch mode (default: ${DEFAULT-VALUE}).", defaultValue="8")
+    private int fetchConcurrency;
+    @Option(names = { "--create-concurrency" }, description = "Leads created at the same time in batch mode (default: ${DEFAULT-VALUE}).", defaultValue="4")
+    private int createConcurrency;
+    @Option(names = { "--queue-size" }, description = "Capacity of the queues between stages in batch mode (default: ${DEFAULT-VALUE}).", defaultValue="256")
+    private int queueSize;
+    @Option(names = { "--job-id" }, description = "Journal batch mode under this ID; running it again with the same ID skips the rows already duplicated.", defaultValue="")
+    private String jobId;
+    @Option(names = { "--retry-in-doubt" }, description = "With --job-id, also duplicate the rows an earlier run may have duplicated before it died.")
+    private boolean retryInDoubt;
+
+    /** Journal of the batch run; null without --job-id. */
+    private JobJournal journal;
+
+    /** Outcome of a single batch row. */
+    enum Status {
+        CREATED,
+        SKIPPED,
+        ALREADY_EXISTS,
+        NOT_FOUND,
+        FETCH_FAILED,
+        CREATE_FAILED,
+        INVALID,
+        IN_DOUBT,
+        ABANDONED
+    }
+
+    /** One lead/list pair read from the batch file. */
+    private record LeadRow(int line, String leadId, String listId, String comments, String email) {
+    }
+
+    /** A row whose lead has been looked up and is ready to be created. */
+    private record FetchedLead(LeadRow row, LeadModel lead) {
+    }
+
+    /** Outcome written to the output file for one row. */
+    private record RowResult(LeadRow row, Status status, String newLeadId, String message) {
+    }
+
+    // Queue markers telling the next stage that no more items will come.
+    private static final LeadRow END_OF_ROWS = new LeadRow(-1, "", "", "", "");
+    private static final FetchedLead END_OF_LEADS = new FetchedLead(END_OF_ROWS, null);
+    private static final RowResult END_OF_RESULTS = new RowResult(END_OF_ROWS, Status.INVALID, "", "");
 
     /**
-     * Constructs the command and obtains the shared Vicidial client instance.
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
      */
-    public DuplicateLeadCommand() {
-        this.client = VicidialClientSingleton.getInstance();
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
     }
 
     /**
@@ -69,17 +152,334 @@ public class DuplicateLeadCommand implements Callable<Integer> {
      */
     @Override
     public Integer call() throws IOException, InterruptedException  {
+        if (!file.isBlank()) {
+            return duplicateFromFile();
+        }
+        if (leadId == null || listId == null) {
+            System.err.println(Ansi.AUTO.text("❌ @|red leadId and listId are required (or use --file).|@"));
+            return 1;
+        }
+
         try {
-            client.DuplicateLeadInList(leadId, listId, comments, email);
+            client().DuplicateLeadInList(leadId, listId, comments, email);
             return 0;
         }catch (IOException e) {
             System.err.println(Ansi.AUTO.text("❌ @|red API or network error:|@ " + e.getMessage()));
             return 1;
         } catch (InterruptedException e) {
             System.err.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
-            Thread.currentThread().interrupt(); 
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Batch mode: reader → fetch workers → create workers → writer, all on virtual threads and joined
+     * by bounded queues. Each stage tells the next one it is done by enqueuing an end marker once its
+     * last worker finishes.
+     *
+     * @return 0 when every row was duplicated, 1 otherwise
+     */
+    private Integer duplicateFromFile() {
+        Path input = Invocation.current().resolve(file);
+        if (!Files.isRegularFile(input)) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ Invalid path: " + input.toAbsolutePath()));
+            return 1;
+        }
+        // One results file per cluster under --targets (<file>.results@<profile>.csv).
+        Path results = ClientProfile.qualify(Invocation.current().resolve(output.isBlank() ? file + ".results.csv" : output));
+        try {
+            journal = Jobs.open(jobId, "duplicateInList");
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Job error:|@ " + e.getMessage()));
+            return 1;
+        }
+
+        int fetchers = Math.max(1, fetchConcurrency);
+        int creators = Math.max(1, createConcurrency);
+        int capacity = Math.max(1, queueSize);
+        BlockingQueue<LeadRow> toFetch = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<FetchedLead> toCreate = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<RowResult> toWrite = new ArrayBlockingQueue<>(capacity);
+        AtomicInteger fetchersLeft = new AtomicInteger(fetchers);
+        AtomicInteger creatorsLeft = new AtomicInteger(creators);
+
+        System.out.println(Ansi.AUTO.text("⏳ @|yellow Duplicating leads from " + input.getFileName() + " (fetch "
+                + fetchers + ", create " + creators + ") ...|@ "));
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(RunContext.capture().threads(Thread.ofVirtual().factory()));
+        // First failure of any stage. It stops the whole pipeline: the other stages would otherwise
+        // wait forever on queues nobody drains or fills any more.
+        AtomicReference<Throwable> stageFailure = new AtomicReference<>();
+        try {
+            Future<Integer> writer = executor.submit(() -> stage(executor, stageFailure, () -> writeResults(results, toWrite)));
+            Future<?> reader = executor.submit(() -> stage(executor, stageFailure, () -> {
+                try {
+                    readRows(input, toFetch, toWrite);
+                } finally {
+                    for (int i = 0; i < fetchers; i++) {
+                        toFetch.put(END_OF_ROWS);
+                    }
+                }
+                return null;
+            }));
+            for (int i = 0; i < fetchers; i++) {
+                executor.submit(() -> stage(executor, stageFailure, () -> {
+                    try {
+                        fetchStage(toFetch, toCreate, toWrite);
+                    } finally {
+                        if (fetchersLeft.decrementAndGet() == 0) {
+                            for (int j = 0; j < creators; j++) {
+                                toCreate.put(END_OF_LEADS);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int i = 0; i < creators; i++) {
+                executor.submit(() -> stage(executor, stageFailure, () -> {
+                    try {
+                        createStage(toCreate, toWrite);
+                    } finally {
+                        if (creatorsLeft.decrementAndGet() == 0) {
+                            toWrite.put(END_OF_RESULTS);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            int failed;
+            try {
+                failed = writer.get();
+                reader.get();
+            } catch (ExecutionException e) {
+                Throwable cause = stageFailure.get() != null ? stageFailure.get() : e.getCause();
+                throw new ExecutionException(cause);
+            }
+            if (stageFailure.get() != null) {
+                throw new ExecutionException(stageFailure.get());
+            }
+
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.println(Ansi.AUTO.text("@|blue Results written to " + results.toAbsolutePath() + "|@"));
+            System.out.println(Ansi.AUTO.text(String.format("@|blue Finished in %.2f s.|@", seconds)));
+            return failed == 0 ? 0 : 1;
+        } catch (InterruptedException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            return 1;
+        } catch (ExecutionException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Batch aborted:|@ " + describe(e.getCause())));
+            executor.shutdownNow();
+            return 1;
+        } catch (RejectedExecutionException e) {
+            // A stage failed while the others were still being started.
+            System.err.println(Ansi.AUTO.text("❌ @|red Batch aborted:|@ " + describe(stageFailure.get() != null ? stageFailure.get() : e)));
             return 1;
+        } finally {
+            executor.close();
+            Jobs.close(journal);
+        }
+    }
+
+    /**
+     * Runs one stage of the pipeline. When it fails, the failure is kept and every other stage is
+     * interrupted, so the run ends instead of blocking on a queue.
+     */
+    private static <T> T stage(ExecutorService executor, AtomicReference<Throwable> failure, Callable<T> work)
+            throws Exception {
+        try {
+            return work.call();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception | Error e) {
+            if (failure.compareAndSet(null, e)) {
+                executor.shutdownNow();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Streams rows from the input file into the fetch queue. Invalid rows go straight to the writer.
+     * Blank lines, lines starting with '#' and a leading header row (first column "leadId") are skipped,
+     * and so are the rows an earlier run of the job duplicated.
+     */
+    private void readRows(Path input, BlockingQueue<LeadRow> toFetch, BlockingQueue<RowResult> toWrite)
+            throws IOException, InterruptedException {
+        try (BufferedReader reader = Files.newBufferedReader(input)) {
+            String line;
+            int lineNumber = 0;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> cells = CsvParser.parseLine(line);
+                if (first && cells.get(0).replace("_", "").equalsIgnoreCase("leadid")) {
+                    first = false;
+                    continue;
+                }
+                first = false;
+
+                LeadRow row = new LeadRow(lineNumber, cell(cells, 0), cell(cells, 1), cell(cells, 2), cell(cells, 3));
+                if (row.leadId().isEmpty() || row.listId().isEmpty()) {
+                    toWrite.put(new RowResult(row, Status.INVALID, "", "leadId and listId are required"));
+                } else if (journal != null && journal.isCompleted(jobKey(row))) {
+                    toWrite.put(new RowResult(row, Status.SKIPPED, "", "Duplicated by an earlier run of the job"));
+                } else if (journal != null && !retryInDoubt && journal.isInDoubt(jobKey(row))) {
+                    toWrite.put(new RowResult(row, Status.IN_DOUBT, "", "An earlier run of the job may have duplicated it"
+                            + " before it stopped; check the list, then use --retry-in-doubt to send it again"));
+                } else {
+                    toFetch.put(row);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetch worker: looks each lead up and applies the comments/email overrides of its row (or of the
+     * command line when the row leaves them empty).
+     */
+    private void fetchStage(BlockingQueue<LeadRow> toFetch, BlockingQueue<FetchedLead> toCreate,
+            BlockingQueue<RowResult> toWrite) throws InterruptedException {
+        LeadRow row;
+        while ((row = toFetch.take()) != END_OF_ROWS) {
+            String response;
+            try {
+                response = client().getLeadInfo(row.leadId());
+            } catch (AbandonedException e) {
+                toWrite.put(new RowResult(row, Status.ABANDONED, "", describe(e)));
+                continue;
+            } catch (IOException | RuntimeException e) {
+                toWrite.put(new RowResult(row, Status.FETCH_FAILED, "", describe(e)));
+                continue;
+            }
+            if (response.isEmpty()) {
+                toWrite.put(new RowResult(row, Status.NOT_FOUND, "", "Lead not found"));
+                continue;
+            }
+
+            LeadModel lead;
+            try {
+                lead = new LeadModel(response);
+                String rowComments = row.comments().isEmpty() ? comments : row.comments();
+                String rowEmail = row.email().isEmpty() ? email : row.email();
+                if (!rowComments.isEmpty()) {
+                    lead.setComments(rowComments);
+                }
+                if (!rowEmail.isEmpty()) {
+                    lead.setEmail(rowEmail);
+                }
+            } catch (RuntimeException e) {
+                toWrite.put(new RowResult(row, Status.FETCH_FAILED, "", "Unreadable lead: " + describe(e)));
+                continue;
+            }
+            toCreate.put(new FetchedLead(row, lead));
+        }
+    }
+
+    /**
+     * Create worker: adds each fetched lead to its destination list.
+     */
+    private void createStage(BlockingQueue<FetchedLead> toCreate, BlockingQueue<RowResult> toWrite)
+            throws InterruptedException {
+        FetchedLead fetched;
+        while ((fetched = toCreate.take()) != END_OF_LEADS) {
+            LeadRow row = fetched.row();
+            if (journal != null) {
+                try {
+                    journal.startedDurably(jobKey(row));
+                } catch (IOException e) {
+                    toWrite.put(new RowResult(row, Status.CREATE_FAILED, "", "not created: " + describe(e)));
+                    continue;
+                }
+            }
+            try {
+                String newLeadId = client().addLead(fetched.lead(), row.listId());
+                toWrite.put(new RowResult(row, Status.CREATED, newLeadId, ""));
+            } catch (LeadExistsException e) {
+                toWrite.put(new RowResult(row, Status.ALREADY_EXISTS, "", "Lead already exists"));
+            } catch (AbandonedException e) {
+                toWrite.put(new RowResult(row, Status.ABANDONED, "", describe(e)));
+            } catch (IOException | RuntimeException e) {
+                toWrite.put(new RowResult(row, Status.CREATE_FAILED, "", describe(e)));
+            }
+        }
+    }
+
+    /**
+     * Writer: appends each outcome to the output file (and to the job journal) in completion order,
+     * flushing whenever it catches up with the workers, then prints the totals.
+     *
+     * @return number of rows that were not duplicated
+     */
+    private Integer writeResults(Path results, BlockingQueue<RowResult> toWrite)
+            throws IOException, InterruptedException {
+        Map<Status, Integer> totals = new EnumMap<>(Status.class);
+        int rows = 0;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(results)) {
+            writer.write(CsvParser.formatLine(OUTPUT_HEADER));
+            writer.newLine();
+
+            RowResult result;
+            while ((result = toWrite.take()) != END_OF_RESULTS) {
+                LeadRow row = result.row();
+                writer.write(CsvParser.formatLine(String.valueOf(row.line()), row.leadId(), row.listId(),
+                        result.status().name(), result.newLeadId(), result.message()));
+                writer.newLine();
+                if (toWrite.isEmpty()) {
+                    writer.flush();
+                }
+                if (journal != null) {
+                    journalResult(result);
+                }
+                totals.merge(result.status(), 1, Integer::sum);
+                rows++;
+            }
         }
+
+        System.out.println("---------------------------------------------------------");
+        List<String> parts = new ArrayList<>();
+        for (Status status : Status.values()) {
+            parts.add(status.name() + ": " + totals.getOrDefault(status, 0));
+        }
+        System.out.println(Ansi.AUTO.text("@|blue Rows: " + rows + " | " + String.join(" | ", parts) + "|@"));
+
+        return rows - totals.getOrDefault(Status.CREATED, 0) - totals.getOrDefault(Status.SKIPPED, 0);
     }
 
+    /**
+     * Records the outcome of a row that was attempted; skipped, invalid and in-doubt rows are not
+     * journaled.
+     */
+    private void journalResult(RowResult result) {
+        Status status = result.status();
+        if (status == Status.CREATED) {
+            journal.completed(jobKey(result.row()), result.newLeadId());
+        } else if (status != Status.SKIPPED && status != Status.INVALID && status != Status.IN_DOUBT) {
+            journal.failed(jobKey(result.row()), status + " " + result.message());
+        }
+    }
+
+    /**
+     * @return key of a row in the job journal: the lead/list pair
+     */
+    private static String jobKey(LeadRow row) {
+        return CsvParser.formatLine(row.leadId(), row.listId());
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static String cell(List<String> cells, int index) {
+        return index < cells.size() ? cells.get(index) : "";
+    }
 }
@@ -0,0 +1,397 @@
+package dev.pablo.api;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+
+import dev.pablo.models.CsvParser;
+import dev.pablo.models.LeadExportWriter;
+import dev.pablo.models.LeadModel;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Help.Ansi;
+
+/**
+ * Command to export leads to an NDJSON or CSV file.
+ *
+ * <p>Lead IDs come from a file (one per line, or the first column of a CSV) or from an inclusive
+ * range. Up to {@code --concurrency} lead_all_info calls run at the same time; responses are put back
+ * in input order through a reorder window of {@code --window} slots and written straight to disk, so
+ * memory stays bounded by the window whatever the size of the export. IDs are read lazily, never
+ * more than a window ahead of the last lead written.</p>
+ *
+ * <p>Leads that do not exist are skipped; leads that fail are reported on stderr. Under
+ * {@code --deadline}, no lookup is issued once the deadline expires and the lookups it cancelled are
+ * counted as abandoned. The summary names the first abandoned lead, from which a later run can
+ * resume.</p>
+ *
+ * <p>Usage:
+ * <pre>
+ *   exportLeads (--file &lt;ids.txt&gt; | --from &lt;ID&gt; --to &lt;ID&gt;) -o &lt;leads.ndjson|leads.csv&gt;
+ *               [--format ndjson|csv] [--concurrency &lt;N&gt;] [--window &lt;N&gt;]
+ *   Example: exportLeads --from 1000 --to 250000 -o audit.ndjson
+ * </pre>
+ * </p>
+ *
+ * <p>Exit codes:
+ * <ul>
+ *   <li>0 — Every lead was exported (or did not exist).</li>
+ *   <li>1 — At least one lead failed, the output could not be written, or interruption.</li>
+ * </ul>
+ * </p>
+ */
+@Command(
+    name = "exportLeads",
+    description = {
+        "Exports leads to an NDJSON or CSV file, in input order.",
+        "Usage: vicidial-cli exportLeads (--file <ids.txt> | --from <ID> --to <ID>) -o <output> [--format ndjson|csv]",
+        "Example: vicidial-cli exportLeads --from 1000 --to 250000 -o audit.ndjson --concurrency 32"
+    },
+    mixinStandardHelpOptions = true
+)
+public class ExportLeadsCommand implements Callable<Integer> {
+    @Option(names = { "-f", "--file" }, description = "File with one lead ID per line (or per CSV row, first column).", defaultValue = "")
+    private String file;
+
+    @Option(names = { "--from" }, description = "First lead ID of the range (inclusive).", defaultValue = "-1")
+    private long from;
+
+    @Option(names = { "--to" }, description = "Last lead ID of the range (inclusive).", defaultValue = "-1")
+    private long to;
+
+    @Option(names = { "-o", "--output" }, required = true, description = "Output file.")
+    private String output;
+
+    @Option(names = { "--format" }, description = "ndjson or csv (default: from the output extension, else ndjson).", defaultValue = "")
+    private String format;
+
+    @Option(names = { "--concurrency" }, description = "Lookups in flight (default: ${DEFAULT-VALUE}).", defaultValue = "16")
+    private int concurrency;
+
+    @Option(names = { "--window" }, description = "Responses held at most while waiting for an earlier one (default: ${DEFAULT-VALUE}).", defaultValue = "256")
+    private int window;
+
+    /**
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
+     */
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
+    }
+
+    @Override
+    public Integer call() {
+        LeadExportWriter.Format outputFormat;
+        try {
+            outputFormat = resolveFormat();
+        } catch (IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red " + e.getMessage() + "|@"));
+            return 1;
+        }
+        if (file.isBlank() && (from < 0 || to < from)) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Provide --file or a valid --from/--to range.|@"));
+            return 1;
+        }
+
+        int slots = Math.max(1, window);
+        int lookups = Math.max(1, Math.min(concurrency, slots));
+        // One file per cluster under --targets (out@<profile>.csv), so clusters never write the same one.
+        Path outputPath = ClientProfile.qualify(Invocation.current().resolve(output));
+        System.out.println(Ansi.AUTO.text("⏳ @|yellow Exporting leads to " + outputPath.getFileName() + " ("
+                + outputFormat.name().toLowerCase() + ", concurrency " + lookups + ", window " + slots + ") ...|@ "));
+        long start = System.nanoTime();
+
+        ReorderWindow reorder;
+        String notRequested = null;
+        try (LeadExportWriter writer = LeadExportWriter.open(outputPath, outputFormat);
+             LeadIds ids = file.isBlank() ? LeadIds.range(from, to) : LeadIds.fromFile(Invocation.current().resolve(file))) {
+            reorder = new ReorderWindow(slots, writer);
+            Semaphore inFlight = new Semaphore(lookups);
+
+            Deadline deadline = Deadline.current();
+            // Lookups complete on client threads: their failures are printed with this run's output.
+            RunContext context = RunContext.capture();
+            long sequence = 0;
+            try {
+                while (ids.hasNext() && !reorder.hasFailed() && (deadline == null || !deadline.isOver())) {
+                    String leadId = ids.next();
+                    long position = sequence;
+                    reorder.reserve(position);
+                    inFlight.acquire();
+                    sequence++;
+                    try {
+                        client().getLeadInfoAsync(leadId).whenComplete(context.wrap((body, error) -> {
+                            inFlight.release();
+                            reorder.complete(position, leadId, body, error);
+                        }));
+                    } catch (RuntimeException e) {
+                        // A lookup that cannot even be issued is a failure of that lead only.
+                        inFlight.release();
+                        reorder.complete(position, leadId, null, e);
+                    }
+                }
+            } finally {
+                // The writer is closed on the way out: let the lookups in flight land in it first.
+                reorder.awaitWritten(sequence);
+            }
+            reorder.flush();
+            if (ids.hasNext() && !reorder.hasFailed()) {
+                notRequested = ids.next();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Export Error:|@ " + e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        if (reorder.getWriteError() != null) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Export Error:|@ " + reorder.getWriteError().getMessage()));
+            return 1;
+        }
+
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        long total = reorder.getExported() + reorder.getNotFound() + reorder.getFailed() + reorder.getAbandoned();
+        System.out.println("---------------------------------------------------------");
+        System.out.println(Ansi.AUTO.text("@|blue Exported: " + reorder.getExported() + " | Not found: "
+                + reorder.getNotFound() + " | Failed: " + reorder.getFailed() + " | Abandoned: "
+                + reorder.getAbandoned() + "|@"));
+        String resumeFrom = reorder.getFirstAbandoned() != null ? reorder.getFirstAbandoned() : notRequested;
+        if (resumeFrom != null) {
+            System.out.println(Ansi.AUTO.text("⏱ @|yellow Deadline reached: leads from " + resumeFrom
+                    + " on were not exported (some later ones may have been).|@"));
+        }
+        System.out.println(Ansi.AUTO.text(String.format("@|blue Processed %d leads in %.2f s (%.1f leads/s).|@",
+                total, seconds, seconds > 0 ? total / seconds : total)));
+
+        return reorder.getFailed() == 0 && resumeFrom == null ? 0 : 1;
+    }
+
+    private LeadExportWriter.Format resolveFormat() {
+        String name = format.isBlank()
+                ? (output.toLowerCase().endsWith(".csv") ? "csv" : "ndjson")
+                : format.trim().toLowerCase();
+        switch (name) {
+            case "ndjson":
+            case "json":
+                return LeadExportWriter.Format.NDJSON;
+            case "csv":
+                return LeadExportWriter.Format.CSV;
+            default:
+                throw new IllegalArgumentException("Unknown format: " + format + " (ndjson, csv)");
+        }
+    }
+
+    /**
+     * Ring of {@code size} slots holding responses that arrived before an earlier one. Whoever
+     * completes the next expected position writes it, followed by every consecutive slot already
+     * filled, and frees those slots for new lookups.
+     */
+    private static final class ReorderWindow {
+        private final Object[] slots;
+        private final String[] leadIds;
+        private final LeadExportWriter writer;
+        // Reused for every record: the writer copies the fields out before the next reset.
+        private final LeadModel lead = new LeadModel();
+        private long next;
+        private long exported;
+        private long notFound;
+        private long failed;
+        private long abandoned;
+        private String firstAbandoned;
+        private IOException writeError;
+
+        ReorderWindow(int size, LeadExportWriter writer) {
+            this.slots = new Object[size];
+            this.leadIds = new String[size];
+            this.writer = writer;
+        }
+
+        /** Blocks until the slot of {@code position} is free, i.e. position is within the window. */
+        synchronized void reserve(long position) throws InterruptedException {
+            while (position - next >= slots.length) {
+                wait();
+            }
+        }
+
+        /** Stores the outcome of a lookup and writes every record that is now in order. */
+        synchronized void complete(long position, String leadId, String body, Throwable error) {
+            int slot = (int) (position % slots.length);
+            slots[slot] = error != null ? error : body;
+            leadIds[slot] = leadId;
+
+            int head = (int) (next % slots.length);
+            while (slots[head] != null) {
+                emit(leadIds[head], slots[head]);
+                slots[head] = null;
+                leadIds[head] = null;
+                next++;
+                head = (int) (next % slots.length);
+            }
+            notifyAll();
+        }
+
+        /** Blocks until every position below {@code end} has been written. */
+        synchronized void awaitWritten(long end) throws InterruptedException {
+            while (next < end) {
+                wait();
+            }
+        }
+
+        /** Flushes the records written so far, unless writing already failed. */
+        synchronized void flush() throws IOException {
+            if (writeError == null) {
+                writer.flush();
+            }
+        }
+
+        synchronized boolean hasFailed() {
+            return writeError != null;
+        }
+
+        synchronized IOException getWriteError() {
+            return writeError;
+        }
+
+        synchronized long getExported() {
+            return exported;
+        }
+
+        synchronized long getNotFound() {
+            return notFound;
+        }
+
+        synchronized long getFailed() {
+            return failed;
+        }
+
+        synchronized long getAbandoned() {
+            return abandoned;
+        }
+
+        /** @return first lead (in input order) whose lookup was abandoned, or null */
+        synchronized String getFirstAbandoned() {
+            return firstAbandoned;
+        }
+
+        private void emit(String leadId, Object outcome) {
+            if (outcome instanceof Throwable error && Deadline.isAbandoned(error)) {
+                abandoned++;
+                if (firstAbandoned == null) {
+                    firstAbandoned = leadId;
+                }
+                return;
+            }
+            if (outcome instanceof Throwable error) {
+                failed++;
+                Throwable cause = CircuitBreaker.unwrap(error);
+                String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                System.err.println(Ansi.AUTO.text("❌ @|red Lead " + leadId + " failed:|@ " + message));
+                return;
+            }
+            String body = ((String) outcome).stripTrailing();
+            if (body.isEmpty()) {
+                notFound++;
+                return;
+            }
+            if (writeError != null) {
+                return;
+            }
+            try {
+                writer.write(lead.reset(body));
+                exported++;
+            } catch (IOException e) {
+                writeError = e;
+            }
+        }
+    }
+
+    /**
+     * Lazily produced sequence of lead IDs.
+     */
+    private abstract static class LeadIds implements Iterator<String>, AutoCloseable {
+
+        static LeadIds range(long from, long to) {
+            return new LeadIds() {
+                private long current = from;
+
+                @Override
+                public boolean hasNext() {
+                    return current <= to;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return Long.toString(current++);
+                }
+            };
+        }
+
+        /**
+         * Reads IDs from a file: blank lines, lines starting with '#' and a header whose first column
+         * is not numeric are skipped.
+         */
+        static LeadIds fromFile(Path path) throws IOException {
+            if (!Files.isRegularFile(path)) {
+                throw new IllegalArgumentException("Invalid path: " + path.toAbsolutePath());
+            }
+            BufferedReader reader = Files.newBufferedReader(path);
+            return new LeadIds() {
+                private String pending;
+                private boolean first = true;
+
+                @Override
+                public boolean hasNext() {
+                    try {
+                        while (pending == null) {
+                            String line = reader.readLine();
+                            if (line == null) {
+                                return false;
+                            }
+                            if (line.isBlank() || line.startsWith("#")) {
+                                continue;
+                            }
+                            String id = CsvParser.parseLine(line).get(0);
+                            boolean header = first && !id.chars().allMatch(Character::isDigit);
+                            first = false;
+                            if (!header && !id.isEmpty()) {
+                                pending = id;
+                            }
+                        }
+                        return true;
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException("Error reading " + path + ": " + e.getMessage(), e);
+                    }
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    String id = pending;
+                    pending = null;
+                    return id;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package dev.pablo.api;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hedges read-only requests to cut tail latency.
+ *
+ * <p>When a request has not answered the given percentile of its function's latency (as recorded in
+ * {@link RequestMetrics}) after it was sent, an identical second request is sent, ahead of the requests
+ * waiting for the concurrency limiter; the first successful response wins and the other request is
+ * aborted. Extra load is capped by a token budget: every request earns {@code budgetRatio} tokens (up
+ * to a small burst), every hedge spends one, so at most that fraction of requests is hedged over time.
+ * No hedge is sent before a function has {@code minSamples} latency samples.</p>
+ *
+ * <p>Per function, the policy keeps the latency of the first request ("before": what callers would
+ * have seen without hedging) and the latency callers actually observed ("after"). A first request
+ * aborted because the hedge won only counts with the time it had run, so "before" is then a lower
+ * bound.</p>
+ */
+final class HedgePolicy {
+    private static final double MAX_TOKENS = 10;
+
+    private final double budgetRatio;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private double tokens;
+
+    /**
+     * Starts one copy of the request.
+     */
+    @FunctionalInterface
+    interface Request<T> {
+        CompletableFuture<T> start(Copy copy);
+    }
+
+    /**
+     * Signals exchanged with one copy of a request.
+     */
+    static final class Copy {
+        /** True for the second copy. */
+        final boolean hedge;
+        /** Completed by the policy when the copy is no longer needed and should be cancelled. */
+        final CompletableFuture<Void> abort = new CompletableFuture<>();
+        /** Completed by the caller once the copy is on the wire (e.g. past the concurrency limiter). */
+        final CompletableFuture<Void> sent = new CompletableFuture<>();
+
+        Copy(boolean hedge) {
+            this.hedge = hedge;
+        }
+    }
+
+    private static final class Stats {
+        final LatencyHistogram primary = new LatencyHistogram();
+        final LatencyHistogram observed = new LatencyHistogram();
+        final LongAdder requests = new LongAdder();
+        final LongAdder hedged = new LongAdder();
+        final LongAdder hedgeWins = new LongAdder();
+    }
+
+    /**
+     * @param budgetRatio   fraction of requests that may be hedged (e.g. 0.1)
+     * @param minDelayMillis shortest delay before a hedge is sent
+     * @param minSamples    latency samples a function needs before it is hedged
+     */
+    HedgePolicy(double budgetRatio, long minDelayMillis, int minSamples) {
+        this.budgetRatio = budgetRatio;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Runs the call, hedging it once if it is slower than the percentile.
+     *
+     * @param label      function name, used for the hedging statistics
+     * @param percentile latency percentile after which the hedge is sent (0 disables hedging)
+     * @param latency    recent latency of the function
+     * @param call       starts one copy of the request
+     * @return a future completed with the first successful response, or the error once every request
+     *         sent has failed
+     */
+    <T> CompletableFuture<T> execute(String label, double percentile, LatencyHistogram latency, Request<T> call) {
+        if (percentile <= 0) {
+            return call.start(null);
+        }
+        Stats stat = stats.computeIfAbsent(label, k -> new Stats());
+        stat.requests.increment();
+        earn();
+
+        long start = System.nanoTime();
+        Race<T> race = new Race<>(stat, start);
+        Copy primary = race.launch(call, false);
+
+        if (primary != null && latency.getCount() >= minSamples) {
+            long delay = Math.max(minDelayNanos, latency.percentileMicros(percentile) * 1_000);
+            // The hedge starts on a timer thread, with the caller's state.
+            Runnable hedge = RunContext.capture().wrap(() -> {
+                if (race.result.isDone() || !spend()) {
+                    return;
+                }
+                if (race.launch(call, true) != null) {
+                    stat.hedged.increment();
+                    VicidialClientSingleton.debug("⚡ Hedging " + label + " after "
+                            + TimeUnit.NANOSECONDS.toMillis(delay) + " ms");
+                }
+            });
+            // Waiting in the local queue is not a slow server: the clock starts once the primary is sent.
+            primary.sent.thenRun(() -> CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(hedge));
+        }
+        return race.result;
+    }
+
+    /**
+     * Returns one line per hedged function: hedge rate, hedges that won and p99 latency without and
+     * with hedging.
+     */
+    String summary() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(stats).entrySet()) {
+            Stats stat = entry.getValue();
+            long requests = stat.requests.sum();
+            long hedged = stat.hedged.sum();
+            if (requests == 0) {
+                continue;
+            }
+            long wins = stat.hedgeWins.sum();
+            out.append(String.format("⚡ Hedging %s: %d of %d requests hedged (%.1f%%), %d won by the hedge; "
+                    + "p99 %s%.1f ms without hedging, %.1f ms with%n",
+                    entry.getKey(), hedged, requests, 100.0 * hedged / requests, wins, wins > 0 ? "≥" : "",
+                    stat.primary.percentileMicros(99) / 1000.0, stat.observed.percentileMicros(99) / 1000.0));
+        }
+        return out.toString();
+    }
+
+    private synchronized void earn() {
+        tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+    }
+
+    private synchronized boolean spend() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * The requests racing for one call. The first success completes the result; the result fails
+     * only once every request started has failed. Completing the result, for whatever reason, aborts
+     * the requests still running.
+     */
+    private static final class Race<T> {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Stats stat;
+        private final long start;
+        private final CompletableFuture<Void> aborts = new CompletableFuture<>();
+        private int started;
+        private int failed;
+        private boolean primaryRecorded;
+
+        Race(Stats stat, long start) {
+            this.stat = stat;
+            this.start = start;
+            result.whenComplete((value, error) -> {
+                stat.observed.record(System.nanoTime() - start);
+                aborts.complete(null);
+                recordPrimary();
+            });
+        }
+
+        /**
+         * Starts the primary or the hedge, unless the race is already over.
+         *
+         * @return the copy started, or null
+         */
+        Copy launch(Request<T> call, boolean hedge) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return null;
+                }
+                started++;
+            }
+            Copy copy = new Copy(hedge);
+            aborts.thenRun(() -> copy.abort.complete(null));
+            CompletableFuture<T> request;
+            try {
+                request = call.start(copy);
+            } catch (RuntimeException e) {
+                request = CompletableFuture.failedFuture(e);
+            }
+            request.whenComplete((value, error) -> settle(hedge, value, error));
+            return copy;
+        }
+
+        private void settle(boolean hedge, T value, Throwable error) {
+            if (!hedge) {
+                recordPrimary();
+            }
+            if (error == null) {
+                if (result.complete(value) && hedge) {
+                    stat.hedgeWins.increment();
+                }
+                return;
+            }
+            boolean allFailed;
+            synchronized (this) {
+                allFailed = ++failed == started;
+            }
+            if (allFailed) {
+                result.completeExceptionally(error);
+            }
+        }
+
+        /** The primary's latency, or the time it had run when the race ended without it. */
+        private void recordPrimary() {
+            synchronized (this) {
+                if (primaryRecorded) {
+                    return;
+                }
+                primaryRecorded = true;
+            }
+            stat.primary.record(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package dev.pablo.api;
+
+import java.io.IOException;
+
+/**
+ * Raised when the Vicidial server answers with a status code other than 200.
+ *
+ * <p>Keeps the status code so the retry policy and the circuit breaker can tell server-side
+ * failures (5xx, 408, 429) apart from client errors.</p>
+ */
+class HttpStatusException extends IOException {
+    private final int statusCode;
+
+    HttpStatusException(int statusCode) {
+        super("Error calling the API. Status code: " + statusCode);
+        this.statusCode = statusCode;
+    }
+
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @return true for statuses that signal a temporary server-side problem
+     */
+    boolean isServerFailure() {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+}
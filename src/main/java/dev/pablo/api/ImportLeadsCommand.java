@@ -0,0 +1,599 @@
+package dev.pablo.api;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.zip.CRC32;
+
+import dev.pablo.models.CsvParser;
+import dev.pablo.models.LeadModel;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Help.Ansi;
+
+/**
+ * Command to create leads from a CSV file.
+ *
+ * <p>The first row of the file is a header. Columns are matched to the fields add_lead receives
+ * (phone_number, first_name, last_name, address1-3, city, state, postal_code, alt_phone, email,
+ * comments, and optionally list_id) by name, ignoring case, spaces and underscores;
+ * {@code --map field=column} overrides the match for a field.</p>
+ *
+ * <p>The file is streamed: a row is only parsed once one of the {@code --concurrency} request slots
+ * is free, so reading never runs ahead of the server. Every {@code --checkpoint-every} rows, and when
+ * the run is stopped, {@code <file>.checkpoint} saves the byte offset below which every row has
+ * completed, the rows past it that completed too, and the rows still in flight; the next run resumes
+ * from the offset ({@code --restart} ignores the checkpoint), skips the completed rows and reports the
+ * rows that were in flight as in doubt without sending them again, since add_lead may have created
+ * them. Only the rows read after the last save of a run killed outright are sent again. The
+ * checkpoint also records the size, modification time and header of the file, and is refused when the
+ * file no longer matches. It is removed once the whole file went through; rows that failed or are in
+ * doubt are reported on stderr with their line number.</p>
+ *
+ * <p>Under {@code --deadline}, reading stops when the deadline expires and the checkpoint is kept, so
+ * the next run picks up from there. The rows the deadline cancelled may have reached the server
+ * (cancelling does not abort the exchange), so they are in doubt too.</p>
+ *
+ * <p>Usage:
+ * <pre>
+ *   importLeads &lt;leads.csv&gt; -l &lt;listId&gt; [-m field=column ...] [--concurrency &lt;N&gt;] [--restart]
+ *   Example: importLeads leads.csv -l 1001 -m phone_number=Mobile
+ * </pre>
+ * </p>
+ *
+ * <p>Exit codes:
+ * <ul>
+ *   <li>0 — Every row was imported.</li>
+ *   <li>1 — At least one row failed or was invalid, the file could not be read, or interruption.</li>
+ * </ul>
+ * </p>
+ */
+@Command(
+    name = "importLeads",
+    description = {
+        "Creates leads from a CSV file (header row required), resuming from the last checkpoint.",
+        "Usage: vicidial-cli importLeads <leads.csv> -l <listId> [-m field=column ...] [--concurrency <N>] [--restart]",
+        "Example: vicidial-cli importLeads leads.csv -l 1001 -m phone_number=Mobile"
+    },
+    mixinStandardHelpOptions = true
+)
+public class ImportLeadsCommand implements Callable<Integer> {
+    /** Fields sent by add_lead that can be imported, by column name. */
+    private static final Map<String, Integer> IMPORT_FIELDS = new LinkedHashMap<>();
+    private static final String LIST_ID_FIELD = "list_id";
+
+    static {
+        for (int field : new int[] { LeadModel.PHONE_NUMBER, LeadModel.FIRST_NAME, LeadModel.LAST_NAME,
+                LeadModel.ADDRESS1, LeadModel.ADDRESS2, LeadModel.ADDRESS3, LeadModel.CITY, LeadModel.STATE,
+                LeadModel.POSTAL_CODE, LeadModel.ALT_PHONE, LeadModel.EMAIL, LeadModel.COMMENTS }) {
+            IMPORT_FIELDS.put(LeadModel.FIELDS[field], field);
+        }
+    }
+
+    @Parameters(index = "0", description = "CSV file with a header row.")
+    private String file;
+
+    @Option(names = { "-l", "--list" }, description = "Destination list ID (a list_id column overrides it per row).", defaultValue = "")
+    private String listId;
+
+    @Option(names = { "-m", "--map" }, description = "Column used for a field, e.g. phone_number=Mobile (repeatable).")
+    private Map<String, String> mappings = new HashMap<>();
+
+    @Option(names = { "--concurrency" }, description = "add_lead calls in flight (default: ${DEFAULT-VALUE}).", defaultValue = "16")
+    private int concurrency;
+
+    @Option(names = { "--checkpoint-every" }, description = "Save the checkpoint every N completed rows (default: ${DEFAULT-VALUE}).", defaultValue = "500")
+    private int checkpointEvery;
+
+    @Option(names = { "--restart" }, description = "Ignore an existing checkpoint and import from the beginning.")
+    private boolean restart;
+
+    /**
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
+     */
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
+    }
+
+    @Override
+    public Integer call() {
+        Path input = Invocation.current().resolve(file);
+        if (!Files.isRegularFile(input)) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ Invalid path: " + input.toAbsolutePath()));
+            return 1;
+        }
+        // One checkpoint per cluster under --targets: each cluster imports the file at its own pace.
+        Path checkpointPath = ClientProfile.qualify(Invocation.current().resolve(file + ".checkpoint"));
+
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            OffsetLineReader reader = new OffsetLineReader(channel, 0);
+            String header = reader.readLine();
+            if (header == null) {
+                System.err.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ The file is empty."));
+                return 1;
+            }
+            int[] columns = mapColumns(CsvParser.parseLine(header));
+            Source source = Source.of(input, channel, header);
+
+            // Resume after the last checkpoint, when there is one for this file.
+            Checkpoint resumeFrom = new Checkpoint(reader.getOffset(), 1, Set.of(), Set.of());
+            if (!restart) {
+                Checkpoint saved = Checkpoint.read(checkpointPath, source);
+                if (saved != null && saved.offset() >= resumeFrom.offset() && saved.offset() <= channel.size()) {
+                    resumeFrom = saved;
+                    System.out.println(Ansi.AUTO.text("@|yellow Resuming after line " + saved.line()
+                            + " (byte " + saved.offset() + ").|@"));
+                }
+            }
+            reader = new OffsetLineReader(channel, resumeFrom.offset());
+
+            return importRows(reader, resumeFrom, columns, checkpointPath, source);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Import Error:|@ " + e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * Reads rows and sends them, holding each row until a request slot frees up.
+     */
+    private Integer importRows(OffsetLineReader reader, Checkpoint start, int[] columns, Path checkpointPath,
+            Source source) throws IOException, InterruptedException {
+        int slots = Math.max(1, concurrency);
+        Semaphore inFlight = new Semaphore(slots);
+        Progress progress = new Progress(Math.max(64, slots * 8), start, checkpointPath, source,
+                Math.max(1, checkpointEvery));
+
+        // Save how far we got when the run is stopped (e.g. Ctrl+C).
+        Thread saveOnExit = new Thread(progress::saveQuietly);
+        Runtime.getRuntime().addShutdownHook(saveOnExit);
+
+        System.out.println(Ansi.AUTO.text("⏳ @|yellow Importing leads from " + Paths.get(file).getFileName()
+                + " (concurrency " + slots + ") ...|@ "));
+        long begin = System.nanoTime();
+
+        Deadline deadline = Deadline.current();
+        // Rows complete on client threads: their failures are printed with this run's output.
+        RunContext context = RunContext.capture();
+        long sequence = 0;
+        int lineNumber = start.line();
+        boolean stopped = false;
+        boolean drained = false;
+        String line;
+        try {
+            while (true) {
+                if (deadline != null && deadline.isOver()) {
+                    stopped = true;
+                    break;
+                }
+                // Backpressure: nothing more is read until a request completes.
+                inFlight.acquire();
+                line = reader.readLine();
+                if (line == null) {
+                    inFlight.release();
+                    break;
+                }
+                lineNumber++;
+                long position = sequence;
+                long end = reader.getOffset();
+                progress.reserve(position, lineNumber, end);
+                sequence++;
+
+                // Rows are identified across runs by the offset they end at.
+                if (line.isBlank() || start.completed().contains(end)) {
+                    inFlight.release();
+                    progress.resolve(position, false);
+                    continue;
+                }
+                if (start.inDoubt().contains(end)) {
+                    inFlight.release();
+                    progress.resolve(position, true);
+                    continue;
+                }
+
+                try {
+                    sendRow(line, columns).whenComplete(context.wrap((newLeadId, error) -> {
+                        inFlight.release();
+                        progress.complete(position, error);
+                    }));
+                } catch (RuntimeException e) {
+                    // A row that cannot be sent is a failure of that row only.
+                    inFlight.release();
+                    progress.complete(position, e);
+                }
+            }
+
+            progress.awaitDrained(sequence);
+            drained = true;
+        } finally {
+            try {
+                Runtime.getRuntime().removeShutdownHook(saveOnExit);
+            } catch (IllegalStateException e) {
+                // The JVM is already exiting: the hook saves the checkpoint.
+            }
+            if (!drained) {
+                // Rows still in flight are saved as in doubt: the next run does not send them again.
+                progress.saveQuietly();
+            }
+        }
+        if (stopped) {
+            progress.save();
+            System.out.println(Ansi.AUTO.text("⏱ @|yellow Deadline reached: run the command again to resume after line "
+                    + progress.getCommittedLine() + ".|@"));
+        } else {
+            // The whole file went through: failed rows were reported above, nothing is left to resume.
+            Files.deleteIfExists(checkpointPath);
+        }
+
+        double seconds = (System.nanoTime() - begin) / 1_000_000_000.0;
+        long total = progress.getCreated() + progress.getExisting() + progress.getFailed() + progress.getInDoubt();
+        System.out.println("---------------------------------------------------------");
+        System.out.println(Ansi.AUTO.text("@|blue Created: " + progress.getCreated() + " | Already exists: "
+                + progress.getExisting() + " | Failed: " + progress.getFailed() + " | In doubt: "
+                + progress.getInDoubt() + "|@"));
+        System.out.println(Ansi.AUTO.text(String.format("@|blue Processed %d rows in %.2f s (%.1f rows/s).|@",
+                total, seconds, seconds > 0 ? total / seconds : total)));
+
+        return progress.getFailed() == 0 && !stopped && progress.getInDoubt() == 0 ? 0 : 1;
+    }
+
+    /**
+     * Parses a row and sends it to add_lead.
+     *
+     * @return a future completed with the new lead ID
+     * @throws IllegalArgumentException when the row has no phone number or list ID
+     */
+    private CompletableFuture<String> sendRow(String line, int[] columns) {
+        List<String> cells = CsvParser.parseLine(line);
+        LeadModel lead = new LeadModel();
+        for (int i = 0; i < cells.size() && i < columns.length; i++) {
+            if (columns[i] >= 0) {
+                lead.set(columns[i], cells.get(i));
+            }
+        }
+        String rowList = lead.get(LeadModel.LIST_ID) != null && !lead.get(LeadModel.LIST_ID).isEmpty()
+                ? lead.get(LeadModel.LIST_ID) : listId;
+        if (lead.getPhone_number() == null || lead.getPhone_number().isEmpty() || rowList.isEmpty()) {
+            throw new IllegalArgumentException("phone_number and list_id are required");
+        }
+        return client().addLeadAsync(lead, rowList);
+    }
+
+    /**
+     * Resolves, for every column of the header, the lead field it fills (-1 when unused).
+     */
+    private int[] mapColumns(List<String> header) {
+        Map<String, Integer> byColumn = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            byColumn.putIfAbsent(normalize(header.get(i)), i);
+        }
+
+        int[] columns = new int[header.size()];
+        Arrays.fill(columns, -1);
+        Map<String, Integer> fields = new LinkedHashMap<>(IMPORT_FIELDS);
+        fields.put(LIST_ID_FIELD, LeadModel.LIST_ID);
+
+        for (Map.Entry<String, String> mapping : mappings.entrySet()) {
+            if (!fields.containsKey(mapping.getKey())) {
+                throw new IllegalArgumentException("Unknown field in --map: " + mapping.getKey()
+                        + " (expected one of " + String.join(", ", fields.keySet()) + ")");
+            }
+            if (!byColumn.containsKey(normalize(mapping.getValue()))) {
+                throw new IllegalArgumentException("Column not found in header: " + mapping.getValue());
+            }
+        }
+
+        for (Map.Entry<String, Integer> field : fields.entrySet()) {
+            String column = mappings.getOrDefault(field.getKey(), field.getKey());
+            Integer index = byColumn.get(normalize(column));
+            if (index != null) {
+                columns[index] = field.getValue();
+            }
+        }
+
+        if (Arrays.stream(columns).noneMatch(field -> field == LeadModel.PHONE_NUMBER)) {
+            throw new IllegalArgumentException("No phone_number column (use --map phone_number=<column>).");
+        }
+        return columns;
+    }
+
+    private static String normalize(String column) {
+        return column.toLowerCase().replaceAll("[^a-z0-9]", "");
+    }
+
+    /** Version of the imported file a checkpoint belongs to: size, modification time and header CRC. */
+    private record Source(long size, long modified, long header) {
+
+        static Source of(Path path, FileChannel channel, String header) throws IOException {
+            CRC32 crc = new CRC32();
+            crc.update(header.getBytes(StandardCharsets.UTF_8));
+            return new Source(channel.size(), Files.getLastModifiedTime(path).toMillis(), crc.getValue());
+        }
+    }
+
+    /**
+     * Position up to which every row has completed (byte offset and line number), and the rows past it
+     * that completed or are in doubt, by the offset they end at.
+     */
+    private record Checkpoint(long offset, int line, Set<Long> completed, Set<Long> inDoubt) {
+
+        /**
+         * @return the checkpoint saved for {@code source}, or null when there is none (or it is unreadable)
+         * @throws IllegalArgumentException when the checkpoint was saved for another version of the file
+         */
+        static Checkpoint read(Path path, Source source) throws IOException {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            String[] parts = Files.readString(path).trim().split("\\s+");
+            Checkpoint checkpoint;
+            Source saved;
+            try {
+                // Completed rows past the offset are saved as +<end>, rows in doubt as ?<end>.
+                Set<Long> completed = new HashSet<>();
+                Set<Long> inDoubt = new HashSet<>();
+                for (int i = 5; i < parts.length; i++) {
+                    (parts[i].startsWith("?") ? inDoubt : completed).add(Long.parseLong(parts[i].substring(1)));
+                }
+                checkpoint = new Checkpoint(Long.parseLong(parts[0]), Integer.parseInt(parts[1]), completed, inDoubt);
+                saved = parts.length < 5 ? null
+                        : new Source(Long.parseLong(parts[2]), Long.parseLong(parts[3]), Long.parseLong(parts[4]));
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+            if (!source.equals(saved)) {
+                // Resuming at a byte offset of another file would skip or resend arbitrary rows.
+                throw new IllegalArgumentException("The file changed since " + path.getFileName()
+                        + " was saved (size, date or header differ). Use --restart to import it from the beginning.");
+            }
+            return checkpoint;
+        }
+
+        void write(Path path, Source source) throws IOException {
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+            StringBuilder text = new StringBuilder();
+            text.append(offset).append(' ').append(line).append(' ').append(source.size()).append(' ')
+                    .append(source.modified()).append(' ').append(source.header());
+            completed.forEach(end -> text.append(" +").append(end));
+            inDoubt.forEach(end -> text.append(" ?").append(end));
+            try {
+                Files.writeString(temp, text.append('\n'));
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Tracks completions, which arrive out of order, in a ring of {@code size} rows and advances the
+     * checkpoint over the completed prefix. The reader waits when it gets a full ring ahead of the
+     * oldest row still in flight. A row abandoned by the deadline is in doubt: it is reported and the
+     * checkpoint moves past it, since sending it again could create the lead twice.
+     */
+    private static final class Progress {
+        private final long[] ends;
+        private final int[] lines;
+        private final boolean[] done;
+        private final boolean[] doubtful;
+        private final Path checkpointPath;
+        private final Source source;
+        private final int saveEvery;
+        /** Checkpoint the run resumed from, whose rows past the offset are carried until they are read. */
+        private final Checkpoint start;
+        private long next;
+        private long reserved;
+        private Checkpoint committed;
+        private int sinceSave;
+        private long created;
+        private long existing;
+        private long failed;
+        private long inDoubt;
+
+        Progress(int size, Checkpoint start, Path checkpointPath, Source source, int saveEvery) {
+            this.ends = new long[size];
+            this.lines = new int[size];
+            this.done = new boolean[size];
+            this.doubtful = new boolean[size];
+            this.start = start;
+            this.committed = new Checkpoint(start.offset(), start.line(), Set.of(), Set.of());
+            this.checkpointPath = checkpointPath;
+            this.source = source;
+            this.saveEvery = saveEvery;
+        }
+
+        /**
+         * Waits for a slot in the ring and assigns it to a row.
+         *
+         * @param line line number of the row
+         * @param end  byte offset right after the row
+         */
+        synchronized void reserve(long position, int line, long end) throws InterruptedException {
+            while (position - next >= done.length) {
+                wait();
+            }
+            int slot = (int) (position % done.length);
+            ends[slot] = end;
+            lines[slot] = line;
+            reserved = position + 1;
+        }
+
+        /**
+         * Marks a row that was sent as done.
+         *
+         * @param error null when the lead was created
+         */
+        synchronized void complete(long position, Throwable error) {
+            int line = lines[(int) (position % done.length)];
+            boolean abandoned = false;
+            if (error == null) {
+                created++;
+            } else if (Deadline.isAbandoned(error)) {
+                abandoned = true;
+                inDoubt++;
+                System.err.println(Ansi.AUTO.text("⚠️ @|yellow Line " + line + " is in doubt:|@ abandoned while in"
+                        + " flight, the lead may have been created. It is not sent again."));
+            } else {
+                Throwable cause = CircuitBreaker.unwrap(error);
+                if (cause instanceof LeadExistsException) {
+                    existing++;
+                } else {
+                    failed++;
+                    String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+                    System.err.println(Ansi.AUTO.text("❌ @|red Line " + line + " failed:|@ " + message));
+                }
+            }
+            markDone(position, abandoned);
+        }
+
+        /**
+         * Marks a row that is not sent as done: blank, completed by an earlier run, or in doubt since an
+         * earlier run stopped while it was in flight.
+         */
+        synchronized void resolve(long position, boolean wasInDoubt) {
+            if (wasInDoubt) {
+                inDoubt++;
+                System.err.println(Ansi.AUTO.text("⚠️ @|yellow Line " + lines[(int) (position % done.length)]
+                        + " is in doubt:|@ it was in flight when an earlier run stopped, the lead may have been"
+                        + " created. It is not sent again."));
+            }
+            markDone(position, wasInDoubt);
+        }
+
+        private void markDone(long position, boolean isInDoubt) {
+            int slot = (int) (position % done.length);
+            done[slot] = true;
+            doubtful[slot] = isInDoubt;
+
+            int head = (int) (next % done.length);
+            while (done[head]) {
+                done[head] = false;
+                committed = new Checkpoint(ends[head], lines[head], Set.of(), Set.of());
+                next++;
+                sinceSave++;
+                head = (int) (next % done.length);
+            }
+            if (sinceSave >= saveEvery) {
+                saveQuietly();
+            }
+            notifyAll();
+        }
+
+        synchronized void awaitDrained(long end) throws InterruptedException {
+            while (next < end) {
+                wait();
+            }
+        }
+
+        /**
+         * Saves the checkpoint with the rows past it that completed, and those in flight (in doubt).
+         */
+        synchronized void save() throws IOException {
+            Set<Long> completedPast = new LinkedHashSet<>();
+            Set<Long> inDoubtPast = new LinkedHashSet<>();
+            for (long position = next; position < reserved; position++) {
+                int slot = (int) (position % done.length);
+                (done[slot] && !doubtful[slot] ? completedPast : inDoubtPast).add(ends[slot]);
+            }
+            long read = reserved > next ? ends[(int) ((reserved - 1) % done.length)] : committed.offset();
+            start.completed().stream().filter(end -> end > read).forEach(completedPast::add);
+            start.inDoubt().stream().filter(end -> end > read).forEach(inDoubtPast::add);
+            new Checkpoint(committed.offset(), committed.line(), completedPast, inDoubtPast)
+                    .write(checkpointPath, source);
+            sinceSave = 0;
+        }
+
+        synchronized void saveQuietly() {
+            try {
+                save();
+            } catch (IOException e) {
+                System.err.println(Ansi.AUTO.text("⚠️ @|yellow Could not save checkpoint:|@ " + e.getMessage()));
+            }
+        }
+
+        synchronized long getCreated() {
+            return created;
+        }
+
+        synchronized long getExisting() {
+            return existing;
+        }
+
+        synchronized long getFailed() {
+            return failed;
+        }
+
+        synchronized long getInDoubt() {
+            return inDoubt;
+        }
+
+        synchronized int getCommittedLine() {
+            return committed.line();
+        }
+    }
+
+    /**
+     * Reads UTF-8 lines from a file channel, keeping the byte offset right after the last line read.
+     */
+    private static final class OffsetLineReader {
+        private final InputStream in;
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        private long offset;
+
+        OffsetLineReader(FileChannel channel, long offset) throws IOException {
+            channel.position(offset);
+            this.in = new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024);
+            this.offset = offset;
+        }
+
+        /**
+         * @return the next line without its terminator, or null at the end of the file
+         */
+        String readLine() throws IOException {
+            line.reset();
+            int b;
+            while ((b = in.read()) != -1) {
+                offset++;
+                if (b == '\n') {
+                    return decode();
+                }
+                line.write(b);
+            }
+            return line.size() > 0 ? decode() : null;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        private String decode() {
+            String text = line.toString(StandardCharsets.UTF_8);
+            return text.endsWith("\r") ? text.substring(0, text.length() - 1) : text;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package dev.pablo.api;
+
+import java.io.Console;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Working directory and environment of the process that asked for a command run.
+ *
+ * <p>A command run by the daemon on behalf of a client (see {@code ServeCommand}) has the client's
+ * directory and environment bound: relative paths, the .env file, $VICIDIAL_CLI_PASSPHRASE and the
+ * other variables are resolved as if the command ran in the client process. Without a binding, the
+ * JVM's own directory and environment are used.</p>
+ */
+public final class Invocation implements AutoCloseable {
+    /** The JVM's own directory and environment. */
+    private static final Invocation LOCAL = new Invocation(null, null);
+
+    private static final ThreadLocal<Invocation> current = RunContext.newCarried();
+
+    /** Working directory of the caller; null for the JVM's. */
+    private final Path directory;
+    /** Environment of the caller; null for the JVM's. */
+    private final Map<String, String> environment;
+    /** Clients of the caller's configuration, by profile name ("" without profile). */
+    final Map<String, VicidialClientSingleton> clients = new ConcurrentHashMap<>();
+
+    private Invocation(Path directory, Map<String, String> environment) {
+        this.directory = directory;
+        this.environment = environment;
+    }
+
+    /**
+     * Binds the directory and environment of a client to the current thread.
+     *
+     * @param directory   absolute working directory of the client
+     * @param environment environment variables of the client
+     * @return the invocation; close it when the run ends
+     */
+    public static Invocation bind(Path directory, Map<String, String> environment) {
+        Invocation invocation = new Invocation(directory, Map.copyOf(environment));
+        current.set(invocation);
+        return invocation;
+    }
+
+    /**
+     * @return the invocation of the run executing on this thread; the JVM's own when none is bound
+     */
+    public static Invocation current() {
+        Invocation invocation = current.get();
+        return invocation != null ? invocation : LOCAL;
+    }
+
+    /**
+     * @return the directory the .env file is read from
+     */
+    String getDirectory() {
+        return directory != null ? directory.toString() : ".";
+    }
+
+    /**
+     * Resolves a path given on the command line against the caller's working directory.
+     */
+    public Path resolve(String path) {
+        return directory != null ? directory.resolve(path) : Paths.get(path);
+    }
+
+    /**
+     * @return the value of an environment variable of the caller, or null when it is not set
+     */
+    public String getenv(String name) {
+        return environment != null ? environment.get(name) : System.getenv(name);
+    }
+
+    /**
+     * @return the terminal of the caller, or null when there is none (always for a forwarded command:
+     *         the daemon's terminal is not the caller's)
+     */
+    Console console() {
+        return directory != null ? null : System.console();
+    }
+
+    /**
+     * Unbinds the invocation from the current thread.
+     */
+    @Override
+    public void close() {
+        current.remove();
+    }
+}
@@ -0,0 +1,71 @@
+package dev.pablo.api;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import dev.pablo.models.JobJournal;
+import picocli.CommandLine.Help.Ansi;
+
+/**
+ * Opens and closes the {@link JobJournal} of the bulk commands' {@code --job-id} option.
+ *
+ * <p>Under {@code --targets} every cluster keeps its own journal ({@code <jobId>@<profile>}), since the
+ * same item is a different piece of work on each cluster.</p>
+ */
+final class Jobs {
+    private Jobs() {
+    }
+
+    /**
+     * Opens the journal of a job and tells whether the run starts or resumes it.
+     *
+     * @param jobId   value of --job-id; blank for a run without journal
+     * @param command name of the command
+     * @return the journal, or null when no job ID was given
+     * @throws IOException              when the journal cannot be opened
+     * @throws IllegalArgumentException when the job ID is invalid
+     */
+    static JobJournal open(String jobId, String command) throws IOException {
+        if (jobId == null || jobId.isBlank()) {
+            return null;
+        }
+        String name = ClientProfile.qualify(jobId.strip());
+
+        JobJournal journal = JobJournal.open(defaultDirectory(), name, command);
+        if (journal.getCompletedCount() > 0) {
+            System.out.println(Ansi.AUTO.text("↻ @|blue Resuming job " + name + ": " + journal.getCompletedCount()
+                    + " item(s) done by earlier runs are skipped.|@"));
+        } else {
+            System.out.println(Ansi.AUTO.text("@|faint Journaling job " + name + " to " + journal.getPath() + "|@"));
+        }
+        if (journal.getInDoubtCount() > 0) {
+            System.out.println(Ansi.AUTO.text("⚠️ @|yellow " + journal.getInDoubtCount() + " item(s) were in progress when"
+                    + " an earlier run of job " + name + " stopped.|@"));
+        }
+        return journal;
+    }
+
+    /**
+     * @return the job directory of the caller ($VICIDIAL_CLI_JOBS, resolved against its directory)
+     */
+    private static Path defaultDirectory() {
+        Invocation invocation = Invocation.current();
+        return invocation.resolve(JobJournal.defaultDirectory(invocation.getenv(JobJournal.DIRECTORY_ENV)).toString());
+    }
+
+    /**
+     * Closes a journal, reporting (instead of failing the command) when its last records could not be
+     * written.
+     */
+    static void close(JobJournal journal) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("⚠️ @|yellow " + e.getMessage()
+                    + " The next run of the job redoes the items it did not record.|@"));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.pablo.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets.
+ *
+ * <p>Each power of two (in microseconds) is split into {@value #SUB_BUCKETS} buckets, so a reported
+ * percentile is at most ~9% above the real value. The range covers 1 µs to roughly 2 minutes; larger
+ * values land in the last bucket. The maximum is tracked exactly.</p>
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKETS = SUB_BUCKETS * 27 + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency sample.
+     *
+     * @param nanos latency in nanoseconds
+     */
+    void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        counts.incrementAndGet(bucketOf(micros));
+        count.increment();
+        sumMicros.add(micros);
+        maxMicros.accumulate(micros);
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sumMicros.sum() / n;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile, in microseconds (capped at the max)
+     */
+    long percentileMicros(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros.get());
+            }
+        }
+        return maxMicros.get();
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < 1) {
+            return 0;
+        }
+        int index = (int) (Math.log(micros) / Math.log(2) * SUB_BUCKETS) + 1;
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket == 0) {
+            return 1;
+        }
+        return (long) Math.ceil(Math.pow(2, (double) bucket / SUB_BUCKETS));
+    }
+}
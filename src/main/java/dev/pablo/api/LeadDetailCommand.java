@@ -16,12 +16,14 @@ import dev.pablo.models.LeadModel;
 )
 public class LeadDetailCommand implements Callable<Integer> {
 
-    private final VicidialClientSingleton client;
     @Parameters(index="0",description="The lead ID (e.g., '1125')")
     private String leadId;
 
-    public LeadDetailCommand() {
-        this.client = VicidialClientSingleton.getInstance();
+    /**
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
+     */
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
     }
 
     @Override
@@ -29,7 +31,7 @@ public class LeadDetailCommand implements Callable<Integer> {
         System.out.println(Ansi.AUTO.text("@|yellow Searching lead details for ID: " + leadId + "...|@"));
 
         try {
-            String leadDetails = client.getLeadInfo(leadId);
+            String leadDetails = client().getLeadInfo(leadId);
             LeadModel lead = new LeadModel(leadDetails);
 
             System.out.println(Ansi.AUTO.text("\n@|green ✅ Associated Lists:|@"));
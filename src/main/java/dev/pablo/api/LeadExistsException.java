@@ -0,0 +1,14 @@
+package dev.pablo.api;
+
+import java.io.IOException;
+
+/**
+ * Raised when add_lead answers with an empty body, which Vicidial does when the lead already exists
+ * in the destination list.
+ */
+class LeadExistsException extends IOException {
+
+    LeadExistsException(String listId) {
+        super("Fail while creating new Lead (Already Exists in list " + listId + ").");
+    }
+}
@@ -0,0 +1,244 @@
+package dev.pablo.api;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Per-Vicidial-function request metrics: latency histogram, bytes received and error counts.
+ *
+ * <p>Every HTTP attempt sent by {@link VicidialClientSingleton} is recorded under the api.php function
+ * name (e.g. "lead_all_info") or the admin action (e.g. "ADD=6311"). Retries count as separate
+ * requests. Read-only calls answered from the response cache count as cache hits, and the ones that
+ * joined an identical request in flight as "shared"; neither sends a request. The registry is
+ * process-wide; in serve mode it accumulates since the daemon started.</p>
+ *
+ * <p>Snapshots can be rendered as a table, JSON or Prometheus text exposition format.</p>
+ */
+public final class RequestMetrics {
+    private static final RequestMetrics instance = new RequestMetrics();
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Metrics of a single function.
+     */
+    static final class Endpoint {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder httpErrors = new LongAdder();
+        final LongAdder vicidialErrors = new LongAdder();
+        /** Callers served by an identical request already in flight (no request sent). */
+        final LongAdder shared = new LongAdder();
+        /** Read-only calls answered from the response cache (no request sent). */
+        final LongAdder cacheHits = new LongAdder();
+        /** Cacheable read-only calls that were not in the response cache. */
+        final LongAdder cacheMisses = new LongAdder();
+    }
+
+    private RequestMetrics() {
+    }
+
+    /**
+     * @return the process-wide registry
+     */
+    public static RequestMetrics getInstance() {
+        return instance;
+    }
+
+    Endpoint endpoint(String label) {
+        return endpoints.computeIfAbsent(label, k -> new Endpoint());
+    }
+
+    /**
+     * @return true when no request has been recorded yet
+     */
+    public boolean isEmpty() {
+        return endpoints.isEmpty();
+    }
+
+    /**
+     * Renders the metrics in the requested format.
+     *
+     * @param format "table", "json" or "prometheus"
+     * @return rendered metrics
+     * @throws IllegalArgumentException for an unknown format
+     */
+    public String render(String format) {
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "table":
+                return toTable();
+            case "json":
+                return toJson();
+            case "prometheus":
+            case "prom":
+                return toPrometheus();
+            default:
+                throw new IllegalArgumentException("Unknown metrics format: " + format + " (table, json, prometheus)");
+        }
+    }
+
+    private Map<String, Endpoint> sorted() {
+        return new TreeMap<>(endpoints);
+    }
+
+    private String toTable() {
+        StringBuilder out = new StringBuilder();
+        String header = String.format(Locale.ROOT, "%-18s %8s %7s %7s %7s %7s %7s %9s %9s %9s %9s %12s%n",
+                "FUNCTION", "COUNT", "HITS", "MISSES", "SHARED", "ERRORS", "ERROR:", "P50 ms", "P90 ms", "P99 ms", "MAX ms", "BYTES");
+        out.append(header);
+        out.append("-".repeat(header.length() - 1)).append('\n');
+        for (Map.Entry<String, Endpoint> entry : sorted().entrySet()) {
+            Endpoint e = entry.getValue();
+            out.append(String.format(Locale.ROOT, "%-18s %8d %7d %7d %7d %7d %7d %9.1f %9.1f %9.1f %9.1f %12d%n",
+                    entry.getKey(), e.latency.getCount(), e.cacheHits.sum(), e.cacheMisses.sum(), e.shared.sum(), e.httpErrors.sum(), e.vicidialErrors.sum(),
+                    millis(e.latency.percentileMicros(50)), millis(e.latency.percentileMicros(90)),
+                    millis(e.latency.percentileMicros(99)), millis(e.latency.getMaxMicros()), e.bytes.sum()));
+        }
+        return out.toString();
+    }
+
+    private String toJson() {
+        StringBuilder out = new StringBuilder("{\"functions\":{");
+        boolean first = true;
+        for (Map.Entry<String, Endpoint> entry : sorted().entrySet()) {
+            Endpoint e = entry.getValue();
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append('"').append(jsonEscape(entry.getKey())).append("\":{")
+                    .append("\"count\":").append(e.latency.getCount())
+                    .append(",\"cache_hits\":").append(e.cacheHits.sum())
+                    .append(",\"cache_misses\":").append(e.cacheMisses.sum())
+                    .append(",\"shared\":").append(e.shared.sum())
+                    .append(",\"http_errors\":").append(e.httpErrors.sum())
+                    .append(",\"vicidial_errors\":").append(e.vicidialErrors.sum())
+                    .append(",\"bytes\":").append(e.bytes.sum())
+                    .append(String.format(Locale.ROOT,
+                            ",\"latency_ms\":{\"mean\":%.3f,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"max\":%.3f}",
+                            e.latency.getMeanMicros() / 1000.0, millis(e.latency.percentileMicros(50)),
+                            millis(e.latency.percentileMicros(90)), millis(e.latency.percentileMicros(99)),
+                            millis(e.latency.getMaxMicros())))
+                    .append('}');
+        }
+        return out.append("}}\n").toString();
+    }
+
+    private String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        Map<String, Endpoint> snapshot = sorted();
+
+        out.append("# HELP vicidial_request_duration_seconds Vicidial request latency.\n");
+        out.append("# TYPE vicidial_request_duration_seconds summary\n");
+        for (Map.Entry<String, Endpoint> entry : snapshot.entrySet()) {
+            LatencyHistogram h = entry.getValue().latency;
+            String fn = promLabel(entry.getKey());
+            for (double q : new double[] { 0.5, 0.9, 0.99 }) {
+                out.append(String.format(Locale.ROOT,
+                        "vicidial_request_duration_seconds{function=\"%s\",quantile=\"%s\"} %.6f%n",
+                        fn, q, h.percentileMicros(q * 100) / 1_000_000.0));
+            }
+            out.append(String.format(Locale.ROOT, "vicidial_request_duration_seconds_sum{function=\"%s\"} %.6f%n",
+                    fn, h.getMeanMicros() * h.getCount() / 1_000_000.0));
+            out.append(String.format(Locale.ROOT, "vicidial_request_duration_seconds_count{function=\"%s\"} %d%n",
+                    fn, h.getCount()));
+        }
+
+        counter(out, snapshot, "vicidial_request_max_seconds", "gauge", "Slowest Vicidial request.",
+                e -> String.format(Locale.ROOT, "%.6f", e.latency.getMaxMicros() / 1_000_000.0));
+        counter(out, snapshot, "vicidial_response_bytes_total", "counter", "Response bytes received.",
+                e -> Long.toString(e.bytes.sum()));
+        counter(out, snapshot, "vicidial_http_errors_total", "counter",
+                "Requests failed by timeout, network error or non-200 status.",
+                e -> Long.toString(e.httpErrors.sum()));
+        counter(out, snapshot, "vicidial_api_errors_total", "counter", "Responses reporting ERROR:.",
+                e -> Long.toString(e.vicidialErrors.sum()));
+        counter(out, snapshot, "vicidial_shared_requests_total", "counter",
+                "Read-only calls served by an identical request already in flight.",
+                e -> Long.toString(e.shared.sum()));
+        counter(out, snapshot, "vicidial_cache_hits_total", "counter",
+                "Read-only calls answered from the response cache.",
+                e -> Long.toString(e.cacheHits.sum()));
+        counter(out, snapshot, "vicidial_cache_misses_total", "counter",
+                "Cacheable read-only calls not found in the response cache.",
+                e -> Long.toString(e.cacheMisses.sum()));
+        return out.toString();
+    }
+
+    private static void counter(StringBuilder out, Map<String, Endpoint> snapshot, String name, String type,
+            String help, Function<Endpoint, String> value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (Map.Entry<String, Endpoint> entry : snapshot.entrySet()) {
+            out.append(name).append("{function=\"").append(promLabel(entry.getKey())).append("\"} ")
+                    .append(value.apply(entry.getValue())).append('\n');
+        }
+    }
+
+    /**
+     * Wraps a body handler so the raw bytes received are added to the given counter, whatever the body
+     * type (String or streamed).
+     */
+    static <T> HttpResponse.BodyHandler<T> countingBytes(HttpResponse.BodyHandler<T> handler, LongAdder bytes) {
+        return info -> new CountingSubscriber<>(handler.apply(info), bytes);
+    }
+
+    private static final class CountingSubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> delegate;
+        private final LongAdder bytes;
+
+        CountingSubscriber(HttpResponse.BodySubscriber<T> delegate, LongAdder bytes) {
+            this.delegate = delegate;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            delegate.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> items) {
+            for (ByteBuffer item : items) {
+                bytes.add(item.remaining());
+            }
+            delegate.onNext(items);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            delegate.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            delegate.onComplete();
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static String jsonEscape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String promLabel(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,123 @@
+package dev.pablo.api;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded in-memory cache of read-only responses.
+ *
+ * <p>Each cached function has its own time to live; functions without one are never cached. Entries
+ * are kept in access order and the least recently used ones are evicted once the estimated size of
+ * the cached keys and bodies exceeds the byte budget. Writes invalidate what they change, either a
+ * single key or every entry of a function.</p>
+ *
+ * <p>A response is only stored if no invalidation happened since its request started, so a read that
+ * raced with a write cannot put the old data back.</p>
+ */
+final class ResponseCache {
+    // Rough per-entry overhead (map node, record, String headers), in bytes.
+    private static final long ENTRY_OVERHEAD = 96;
+
+    private record Entry(String label, String body, long expiresAtNanos, long size) {
+    }
+
+    private final long maxBytes;
+    private final Map<String, Long> ttlMillis;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long generation;
+
+    /**
+     * @param maxBytes  byte budget for the cached keys and bodies (0 disables the cache)
+     * @param ttlMillis time to live per function label; labels missing or at 0 are not cached
+     */
+    ResponseCache(long maxBytes, Map<String, Long> ttlMillis) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = Map.copyOf(ttlMillis);
+    }
+
+    /**
+     * @return whether responses of the function may be cached
+     */
+    boolean isCacheable(String label) {
+        return maxBytes > 0 && ttlMillis.getOrDefault(label, 0L) > 0;
+    }
+
+    /**
+     * @return the cached body, or null when missing or expired
+     */
+    synchronized String get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+            remove(key);
+            return null;
+        }
+        return entry.body();
+    }
+
+    /**
+     * @return a token to pass to {@link #put} for a request starting now
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores a response, unless an invalidation happened since {@code startedAt} was taken or the body
+     * alone exceeds a quarter of the budget.
+     */
+    synchronized void put(String key, String label, String body, long startedAt) {
+        if (startedAt != generation || !isCacheable(label)) {
+            return;
+        }
+        long size = ENTRY_OVERHEAD + 2L * (key.length() + body.length());
+        if (size > maxBytes / 4) {
+            return;
+        }
+
+        remove(key);
+        long ttlNanos = ttlMillis.get(label) * 1_000_000L;
+        entries.put(key, new Entry(label, body, System.nanoTime() + ttlNanos, size));
+        bytes += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().size();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops a single entry.
+     */
+    synchronized void invalidate(String key) {
+        generation++;
+        remove(key);
+    }
+
+    /**
+     * Drops every entry of a function.
+     */
+    synchronized void invalidateFunction(String label) {
+        generation++;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.label().equals(label)) {
+                bytes -= entry.size();
+                it.remove();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            bytes -= removed.size();
+        }
+    }
+}
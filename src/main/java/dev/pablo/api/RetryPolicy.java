@@ -0,0 +1,77 @@
+package dev.pablo.api;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retry policy for idempotent Vicidial calls: exponential backoff with full jitter, bounded by a
+ * maximum number of attempts and an overall time budget.
+ *
+ * <p>The delay before retry {@code n} (1-based) is a random value in
+ * {@code [0, min(maxDelay, baseDelay * 2^(n-1))]}. A retry is only scheduled if it can start
+ * before the time budget runs out. Only failures for which {@link CircuitBreaker#isFailure}
+ * holds (timeouts, network errors, 5xx/408/429) are retried.</p>
+ */
+class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long budgetMillis;
+
+    /**
+     * @param maxAttempts     total attempts, including the first one
+     * @param baseDelayMillis backoff before the first retry (upper bound of its jitter)
+     * @param maxDelayMillis  cap of a single backoff
+     * @param budgetMillis    overall time budget for all attempts
+     */
+    RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, long budgetMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /**
+     * Runs the call, retrying retryable failures. Retries (and their verbose output) run with the
+     * {@link RunContext} of the caller, although they are started from client and timer threads.
+     *
+     * @param label name of the call, used in verbose output
+     * @param call  supplier of one attempt
+     * @return a future completed with the first successful attempt, or the last failure
+     */
+    <T> CompletableFuture<T> execute(String label, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(label, call, 1, System.currentTimeMillis() + budgetMillis, result, RunContext.capture());
+        return result;
+    }
+
+    private <T> void attempt(String label, Supplier<CompletableFuture<T>> call, int attempt, long deadline,
+            CompletableFuture<T> result, RunContext context) {
+        if (result.isDone()) {
+            return;
+        }
+        call.get().whenComplete(context.wrap((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            long delay = backoff(attempt);
+            if (attempt >= maxAttempts || !CircuitBreaker.isFailure(error)
+                    || System.currentTimeMillis() + delay > deadline) {
+                result.completeExceptionally(CircuitBreaker.unwrap(error));
+                return;
+            }
+            VicidialClientSingleton.debug("↻ Retrying " + label + " (attempt " + (attempt + 1) + "/" + maxAttempts
+                    + ") in " + delay + " ms: " + CircuitBreaker.unwrap(error));
+            CompletableFuture.runAsync(context.wrap(() -> attempt(label, call, attempt + 1, deadline, result, context)),
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+        }));
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,134 @@
+package dev.pablo.api;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.BiConsumer;
+
+/**
+ * Snapshot of the state a command run binds to its thread ({@link Deadline}, {@link ClientProfile},
+ * {@link ClientOptions}, {@link Invocation}, output routes), to carry it to the threads working for the
+ * run.
+ *
+ * <p>That state lives in plain thread locals: threads never inherit it, since pooled threads outlive
+ * the run that created them (the HttpClient executor, worker pools of the daemon) and would keep
+ * serving later runs with stale state. A command captures the context on its own thread and wraps the
+ * tasks, thread factories and callbacks it hands to other threads; the wrapped code runs with the
+ * captured state, and the thread gets its own state back afterwards.</p>
+ */
+public final class RunContext {
+    /** Every thread local carried by a context, registered by the classes that own them. */
+    private static final List<ThreadLocal<Object>> carried = new CopyOnWriteArrayList<>();
+
+    private final List<ThreadLocal<Object>> locals;
+    private final Object[] values;
+
+    private RunContext(List<ThreadLocal<Object>> locals, Object[] values) {
+        this.locals = locals;
+        this.values = values;
+    }
+
+    /**
+     * Creates a thread local whose value is part of every {@link RunContext} captured from now on.
+     *
+     * @return a new, unbound thread local
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ThreadLocal<T> newCarried() {
+        ThreadLocal<T> local = new ThreadLocal<>();
+        carried.add((ThreadLocal<Object>) (ThreadLocal<?>) local);
+        return local;
+    }
+
+    /**
+     * @return the state bound to the current thread
+     */
+    public static RunContext capture() {
+        List<ThreadLocal<Object>> locals = List.copyOf(carried);
+        Object[] values = new Object[locals.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = locals.get(i).get();
+        }
+        return new RunContext(locals, values);
+    }
+
+    /**
+     * Binds the captured state to the current thread.
+     *
+     * @return the state the thread had before, to pass to {@link #restore(Object[])}
+     */
+    private Object[] apply() {
+        Object[] previous = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ThreadLocal<Object> local = locals.get(i);
+            previous[i] = local.get();
+            set(local, values[i]);
+        }
+        return previous;
+    }
+
+    private void restore(Object[] previous) {
+        for (int i = 0; i < previous.length; i++) {
+            set(locals.get(i), previous[i]);
+        }
+    }
+
+    private static void set(ThreadLocal<Object> local, Object value) {
+        if (value == null) {
+            local.remove();
+        } else {
+            local.set(value);
+        }
+    }
+
+    /**
+     * @return the task, run with the captured state
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            Object[] previous = apply();
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the task, run with the captured state
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        return () -> {
+            Object[] previous = apply();
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @return the callback (e.g. of {@code CompletableFuture.whenComplete}), run with the captured state
+     *         on whichever thread completes the future
+     */
+    public <T, U> BiConsumer<T, U> wrap(BiConsumer<T, U> callback) {
+        return (value, error) -> {
+            Object[] previous = apply();
+            try {
+                callback.accept(value, error);
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * @return a factory whose threads run their task with the captured state
+     */
+    public ThreadFactory threads(ThreadFactory factory) {
+        return task -> factory.newThread(wrap(task));
+    }
+}
@@ -0,0 +1,53 @@
+package dev.pablo.api;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical read-only requests that are in flight at the same time.
+ *
+ * <p>The first caller for a key starts the call; callers arriving before it completes get the same
+ * result instead of sending their own request. Each caller receives its own copy of the shared
+ * future, so cancelling it (e.g. on interruption) does not fail the other callers. The key is
+ * forgotten as soon as the call completes: later callers start a new request.</p>
+ */
+final class SingleFlight {
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call, or joins the identical one already in flight.
+     *
+     * @param key       logical request (function and parameters, without credentials)
+     * @param call      starts the request
+     * @param onJoined  run when the caller joins a request already in flight
+     * @return a future completed with the shared result
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call, Runnable onJoined) {
+        CompletableFuture<Object> created = new CompletableFuture<>();
+        CompletableFuture<Object> shared = inFlight.putIfAbsent(key, created);
+        if (shared != null) {
+            onJoined.run();
+            return (CompletableFuture<T>) shared.copy();
+        }
+
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, error) -> {
+            // Forget the key first so nobody joins a call that has already completed.
+            inFlight.remove(key, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(value);
+            }
+        });
+        return (CompletableFuture<T>) created.copy();
+    }
+}
@@ -1,9 +1,31 @@
 package dev.pablo.api;
 
+import java.io.BufferedReader;
+import java.io.Console;
 import java.io.IOException;
 import java.lang.InterruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import dev.pablo.models.CredentialVault;
+import dev.pablo.models.CsvParser;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
@@ -16,9 +38,22 @@ import picocli.CommandLine.Help.Ansi;
  * is provided, updates the associated phone password as well using the shared
  * {@link VicidialClientSingleton} instance.</p>
  *
+ * <p>Rotation mode ({@code --file}) changes the passwords of many agents: it reads {@code ID[,password]}
+ * rows from a CSV file (rows without a password get a random one with {@code --generate}) and, on
+ * virtual threads with at most {@code --concurrency} agents in flight, updates each agent's user and
+ * phone at the same time. Each new password is appended to an encrypted {@link CredentialVault}
+ * ({@code --output}, default {@code <file>.vault}) as pending before its updates are sent, and again
+ * with their outcome once they complete. The vault doubles as the checkpoint: a re-run skips the
+ * agents whose latest entry is fully rotated and rotates the others again, including those left
+ * pending by an interrupted run ({@code --restart} rotates every agent). {@code --decrypt} prints a vault as CSV.
+ * Under --targets every cluster has its own vault ({@code <file>@<profile>.vault}), and a vault is locked
+ * while it is being written. The vault passphrase is read from $VICIDIAL_CLI_PASSPHRASE, or asked on the terminal.</p>
+ *
  * <p>Usage:
  * <pre>
  *   updateCred &lt;ID&gt; [-n|--name &lt;displayName&gt;] [-p|--password &lt;newPassword&gt;]
+ *   updateCred --file &lt;agents.csv&gt; [--generate] [--concurrency &lt;N&gt;] [-o &lt;vault&gt;]
+ *   updateCred --decrypt &lt;vault&gt;
  *   Example: updateCred agent001 -n "Jhon Doe" -p S3cr3t
  * </pre>
  * </p>
@@ -26,7 +61,8 @@ import picocli.CommandLine.Help.Ansi;
  * <p>Exit codes:
  * <ul>
  *   <li>0 — Credentials successfully updated.</li>
- *   <li>1 — Validation error (no update fields provided), API/network error, or interruption.</li>
+ *   <li>1 — Validation error (no update fields provided), API/network error, or interruption (in
+ *   rotation mode: at least one agent was not fully rotated).</li>
  * </ul>
  * </p>
  *
@@ -37,17 +73,17 @@ import picocli.CommandLine.Help.Ansi;
     description={
         "Updates credentials for a User and a Phone at the same time.",
         "Usage: vicidial-cli updateCred <ID> [-n|--name <displayName>] [-p|--password <newPassword>]",
-        "Example: vicidial-cli updateCred agent001 -n \"Jhon Doe\" -p S3cr3t"
+        "       vicidial-cli updateCred --file <agents.csv> [--generate] [--concurrency <N>] [-o <vault>]",
+        "       vicidial-cli updateCred --decrypt <vault>",
+        "Example: vicidial-cli updateCred agent001 -n \"Jhon Doe\" -p S3cr3t",
+        "Example: VICIDIAL_CLI_PASSPHRASE=... vicidial-cli updateCred --file agents.csv --generate --concurrency 32"
     },
     mixinStandardHelpOptions=true
 )
 public class UpdateCredCommand implements Callable<Integer> {
 
-    /** Vicidial API client singleton used to communicate with the Vicidial server. */
-    private VicidialClientSingleton client;
-
     /** Credential identifier (user and phone name). */
-    @Parameters(index = "0", description = "Credential identifier.")
+    @Parameters(index = "0", arity = "0..1", description = "Credential identifier.")
     private String ID;
 
     /** New display name for the user (optional). */
@@ -58,11 +94,67 @@ public class UpdateCredCommand implements Callable<Integer> {
     @Option(names = {"-p", "--password"}, description = "New password for the User and the Phone.", defaultValue="")
     private String password;
 
+    /** CSV file with ID[,password] rows used by rotation mode. */
+    @Option(names = {"-f", "--file"}, description = "CSV file with ID[,password] rows (rotation mode).", defaultValue="")
+    private String file;
+
+    /** Generates a password for the rows of the file that have none. */
+    @Option(names = {"--generate"}, description = "Generate a random password for rows without one.")
+    private boolean generate;
+
+    /** Length of the generated passwords. */
+    @Option(names = {"--password-length"}, description = "Length of generated passwords, 8 to 64 (default: ${DEFAULT-VALUE}).", defaultValue="16")
+    private int passwordLength;
+
+    /** Maximum number of agents being rotated at the same time. */
+    @Option(names = {"--concurrency"}, description = "Maximum agents in flight in rotation mode, each with its user and phone update (default: ${DEFAULT-VALUE}).", defaultValue="16")
+    private int concurrency;
+
+    /** Encrypted result file of rotation mode. */
+    @Option(names = {"-o", "--output"}, description = "Encrypted file receiving the new credentials; also the checkpoint of a re-run (default: <file>.vault).", defaultValue="")
+    private String output;
+
+    /** Rotates the agents already rotated in the vault again. */
+    @Option(names = {"--restart"}, description = "Rotate every agent of the file, even those the vault lists as rotated.")
+    private boolean restart;
+
+    /** Vault to print as CSV. */
+    @Option(names = {"--decrypt"}, paramLabel = "VAULT", description = "Print the latest credential of each agent stored in a vault as CSV, then exit.")
+    private String decrypt;
+
+    /** Environment variable holding the vault passphrase. */
+    public static final String PASSPHRASE_ENV = "VICIDIAL_CLI_PASSPHRASE";
+
+    /** Characters of generated passwords: letters and digits, without look-alikes (0/O, 1/l/I). */
+    private static final String PASSWORD_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz23456789";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Outcome of one agent in rotation mode. */
+    enum Status {
+        ROTATED,
+        SKIPPED,
+        USER_FAILED,
+        PHONE_FAILED,
+        FAILED,
+        INVALID,
+        ABANDONED,
+        NOT_SAVED
+    }
+
+    /** One agent read from the rotation file. */
+    private record RotationRow(int line, String id, String password) {
+    }
+
+    /** Result reported for one agent. */
+    private record RotationResult(RotationRow row, Status status, String message) {
+    }
+
     /**
-     * Constructs the command and obtains the shared Vicidial client instance.
+     * Returns the shared Vicidial client, created (configuration loaded) on the first request.
      */
-    public UpdateCredCommand() {
-        this.client = VicidialClientSingleton.getInstance();
+    private VicidialClientSingleton client() {
+        return VicidialClientSingleton.getInstance();
     }
 
     /**
@@ -95,6 +187,17 @@ public class UpdateCredCommand implements Callable<Integer> {
      */
     @Override
     public Integer call() throws Exception {
+        if (decrypt != null) {
+            return printVault();
+        }
+        if (!file.isEmpty()) {
+            return rotateFromFile();
+        }
+        if (ID == null) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Missing the credential ID (or --file for rotation mode).|@"));
+            return 1;
+        }
+
         System.out.println(Ansi.AUTO.text("⏱️  @|yellow Updating Credentials for: " + ID + "...|@"));
         
         if(password.isEmpty() && name.isEmpty()){
@@ -104,13 +207,13 @@ public class UpdateCredCommand implements Callable<Integer> {
         
         try{
             System.out.println(Ansi.AUTO.text("@|blue Updating User ...|@"));
-            client.updateUser(ID, name, password);
+            client().updateUser(ID, name, password);
 
             System.err.println(Ansi.AUTO.text("☑️ @|blue Name and password has been updated.|@"));
             
             if(!password.isEmpty()){
                 System.out.println(Ansi.AUTO.text("@|blue Updating Phone ...|@"));
-                client.updatePhone(ID, password);
+                client().updatePhone(ID, password);
                 System.err.println(Ansi.AUTO.text("☑️ @|blue Phone's password has been updated.|@"));
             }
             System.out.println(Ansi.AUTO.text("✅ @|green The credentials have been successfully updated.|@"));
@@ -127,4 +230,384 @@ public class UpdateCredCommand implements Callable<Integer> {
         return 0;
     }
 
+    /**
+     * Rotation mode: rotates every agent of {@link #file} not yet rotated in the vault, with at most
+     * {@link #concurrency} agents in flight, then prints a per-agent report.
+     *
+     * @return 0 when every agent is rotated (now or by an earlier run), 1 otherwise
+     */
+    private Integer rotateFromFile() {
+        List<RotationRow> rows;
+        try {
+            rows = readRows(file);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ " + e.getMessage()));
+            return 1;
+        }
+        if (generate && (passwordLength < 8 || passwordLength > 64)) {
+            System.err.println(Ansi.AUTO.text("❌ @|red --password-length must be between 8 and 64.|@"));
+            return 1;
+        }
+
+        // One vault per cluster under --targets: the vault is also the checkpoint of its cluster.
+        Path vaultPath = ClientProfile.qualify(Invocation.current().resolve(output.isEmpty() ? file + ".vault" : output));
+        char[] passphrase = readPassphrase(!Files.exists(vaultPath));
+        if (passphrase == null) {
+            return 1;
+        }
+
+        try (CredentialVault vault = CredentialVault.open(vaultPath, passphrase)) {
+            Map<String, CredentialVault.Entry> latest = latestEntries(vault);
+            Set<String> rotated = new HashSet<>();
+            int pending = 0;
+            for (CredentialVault.Entry entry : latest.values()) {
+                if (entry.isComplete() && !restart) {
+                    rotated.add(entry.id());
+                }
+                if (entry.pending()) {
+                    pending++;
+                }
+            }
+            if (pending > 0) {
+                System.out.println(Ansi.AUTO.text("⚠️ @|yellow " + pending + " agent(s) were being rotated when an earlier"
+                        + " run stopped; their pending password may be in effect. They are rotated again.|@"));
+            }
+
+            int limit = Math.max(1, concurrency);
+            System.out.println(Ansi.AUTO.text("⏳ @|yellow Rotating " + rows.size() + " credentials (concurrency "
+                    + limit + ", " + rotated.size() + " already rotated in " + vaultPath + ") ...|@ "));
+            return printReport(rotateRows(rows, rotated, vault, limit), vaultPath);
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Vault error:|@ " + e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            System.out.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        } finally {
+            Arrays.fill(passphrase, '\0');
+        }
+    }
+
+    /**
+     * Rotates the rows on virtual threads, skipping the IDs already rotated.
+     *
+     * @return results in file order
+     */
+    private List<RotationResult> rotateRows(List<RotationRow> rows, Set<String> rotated, CredentialVault vault,
+            int limit) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(limit);
+        // Once the vault could not be written, no other agent is rotated.
+        AtomicBoolean vaultBroken = new AtomicBoolean();
+        List<Future<RotationResult>> futures = new ArrayList<>(rows.size());
+        List<RotationResult> results = new ArrayList<>(rows.size());
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(RunContext.capture().threads(Thread.ofVirtual().factory()))) {
+            for (RotationRow row : rows) {
+                if (rotated.contains(row.id())) {
+                    futures.add(CompletableFuture.completedFuture(new RotationResult(row, Status.SKIPPED, "")));
+                    continue;
+                }
+                futures.add(executor.submit(() -> {
+                    inFlight.acquire();
+                    try {
+                        if (vaultBroken.get()) {
+                            return new RotationResult(row, Status.ABANDONED, "not rotated: the vault could not be written");
+                        }
+                        return rotateRow(row, vault, vaultBroken);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    // Only the type: the message of an unexpected error may carry a password or a URL.
+                    results.add(new RotationResult(rows.get(i), Status.FAILED,
+                            "unexpected error (" + e.getCause().getClass().getSimpleName() + ")"));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Saves the new password of one agent as pending, updates its user and phone at the same time, then
+     * saves their outcome.
+     *
+     * @param vaultBroken set when the vault could not be written
+     */
+    private RotationResult rotateRow(RotationRow row, CredentialVault vault, AtomicBoolean vaultBroken)
+            throws InterruptedException {
+        if (row.id().isEmpty()) {
+            return new RotationResult(row, Status.INVALID, "ID is required");
+        }
+        String newPassword = row.password();
+        if (newPassword.isEmpty()) {
+            if (!generate) {
+                return new RotationResult(row, Status.INVALID, "no password (use --generate to create one)");
+            }
+            newPassword = generatePassword(passwordLength);
+        }
+        if (!VicidialClientSingleton.isValidPassword(newPassword)) {
+            return new RotationResult(row, Status.INVALID, "password may only contain letters, digits, '-' and '_'");
+        }
+
+        // Saved before anything is sent: a crash while the updates are in flight cannot lose a password
+        // the user or the phone may already have.
+        try {
+            vault.append(CredentialVault.Entry.pending(row.id(), newPassword, Instant.now()));
+        } catch (IOException e) {
+            vaultBroken.set(true);
+            return new RotationResult(row, Status.ABANDONED, "not rotated: the vault could not be written (" + describe(e) + ")");
+        }
+
+        CompletableFuture<Void> user = client().updateUserAsync(row.id(), "", newPassword);
+        CompletableFuture<Void> phone = client().updatePhoneAsync(row.id(), newPassword);
+        Throwable userError = failure(user);
+        Throwable phoneError = failure(phone);
+
+        try {
+            vault.append(new CredentialVault.Entry(row.id(), newPassword, userError == null, phoneError == null,
+                    Instant.now(), false));
+        } catch (IOException e) {
+            vaultBroken.set(true);
+            if (userError == null || phoneError == null) {
+                return new RotationResult(row, Status.NOT_SAVED, describe(e) + " (the vault lists the password as pending)");
+            }
+        }
+
+        if (userError != null && phoneError != null) {
+            if (Deadline.isAbandoned(userError) && Deadline.isAbandoned(phoneError)) {
+                return new RotationResult(row, Status.ABANDONED, describe(userError));
+            }
+            return new RotationResult(row, Status.FAILED, "user: " + describe(userError) + "; phone: " + describe(phoneError));
+        }
+        if (userError != null) {
+            return new RotationResult(row, Status.USER_FAILED, describe(userError));
+        }
+        if (phoneError != null) {
+            return new RotationResult(row, Status.PHONE_FAILED, describe(phoneError));
+        }
+        return new RotationResult(row, Status.ROTATED, "");
+    }
+
+    /**
+     * @return the error the request failed with, or null when it succeeded
+     */
+    private static Throwable failure(CompletableFuture<Void> request) throws InterruptedException {
+        try {
+            request.get();
+            return null;
+        } catch (ExecutionException e) {
+            return CircuitBreaker.unwrap(e);
+        } catch (InterruptedException e) {
+            request.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Prints one line per agent (in file order) followed by totals. Passwords are never printed.
+     *
+     * @return 0 when every agent is rotated, 1 otherwise
+     */
+    private Integer printReport(List<RotationResult> results, Path vaultPath) {
+        Map<Status, Integer> counts = new LinkedHashMap<>();
+        for (Status status : Status.values()) {
+            counts.put(status, 0);
+        }
+
+        System.out.println("---------------------------------------------------------");
+        for (RotationResult result : results) {
+            counts.merge(result.status(), 1, Integer::sum);
+            String line = result.row() == null ? "" : "line " + result.row().line() + " " + result.row().id();
+            switch (result.status()) {
+                case ROTATED:
+                    System.out.println(Ansi.AUTO.text("✅ @|green " + line + " rotated.|@"));
+                    break;
+                case SKIPPED:
+                    System.out.println(Ansi.AUTO.text("@|faint " + line + " already rotated, skipped.|@"));
+                    break;
+                case USER_FAILED:
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " user failed (phone rotated):|@ " + result.message()));
+                    break;
+                case PHONE_FAILED:
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " phone failed (user rotated):|@ " + result.message()));
+                    break;
+                case FAILED:
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " failed:|@ " + result.message()));
+                    break;
+                case INVALID:
+                    System.out.println(Ansi.AUTO.text("❌ @|red " + line + " invalid row:|@ " + result.message()));
+                    break;
+                case ABANDONED:
+                    System.out.println(Ansi.AUTO.text("⏱ @|yellow " + line + " abandoned:|@ " + result.message()));
+                    break;
+                case NOT_SAVED:
+                    System.out.println(Ansi.AUTO.text("🚨 @|red,bold " + line + " rotated but NOT saved to the vault:|@ "
+                            + result.message()));
+                    break;
+            }
+        }
+        System.out.println("---------------------------------------------------------");
+
+        System.out.println(Ansi.AUTO.text("@|blue Rotated: " + counts.get(Status.ROTATED)
+                + " | Skipped: " + counts.get(Status.SKIPPED)
+                + " | Partial: " + (counts.get(Status.USER_FAILED) + counts.get(Status.PHONE_FAILED))
+                + " | Failed: " + counts.get(Status.FAILED) + " | Invalid: " + counts.get(Status.INVALID)
+                + " | Abandoned: " + counts.get(Status.ABANDONED) + " | Not saved: " + counts.get(Status.NOT_SAVED) + "|@"));
+        System.out.println(Ansi.AUTO.text("@|blue New credentials saved to " + vaultPath
+                + " (read them with --decrypt). Re-run to retry the agents not rotated.|@"));
+
+        int done = counts.get(Status.ROTATED) + counts.get(Status.SKIPPED);
+        return done == results.size() ? 0 : 1;
+    }
+
+    /**
+     * Prints the latest credential of each agent in a vault as CSV.
+     *
+     * @return 0 on success, 1 when the vault cannot be read
+     */
+    private Integer printVault() {
+        Path vaultPath = ClientProfile.qualify(Invocation.current().resolve(decrypt));
+        if (!Files.isRegularFile(vaultPath)) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Invalid path:|@ " + vaultPath.toAbsolutePath()));
+            return 1;
+        }
+        char[] passphrase = readPassphrase(false);
+        if (passphrase == null) {
+            return 1;
+        }
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(vaultPath, passphrase)) {
+            System.out.println(CsvParser.formatLine("ID", "password", "user", "phone", "rotatedAt", "pending"));
+            for (CredentialVault.Entry entry : latestEntries(vault).values()) {
+                System.out.println(CsvParser.formatLine(entry.id(), entry.password(), String.valueOf(entry.userUpdated()),
+                        String.valueOf(entry.phoneUpdated()), entry.rotatedAt().toString(), String.valueOf(entry.pending())));
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Vault error:|@ " + e.getMessage()));
+            return 1;
+        } finally {
+            Arrays.fill(passphrase, '\0');
+        }
+    }
+
+    /**
+     * @return the last entry of each agent in a vault, by ID in order of first appearance
+     */
+    private static Map<String, CredentialVault.Entry> latestEntries(CredentialVault vault) {
+        Map<String, CredentialVault.Entry> latest = new LinkedHashMap<>();
+        for (CredentialVault.Entry entry : vault.getEntries()) {
+            latest.put(entry.id(), entry);
+        }
+        return latest;
+    }
+
+    /**
+     * Reads the vault passphrase from $VICIDIAL_CLI_PASSPHRASE, or from the terminal (twice for a new
+     * vault). Both are the caller's (see {@link Invocation}): the daemon never prompts on its own
+     * terminal.
+     *
+     * @return the passphrase, or null (after printing why) when none could be read
+     */
+    private static char[] readPassphrase(boolean newVault) {
+        Invocation invocation = Invocation.current();
+        String env = invocation.getenv(PASSPHRASE_ENV);
+        if (env != null && !env.isEmpty()) {
+            return env.toCharArray();
+        }
+        Console console = invocation.console();
+        if (console == null) {
+            System.err.println(Ansi.AUTO.text("❌ @|red No vault passphrase: set " + PASSPHRASE_ENV + " or run from a terminal.|@"));
+            return null;
+        }
+        char[] passphrase = console.readPassword("Vault passphrase: ");
+        if (passphrase == null || passphrase.length == 0) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The vault passphrase cannot be empty.|@"));
+            return null;
+        }
+        if (newVault) {
+            char[] again = console.readPassword("Repeat the passphrase: ");
+            boolean same = Arrays.equals(passphrase, again);
+            if (again != null) {
+                Arrays.fill(again, '\0');
+            }
+            if (!same) {
+                Arrays.fill(passphrase, '\0');
+                System.err.println(Ansi.AUTO.text("❌ @|red The passphrases do not match.|@"));
+                return null;
+            }
+        }
+        return passphrase;
+    }
+
+    /**
+     * @return a random password with at least one upper-case letter, one lower-case letter and one digit
+     */
+    static String generatePassword(int length) {
+        char[] chars = new char[length];
+        while (true) {
+            boolean upper = false;
+            boolean lower = false;
+            boolean digit = false;
+            for (int i = 0; i < length; i++) {
+                char c = PASSWORD_ALPHABET.charAt(RANDOM.nextInt(PASSWORD_ALPHABET.length()));
+                chars[i] = c;
+                upper |= Character.isUpperCase(c);
+                lower |= Character.isLowerCase(c);
+                digit |= Character.isDigit(c);
+            }
+            if (upper && lower && digit) {
+                return new String(chars);
+            }
+        }
+    }
+
+    /**
+     * Reads ID[,password] rows from a CSV file. Blank lines, lines starting with '#' and a leading header
+     * row (first column "ID") are skipped.
+     *
+     * @param listPath CSV file path
+     * @return rows in file order
+     * @throws IOException              when file access fails
+     * @throws IllegalArgumentException when path is invalid
+     */
+    private List<RotationRow> readRows(String listPath) throws IOException {
+        Path path = Invocation.current().resolve(listPath);
+        if (!Files.exists(path) || !Files.isRegularFile(path)) {
+            throw new IllegalArgumentException("Invalid path: " + path.toAbsolutePath());
+        }
+
+        List<RotationRow> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                List<String> cells = CsvParser.parseLine(line);
+                if (rows.isEmpty() && cells.get(0).equalsIgnoreCase("id")) {
+                    continue;
+                }
+                rows.add(new RotationRow(lineNumber, cell(cells, 0).strip(), cell(cells, 1)));
+            }
+        }
+        return rows;
+    }
+
+    private static String describe(Throwable e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    private static String cell(List<String> cells, int index) {
+        return index < cells.size() ? cells.get(index) : "";
+    }
 }
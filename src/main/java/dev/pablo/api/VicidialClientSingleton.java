@@ -1,17 +1,31 @@
 package dev.pablo.api;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import dev.pablo.models.LeadModel;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.github.cdimascio.dotenv.DotenvEntriesFilter;
+import io.github.cdimascio.dotenv.DotenvEntry;
 import picocli.CommandLine.Help.Ansi;
 
 /**
@@ -38,8 +52,22 @@ import picocli.CommandLine.Help.Ansi;
  */
 public class VicidialClientSingleton {
 
-    public static VicidialClientSingleton instance = null;
+    /** Clients created so far, by configuration (see {@link #getInstance()}). */
+    private static final Map<Settings, VicidialClientSingleton> clients = new ConcurrentHashMap<>();
+    /** Configuration keys read from the profile, .env or the environment. */
+    private static final List<String> SETTING_NAMES = List.of("BASE_URL", "API_USER", "API_PASSWORD", "SERVER_IP",
+            "TEMPLATE_ID", "SERVER_URL", "RETRY_MAX_ATTEMPTS", "RETRY_BASE_DELAY_MS", "RETRY_MAX_DELAY_MS",
+            "RETRY_BUDGET_MS", "BREAKER_FAILURE_THRESHOLD", "BREAKER_OPEN_MS", "CACHE_MAX_BYTES",
+            "CACHE_TTL_CAMPAIGNS_MS", "CACHE_TTL_LEADS_MS", "CACHE_TTL_DIDS_MS", "HEDGE_BUDGET_PERCENT",
+            "HEDGE_MIN_DELAY_MS", "HEDGE_MIN_SAMPLES", "HEDGE_PERCENTILE");
+    /** Label of the admin DID listing page (see {@link #labelOf(HttpRequest)}). */
+    private static final String DID_PAGE = "ADD=1300";
+    /** Passwords the API stores unchanged (see {@link #isValidPassword(String)}). */
+    private static final Pattern PASSWORD = Pattern.compile("[-_0-9A-Za-z]+");
     private HttpClient client;
+    /** Adaptive limit on the requests in flight against the Vicidial web server. */
+    private final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 200,
+            limit -> debug("⚙️  Concurrency limit: " + limit));
     private final String baseUrl;
     // Credentials configuration (loaded from .env or system environment variables)
     private final String apiUser;
@@ -48,68 +76,185 @@ public class VicidialClientSingleton {
     private final String serverIp;
     private final String templateId;
     private final String serverUrl;
+    /** Builds api.php URLs carrying the credentials above. */
+    private final ApiUrlBuilder urls;
+    /** Retry policy applied to idempotent calls. */
+    private final RetryPolicy retryPolicy;
+    /** Circuit breaker guarding api.php. */
+    private final CircuitBreaker apiBreaker;
+    /** Circuit breaker guarding the admin web UI. */
+    private final CircuitBreaker webBreaker;
+    /** Shares identical read-only requests in flight at the same time. */
+    private final SingleFlight reads = new SingleFlight();
+    /** Recent read-only responses, per-function TTL. */
+    private final ResponseCache cache;
+    /** Sends a second copy of slow read-only requests. */
+    private final HedgePolicy hedging;
+    /** HEDGE_PERCENTILE: percentile after which read-only calls are hedged unless --hedge says otherwise; 0 disables. */
+    private final double hedgePercentile;
+    /**
+     * Latency of each function against this client's server, by label. It sets the hedge delay, so a
+     * slow cluster never delays the hedges of a fast one; {@link RequestMetrics} keeps the totals.
+     */
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+
+    /**
+     * Configuration of a client: the profile it was read for (null for .env and the environment alone)
+     * and the values set among {@link #SETTING_NAMES}.
+     */
+    private record Settings(String profile, Map<String, String> values) {
+    }
 
     /**
      * Creates a new wrapper instance using the provided HttpClient.
      *
-     * <p>The constructor loads environment variables using dotenv (if present)
-     * and falls back to system environment variables. It validates that the
-     * mandatory configuration (BASE_URL, API_USER and API_PASSWORD) is present.</p>
+     * <p>It validates that the mandatory configuration (BASE_URL, API_USER and API_PASSWORD) is
+     * present.</p>
      *
-     * @param client configured HttpClient to use for requests
-     * @throws IllegalStateException if required configuration values are missing
+     * @param client   configured HttpClient to use for requests
+     * @param settings configuration read by {@link #settings(ClientProfile, Invocation)}
+     * @throws ConfigurationException if required configuration values are missing
      */
-    private VicidialClientSingleton(HttpClient client) {
+    private VicidialClientSingleton(HttpClient client, Settings settings) {
         // Configure the client with a timeout to avoid infinite blocking.
         this.client = client;
+        Function<String, String> config = settings.values()::get;
+
+        this.baseUrl = config.apply("BASE_URL");
+        this.apiUser = config.apply("API_USER");
+        this.apiPass = config.apply("API_PASSWORD");
+        this.serverIp = config.apply("SERVER_IP");
+        this.templateId = config.apply("TEMPLATE_ID");
+        this.serverUrl = config.apply("SERVER_URL");
 
-        // Load variables from .env if present, otherwise use system environment variables.
+        this.retryPolicy = new RetryPolicy(
+                envInt(config, "RETRY_MAX_ATTEMPTS", 3),
+                envInt(config, "RETRY_BASE_DELAY_MS", 200),
+                envInt(config, "RETRY_MAX_DELAY_MS", 5_000),
+                envInt(config, "RETRY_BUDGET_MS", 30_000));
+        int breakerThreshold = envInt(config, "BREAKER_FAILURE_THRESHOLD", 5);
+        int breakerOpenMillis = envInt(config, "BREAKER_OPEN_MS", 30_000);
+        this.apiBreaker = new CircuitBreaker("api.php", breakerThreshold, breakerOpenMillis);
+        this.webBreaker = new CircuitBreaker("admin UI", breakerThreshold, breakerOpenMillis);
+        this.cache = new ResponseCache(envInt(config, "CACHE_MAX_BYTES", 32 * 1024 * 1024), Map.of(
+                "campaigns_list", (long) envInt(config, "CACHE_TTL_CAMPAIGNS_MS", 60_000),
+                "lead_all_info", (long) envInt(config, "CACHE_TTL_LEADS_MS", 30_000),
+                DID_PAGE, (long) envInt(config, "CACHE_TTL_DIDS_MS", 30_000)));
+        this.hedging = new HedgePolicy(envInt(config, "HEDGE_BUDGET_PERCENT", 10) / 100.0,
+                envInt(config, "HEDGE_MIN_DELAY_MS", 20), envInt(config, "HEDGE_MIN_SAMPLES", 20));
+        this.hedgePercentile = envInt(config, "HEDGE_PERCENTILE", 0);
+
+        if (this.baseUrl == null || this.apiUser == null || this.apiPass == null) {
+            throw new ConfigurationException(settings.profile() == null
+                ? "Missing credentials: define BASE_URL, API_USER and API_PASSWORD in .env or environment variables."
+                : "Missing credentials for profile " + settings.profile()
+                    + ": define BASE_URL, API_USER and API_PASSWORD in the profile, .env or environment variables.");
+        }
+        this.urls = new ApiUrlBuilder(baseUrl, source, apiUser, apiPass);
+    }
+
+    /**
+     * Reads the configuration of the caller (see {@link Invocation}): the environment, falling back to
+     * the .env file of its working directory. Values of the profile, when given, take precedence over
+     * both.
+     */
+    private static Settings settings(ClientProfile profile, Invocation invocation) {
         Dotenv dotenv = Dotenv.configure()
-                .directory(".")
+                .directory(invocation.getDirectory())
                 .ignoreIfMissing()
                 .load();
+        Map<String, String> file = new HashMap<>();
+        for (DotenvEntry entry : dotenv.entries(DotenvEntriesFilter.DECLARED_IN_ENV_FILE)) {
+            file.put(entry.getKey(), entry.getValue());
+        }
 
-        String envBase = dotenv.get("BASE_URL");
-        String envUser = dotenv.get("API_USER");
-        String envPass = dotenv.get("API_PASSWORD");
-        String serverIp = dotenv.get("SERVER_IP");
-        String templateId = dotenv.get("TEMPLATE_ID");
-
-        String sysBase = System.getenv("BASE_URL");
-        String sysUser = System.getenv("API_USER");
-        String sysPass = System.getenv("API_PASSWORD");
-        String serverUrl = System.getenv("SERVER_URL");
-
-        this.baseUrl = (envBase != null && !envBase.isBlank()) ? envBase : sysBase;
-        this.apiUser = (envUser != null && !envUser.isBlank()) ? envUser : sysUser;
-        this.apiPass = (envPass != null && !envPass.isBlank()) ? envPass : sysPass;
-        this.serverIp = (serverIp != null && !serverIp.isBlank()) ? serverIp : serverIp;
-        this.templateId = (templateId != null && !templateId.isBlank()) ? templateId : templateId;
-        this.serverUrl = (serverUrl != null && !serverUrl.isBlank()) ? serverUrl : serverUrl;
+        Map<String, String> values = new HashMap<>();
+        for (String name : SETTING_NAMES) {
+            String value = profile != null ? profile.get(name) : null;
+            if (value == null) {
+                value = invocation.getenv(name);
+            }
+            if (value == null || value.isBlank()) {
+                value = file.get(name);
+            }
+            if (value != null && !value.isBlank()) {
+                values.put(name, value);
+            }
+        }
+        return new Settings(profile != null ? profile.getName() : null, Map.copyOf(values));
+    }
 
-        if (this.baseUrl == null || this.apiUser == null || this.apiPass == null) {
-            throw new IllegalStateException(
-                "Missing credentials: define BASE_URL, API_USER and API_PASSWORD in .env or environment variables.");
+    /**
+     * Reads an integer configuration value, using the default when it is missing or invalid.
+     */
+    private static int envInt(Function<String, String> config, String name, int defaultValue) {
+        String value = config.apply(name);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
         }
     }
 
     /**
-     * Returns the singleton instance, creating it if necessary.
+     * Returns the client of the current configuration, creating it if necessary.
      *
      * <p>The instance is lazily initialized with a default HttpClient configured
-     * with a 10 second connection timeout.</p>
+     * with a 10 second connection timeout. Commands only ask for it when they are about to send a
+     * request, so --help, --version and parse errors never load the configuration nor build the
+     * HttpClient. Safe to call from concurrent threads: each client is created once.</p>
      *
-     * @return the singleton VicidialClientSingleton instance
+     * <p>The configuration is read for the calling thread: the bound {@link ClientProfile} (a
+     * --targets run) and the working directory and environment of the caller (a command forwarded to
+     * the daemon, see {@link Invocation}). Every distinct configuration gets its own client, created on
+     * first use and kept for the life of the JVM, so the daemon keeps a warm client per caller
+     * configuration.</p>
+     *
+     * @return the client of the current configuration
+     * @throws ConfigurationException if required configuration values are missing
      */
     public static VicidialClientSingleton getInstance() {
-        if (VicidialClientSingleton.instance == null) {
-            HttpClient client = HttpClient.newBuilder()
-                    .connectTimeout(Duration.ofSeconds(10))
-                    .build();
-            VicidialClientSingleton.instance = new VicidialClientSingleton(client);
+        ClientProfile profile = ClientProfile.current();
+        Invocation invocation = Invocation.current();
+        // The configuration is read once per caller and profile, not on every call.
+        return invocation.clients.computeIfAbsent(profile != null ? profile.getName() : "",
+                name -> clients.computeIfAbsent(settings(profile, invocation),
+                        key -> new VicidialClientSingleton(newHttpClient(), key)));
+    }
+
+    private static HttpClient newHttpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    /**
+     * Prints the hedge rate and the p99 latency with and without hedging per function (and per cluster
+     * profile), when verbose output is enabled for the current run (see {@link ClientOptions}) and
+     * hedging was used.
+     */
+    public static void reportHedging() {
+        if (!ClientOptions.current().isVerbose()) {
+            return;
         }
+        for (Map.Entry<Settings, VicidialClientSingleton> entry : clients.entrySet()) {
+            String summary = entry.getValue().hedging.summary();
+            if (summary.isEmpty()) {
+                continue;
+            }
+            String profile = entry.getKey().profile();
+            System.err.print(Ansi.AUTO.text("@|faint " + (profile != null ? "[" + profile + "]\n" : "") + summary + "|@"));
+        }
+    }
 
-        return VicidialClientSingleton.instance;
+    /**
+     * Prints a diagnostic line to stderr when verbose output is enabled for the run executing on this
+     * thread (see {@link ClientOptions}).
+     */
+    static void debug(String message) {
+        if (ClientOptions.current().isVerbose()) {
+            System.err.println(Ansi.AUTO.text("@|faint " + message + "|@"));
+        }
     }
 
     /**
@@ -121,14 +266,7 @@ public class VicidialClientSingleton {
      * @return a full URL string ready to be extended with function-specific parameters
      */
     private String buildApiUrl(String functionName) {
-        // Build the URL using the provided function name
-        return new StringBuilder()
-                .append(baseUrl)
-                .append("?source=").append(source)
-                .append("&user=").append(apiUser)
-                .append("&pass=").append(apiPass)
-                .append("&function=").append(functionName)
-                .toString();
+        return urls.function(functionName);
     }
 
     /**
@@ -139,50 +277,412 @@ public class VicidialClientSingleton {
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
     public String getCampaigns() throws IOException, InterruptedException {
-        String url = buildApiUrl("campaigns_list");
+        return await(getCampaignsAsync());
+    }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
+    /**
+     * Asynchronous counterpart of {@link #getCampaigns()}.
+     *
+     * @return a future completed with the API response body, or exceptionally with an IOException.
+     */
+    public CompletableFuture<String> getCampaignsAsync() {
+        return executeReadAsync(buildApiUrl("campaigns_list"));
+    }
+
+    /**
+     * Helper method to execute an HTTP call (to avoid duplicating code). The returned future completes
+     * once the response has been received and its status code validated.
+     *
+     * @param idempotent whether the call may be retried safely
+     */
+    private CompletableFuture<String> executeApiCallAsync(String url, boolean idempotent) {
+        HttpRequest request;
+        try {
+            request = buildApiRequest(url);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(request, HttpResponse.BodyHandlers.ofString(), apiBreaker, idempotent);
+    }
+
+    /**
+     * Executes a read-only API call. Concurrent identical calls share a single request.
+     */
+    private CompletableFuture<String> executeReadAsync(String url) {
+        HttpRequest request;
+        try {
+            request = buildApiRequest(url);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return shared(request, apiBreaker);
+    }
+
+    /**
+     * Builds a GET request for api.php.
+     *
+     * @throws IOException when the URL is invalid (the message never includes the URL, which carries
+     *                     the credentials)
+     */
+    private HttpRequest buildApiRequest(String url) throws IOException {
+        return HttpRequest.newBuilder()
+                .uri(toUri(url))
                 .GET()
                 .header("Accept", "application/json")
                 .timeout(Duration.ofSeconds(15)) // Request timeout
                 .build();
+    }
+
+    /**
+     * Builds an authenticated GET request for the admin web UI (HTTP Basic auth).
+     *
+     * @throws IOException when the URL is invalid (the message never includes the URL)
+     */
+    private HttpRequest buildWebRequest(String url) throws IOException {
+        String originalInput = apiUser + ":" + apiPass;
+        Base64.Encoder encoder = Base64.getEncoder();
+        String encodedString = encoder.encodeToString(originalInput.getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder()
+                .uri(toUri(url))
+                .GET()
+                .header("Authorization", "Basic " + encodedString)
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8")
+                .timeout(Duration.ofSeconds(15)) // Request timeout
+                .build();
+    }
 
-        // Synchronous execution: the thread blocks here until a response is received.
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    /**
+     * Parses a request URL. URLs carry the API credentials (and new passwords), so an invalid one is
+     * reported by function name only.
+     *
+     * @throws IOException when the URL is not a valid URI
+     */
+    static URI toUri(String url) throws IOException {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid request URL for " + labelOf(url)
+                    + " (check BASE_URL / SERVER_URL and the values given).");
+        }
+    }
 
-        // Basic status code handling
-        if (response.statusCode() != 200) {
-            throw new IOException("Error calling the Vicidial API. Status code: " + response.statusCode());
+    /**
+     * Same as {@link #labelOf(HttpRequest)} for a URL that may not parse.
+     */
+    private static String labelOf(String url) {
+        int query = url.indexOf('?');
+        if (query >= 0) {
+            for (String param : url.substring(query + 1).split("&")) {
+                if (param.startsWith("function=")) {
+                    return param.substring("function=".length());
+                }
+                if (param.startsWith("ADD=")) {
+                    return param;
+                }
+            }
         }
+        return "the request";
+    }
 
-        return response.body();
+    /**
+     * Sends a request without blocking the calling thread and validates the response status.
+     *
+     * <p>Each attempt goes through the endpoint's circuit breaker and waits for a slot of the adaptive
+     * limiter. Idempotent calls are retried on timeouts, network errors and 5xx/408/429 statuses
+     * following the retry policy; other calls are attempted once.</p>
+     *
+     * <p>When the calling thread runs under a {@link Deadline}, the request is tracked by it: each
+     * attempt's timeout is capped to the remaining budget, no attempt starts once the budget is spent,
+     * and the returned future fails with {@link AbandonedException} when the deadline expires.</p>
+     *
+     * @param breaker    circuit breaker of the endpoint being called
+     * @param idempotent whether the call may be retried safely
+     */
+    private <T> CompletableFuture<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+            CircuitBreaker breaker, boolean idempotent) {
+        // Captured here: retries run on timer threads that do not carry the caller's deadline.
+        return send(request, handler, breaker, idempotent, false, Deadline.current());
     }
 
     /**
-     * Helper method to execute an HTTP call (to avoid duplicating code).
+     * Same as {@link #send(HttpRequest, HttpResponse.BodyHandler, CircuitBreaker, boolean)} under the
+     * given deadline (none when null); when {@code hedged} and hedging is enabled, each attempt may be
+     * raced against a second copy (see {@link HedgePolicy}). Only read-only requests with a fully read
+     * body may be hedged.
      */
-    private String executeApiCall(String url) throws IOException, InterruptedException {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .GET()
-                .header("Accept", "application/json")
-                .timeout(Duration.ofSeconds(15))
-                .build();
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+    private <T> CompletableFuture<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+            CircuitBreaker breaker, boolean idempotent, boolean hedged, Deadline deadline) {
+        HedgePolicy.Request<T> exchange = copy -> breaker.call(() -> limited(request, handler, deadline, copy)
+                .thenApply(response -> unchecked(() -> checkStatus(response))));
+        String label = labelOf(request);
+        double percentile = hedged ? ClientOptions.current().hedgePercentile(hedgePercentile) : 0;
+        LatencyHistogram latency = latencyOf(label);
+        Supplier<CompletableFuture<T>> attempt = () -> hedging.execute(label, percentile, latency, exchange);
+        if (deadline == null) {
+            return idempotent ? retryPolicy.execute(label, attempt) : attempt.get();
+        }
+        if (deadline.isOver()) {
+            return CompletableFuture.failedFuture(deadline.getReason());
+        }
+        return deadline.track(idempotent ? retryPolicy.execute(label, attempt) : attempt.get());
+    }
+
+    /**
+     * Sends a read-only request. Fresh cached responses are returned without a request; otherwise the
+     * caller joins the identical request already in flight, if any (see {@link SingleFlight}). Cache
+     * hits and misses and joined callers are counted in {@link RequestMetrics}.
+     *
+     * <p>The shared request runs under no deadline, since it serves callers of other runs (sessions of
+     * the daemon) as well: each caller's own copy of the result is tracked by the caller's deadline
+     * instead, so a deadline expiring, or a run ending, only abandons that run's callers.</p>
+     */
+    private CompletableFuture<String> shared(HttpRequest request, CircuitBreaker breaker) {
+        String key = flightKey(request);
+        String label = labelOf(request);
+        RequestMetrics.Endpoint stats = RequestMetrics.getInstance().endpoint(label);
 
+        boolean cacheable = ClientOptions.current().isCacheEnabled() && cache.isCacheable(label);
+        if (cacheable) {
+            String cached = cache.get(key);
+            if (cached != null) {
+                stats.cacheHits.increment();
+                return CompletableFuture.completedFuture(cached);
+            }
+            stats.cacheMisses.increment();
+        }
+
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isOver()) {
+            return CompletableFuture.failedFuture(deadline.getReason());
+        }
+        CompletableFuture<String> copy = reads.execute(key, () -> {
+            long generation = cache.generation();
+            return send(request, HttpResponse.BodyHandlers.ofString(), breaker, true, true, null).thenApply(body -> {
+                if (cacheable && !body.contains("ERROR:")) {
+                    cache.put(key, label, body, generation);
+                }
+                return body;
+            });
+        }, stats.shared::increment);
+        return deadline == null ? copy : deadline.track(copy);
+    }
+
+    /**
+     * Identifies the logical request: path and query parameters, without the credentials.
+     */
+    static String flightKey(HttpRequest request) {
+        StringBuilder key = new StringBuilder(request.uri().getRawPath());
+        String query = request.uri().getRawQuery();
+        if (query != null) {
+            char separator = '?';
+            for (String param : query.split("&")) {
+                if (param.startsWith("user=") || param.startsWith("pass=") || param.startsWith("source=")) {
+                    continue;
+                }
+                key.append(separator).append(param);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the name of the Vicidial function (api.php) or admin action (ADD=...) targeted by a
+     * request, without any credential.
+     */
+    static String labelOf(HttpRequest request) {
+        String query = request.uri().getRawQuery();
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("function=")) {
+                    return param.substring("function=".length());
+                }
+                if (param.startsWith("ADD=")) {
+                    return param;
+                }
+            }
+        }
+        return request.uri().getPath();
+    }
+
+    private LatencyHistogram latencyOf(String label) {
+        return latencies.computeIfAbsent(label, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Sends the request once the adaptive limiter grants a slot. Non-200 responses and transport
+     * failures are reported to the limiter as drops. Latency (measured from the moment the slot is
+     * granted), bytes received and errors are recorded in {@link RequestMetrics} under the function name.
+     *
+     * <p>Under a deadline, the request timeout is capped to the budget left when the slot is granted;
+     * if nothing is left the request is not sent. Timeouts caused by the deadline are not reported to
+     * the limiter as drops, since they say nothing about the server.</p>
+     *
+     * <p>For a copy of a hedged request, the hedge jumps the limiter queue, {@code copy.sent} is
+     * completed once the slot is granted and completing {@code copy.abort} (the copy lost the race)
+     * cancels the exchange. An aborted request is neither recorded nor reported to the limiter.</p>
+     *
+     * @param copy signals of the hedged copy; null when the request is not hedged
+     */
+    private <T> CompletableFuture<HttpResponse<T>> limited(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+            Deadline deadline, HedgePolicy.Copy copy) {
+        String label = labelOf(request);
+        RequestMetrics.Endpoint stats = RequestMetrics.getInstance().endpoint(label);
+        LatencyHistogram latency = latencyOf(label);
+        CompletableFuture<Void> abort = copy != null ? copy.abort : null;
+        return limiter.acquire(label, copy != null && copy.hedge).thenCompose(permit -> {
+            if (abort != null && abort.isDone()) {
+                permit.ignore();
+                return CompletableFuture.failedFuture(new CancellationException("Request aborted"));
+            }
+            HttpRequest timed = request;
+            boolean capped = false;
+            if (deadline != null) {
+                Duration remaining = deadline.remaining();
+                if (deadline.isOver()) {
+                    permit.ignore();
+                    return CompletableFuture.failedFuture(deadline.getReason());
+                }
+                Duration timeout = request.timeout().orElse(remaining);
+                if (remaining.compareTo(timeout) < 0) {
+                    timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(remaining).build();
+                    capped = true;
+                }
+            }
+            boolean deadlineBound = capped;
+            long start = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> sent = client.sendAsync(timed, RequestMetrics.countingBytes(handler, stats.bytes));
+            if (copy != null) {
+                copy.sent.complete(null);
+                // Async: the abort fires from the winner's completion, on a client thread.
+                abort.thenRunAsync(() -> sent.cancel(true));
+            }
+            return sent
+                    .whenComplete((response, error) -> {
+                        // The client fails a cancelled exchange with a wrapped CancellationException.
+                        if (error != null && abort != null && abort.isDone()) {
+                            permit.ignore();
+                            return;
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        stats.latency.record(elapsed);
+                        latency.record(elapsed);
+                        if (error != null && deadlineBound && CircuitBreaker.unwrap(error) instanceof HttpTimeoutException) {
+                            permit.ignore();
+                        } else if (error != null || response.statusCode() != 200) {
+                            stats.httpErrors.increment();
+                            permit.dropped();
+                        } else {
+                            if (response.body() instanceof String body && body.contains("ERROR:")) {
+                                stats.vicidialErrors.increment();
+                            }
+                            permit.success();
+                        }
+                    })
+                    .exceptionallyCompose(error -> {
+                        AbandonedException reason = deadline != null ? deadline.getReason() : null;
+                        // A timeout cut short by the deadline is an abandoned request, not a failure.
+                        if (deadlineBound && reason != null && CircuitBreaker.unwrap(error) instanceof HttpTimeoutException) {
+                            return CompletableFuture.failedFuture(reason);
+                        }
+                        return CompletableFuture.failedFuture(error);
+                    });
+        });
+    }
+
+    /**
+     * Returns the response body when the status code is 200. A streamed body is closed on error.
+     *
+     * @throws HttpStatusException when the server answered with any other status code
+     */
+    private static <T> T checkStatus(HttpResponse<T> response) throws IOException {
         if (response.statusCode() != 200) {
-            throw new IOException("Error calling the API. Status code: " + response.statusCode());
+            if (response.body() instanceof InputStream stream) {
+                stream.close();
+            }
+            throw new HttpStatusException(response.statusCode());
         }
         return response.body();
     }
 
+    /**
+     * Returns the API response body unless Vicidial reported an {@code ERROR:} in it.
+     *
+     * @param body    API response body
+     * @param message message of the exception raised on error
+     * @throws IOException when the body contains "ERROR:"
+     */
+    private static String checkNoError(String body, String message) throws IOException {
+        if (body.contains("ERROR:")) {
+            throw new IOException(message);
+        }
+        return body;
+    }
+
+    /**
+     * Blocks until the future completes, unwrapping its failure so synchronous callers keep receiving
+     * the same IOException/InterruptedException they used to get from {@code client.send}.
+     */
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof InterruptedException ie) {
+                throw ie;
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /** Supplier that may throw an IOException. */
+    @FunctionalInterface
+    private interface IOSupplier<T> {
+        T get() throws IOException;
+    }
+
+    /**
+     * Runs an IO step inside a future stage, wrapping its IOException so it propagates through the chain.
+     */
+    private static <T> T unchecked(IOSupplier<T> step) {
+        try {
+            return step.get();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Tells whether the API keeps a password as given: it silently strips every character other than
+     * letters, digits, '-' and '_', so any other password would be saved differently than sent.
+     */
+    static boolean isValidPassword(String password) {
+        return password != null && PASSWORD.matcher(password).matches();
+    }
+
+    private static CompletableFuture<Void> invalidPassword() {
+        return CompletableFuture.failedFuture(new IOException(
+                "Invalid password: only letters, digits, '-' and '_' are kept by the API."));
+    }
+
     /**
      * Safely encodes a string for use in URL query parameters.
      * Treats null as empty string to avoid URLEncoder throwing NPE.
      */
     private String safeEncode(String s) {
-        return URLEncoder.encode((s == null) ? "" : s, StandardCharsets.UTF_8);
+        return ApiUrlBuilder.encode(s);
     }
 
     /**
@@ -194,11 +694,21 @@ public class VicidialClientSingleton {
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
     public String getLeadInfo(String leadId) throws IOException, InterruptedException {
+        return await(getLeadInfoAsync(leadId));
+    }
 
-        String url = buildApiUrl("lead_all_info") + "&lead_id=" + leadId;
+    /**
+     * Asynchronous counterpart of {@link #getLeadInfo(String)}.
+     *
+     * @param leadId unique identifier of the lead.
+     * @return a future completed with the API response body for the lead.
+     */
+    public CompletableFuture<String> getLeadInfoAsync(String leadId) {
+        return executeReadAsync(leadInfoUrl(leadId));
+    }
 
-        String response = executeApiCall(url);
-        return response;
+    private String leadInfoUrl(String leadId) {
+        return buildApiUrl("lead_all_info") + "&lead_id=" + safeEncode(leadId);
     }
 
     /**
@@ -214,12 +724,9 @@ public class VicidialClientSingleton {
      */
     public void DuplicateLeadInList(String leadId, String listId, String comments, String email)
             throws IOException, InterruptedException {
-        // Build the URL
-        String url = buildApiUrl("lead_all_info") + "&lead_id=" + leadId;
-
         // Lookup the contact
         System.out.println(Ansi.AUTO.text("@|yellow Searching lead details for ID: " + leadId + "...|@"));
-        String response = executeApiCall(url);
+        String response = getLeadInfo(leadId);
 
         // Verify that it exists
         if (response.isEmpty()) {
@@ -240,39 +747,68 @@ public class VicidialClientSingleton {
             contactInfo.setEmail(email);
         }
 
-        // Create URL for the new lead
-        String urlLead = buildApiUrl("add_lead") +
-                "&phone_number=" + contactInfo.getPhone_number() +
-                "&phone_code=1" +
-                "&list_id=" + listId +
-                "&first_name=" + safeEncode(contactInfo.getFirst_name()) +
-                "&last_name=" + safeEncode(contactInfo.getLast_name()) +
-                "&address1=" + safeEncode(contactInfo.getAddress1()) +
-                "&address2=" + safeEncode(contactInfo.getAddress2()) +
-                "&address3=" + safeEncode(contactInfo.getAddress3()) +
-                "&city=" + safeEncode(contactInfo.getCity()) +
-                "&state=" + safeEncode(contactInfo.getState()) +
-                "&postal_code=" + safeEncode(contactInfo.getPostal_code()) +
-                "&alt_phone=" + safeEncode(contactInfo.getAlt_phone()) +
-                "&email=" + safeEncode(contactInfo.getEmail()) +
-                "&comments=" + safeEncode(contactInfo.getComments());
-
         // Make create request
         System.out.println(Ansi.AUTO.text("@|blue Creating New lead in List Id: " + listId + "...|@"));
-        String LeadResponse = executeApiCall(urlLead);
-
-        if (LeadResponse.isEmpty()) {
-            throw new InterruptedException("Fail while creating new Lead (Already Exists).");
-        }
-
-        // Split the response by '|'
-        String NewLeadId = LeadResponse.split("\\|")[2];
+        String NewLeadId = addLead(contactInfo, listId);
         System.out.println(
                 Ansi.AUTO.text("@|green New lead Created inside list " + listId + "\nLead ID: " + NewLeadId + "|@"));
 
         return;
     }
 
+    /**
+     * Creates a new lead with the details of an existing one inside a list.
+     *
+     * @param lead   Lead details to copy (as returned by lead_all_info, optionally modified).
+     * @param listId Unique identifier of the list where the new lead will be placed.
+     * @return the ID of the new lead.
+     * @throws IOException          If an I/O (network) error occurs, or the lead already exists
+     *                              ({@link LeadExistsException}).
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public String addLead(LeadModel lead, String listId) throws IOException, InterruptedException {
+        return await(addLeadAsync(lead, listId));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #addLead(LeadModel, String)}.
+     *
+     * <p>add_lead is not idempotent, so it is never retried.</p>
+     *
+     * @return a future completed with the ID of the new lead, or exceptionally with an IOException.
+     */
+    public CompletableFuture<String> addLeadAsync(LeadModel lead, String listId) {
+        return executeApiCallAsync(urls.addLead(lead, listId), false)
+                .thenApply(response -> unchecked(() -> parseNewLeadId(response, listId)))
+                .thenApply(newLeadId -> {
+                    // Forget a cached "not found" for the new lead.
+                    try {
+                        cache.invalidate(flightKey(buildApiRequest(leadInfoUrl(newLeadId))));
+                    } catch (IOException e) {
+                        // Not a valid lead ID: nothing can be cached under it.
+                    }
+                    return newLeadId;
+                });
+    }
+
+    /**
+     * Extracts the new lead ID from an add_lead response
+     * ({@code SUCCESS: add_lead LEAD HAS BEEN ADDED - phone|list|leadId|...}).
+     */
+    private static String parseNewLeadId(String response, String listId) throws IOException {
+        if (response.isEmpty()) {
+            throw new LeadExistsException(listId);
+        }
+        checkNoError(response, "Error while creating lead in list " + listId + ":\n" + response.strip());
+
+        // Split the response by '|'
+        String[] parts = response.split("\\|");
+        if (parts.length < 3) {
+            throw new IOException("Unexpected add_lead response: " + response.strip());
+        }
+        return parts[2].strip();
+    }
+
     /**
      * Updates a Vicidial User, overwriting name and/or password.
      *
@@ -283,23 +819,31 @@ public class VicidialClientSingleton {
      * @throws InterruptedException When the thread is interrupted while waiting.
      */
     public void updateUser(String ID, String name, String password) throws IOException, InterruptedException {
+        await(updateUserAsync(ID, name, password));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #updateUser(String, String, String)}.
+     *
+     * @return a future completed once the User has been updated, or exceptionally with an IOException.
+     */
+    public CompletableFuture<Void> updateUserAsync(String ID, String name, String password) {
+        if (!password.isEmpty() && !isValidPassword(password)) {
+            return invalidPassword();
+        }
+
         // Build the URL
-        String userUrl = buildApiUrl("update_user") + "&agent_user=" + ID;
+        String userUrl = buildApiUrl("update_user") + "&agent_user=" + safeEncode(ID);
 
         if (!name.isEmpty()) {
-            userUrl = userUrl + String.format("&agent_full_name=%s", URLEncoder.encode(name, StandardCharsets.UTF_8));
+            userUrl = userUrl + "&agent_full_name=" + safeEncode(name);
         }
         if (!password.isEmpty()) {
-            userUrl = userUrl + String.format("&agent_pass=%s", password);
+            userUrl = userUrl + "&agent_pass=" + safeEncode(password);
         }
 
-        String response = executeApiCall(userUrl);
-
-        if (response.contains("ERROR:")) {
-            throw new IOException("Error while updating " + ID);
-        }
-
-        return;
+        return executeApiCallAsync(userUrl, true)
+                .thenAccept(response -> unchecked(() -> checkNoError(response, "Error while updating " + ID)));
     }
 
     /**
@@ -311,23 +855,30 @@ public class VicidialClientSingleton {
      * @throws InterruptedException When the thread is interrupted while waiting.
      */
     public void updatePhone(String ID, String password) throws IOException, InterruptedException {
-        // Build the URL
-        String phoneUrl = buildApiUrl("update_phone") +
-                "&extension=" + ID +
-                "&server_ip=" + this.serverIp +
-                "&phone_pass=" + password;
+        await(updatePhoneAsync(ID, password));
+    }
 
+    /**
+     * Asynchronous counterpart of {@link #updatePhone(String, String)}.
+     *
+     * @return a future completed once the Phone has been updated, or exceptionally with an IOException.
+     */
+    public CompletableFuture<Void> updatePhoneAsync(String ID, String password) {
         if (password.isEmpty()) {
-            throw new IOException("Error: No password given.");
+            return CompletableFuture.failedFuture(new IOException("Error: No password given."));
         }
-
-        String response = executeApiCall(phoneUrl);
-
-        if (response.contains("ERROR:")) {
-            throw new IOException("Error while updating " + ID);
+        if (!isValidPassword(password)) {
+            return invalidPassword();
         }
 
-        return;
+        // Build the URL
+        String phoneUrl = buildApiUrl("update_phone") +
+                "&extension=" + safeEncode(ID) +
+                "&server_ip=" + safeEncode(this.serverIp) +
+                "&phone_pass=" + safeEncode(password);
+
+        return executeApiCallAsync(phoneUrl, true)
+                .thenAccept(response -> unchecked(() -> checkNoError(response, "Error while updating " + ID)));
     }
 
     /**
@@ -342,17 +893,25 @@ public class VicidialClientSingleton {
      */
     public void createUser(String ID, String password, String name, String userGroup)
             throws IOException, InterruptedException {
-        String userURL = buildApiUrl("add_user") + "&agent_user=" + ID + "&agent_pass=" + password
-                + "&hotkeys_active=1&closer_default_blended=1&agent_user_level=1&agent_full_name=" + name
-                + "&agent_user_group=" + userGroup;
-
-        String response = executeApiCall(userURL);
+        await(createUserAsync(ID, password, name, userGroup));
+    }
 
-        if (response.contains("ERROR:")) {
-            throw new IOException("Error while creating user " + ID + ":\n" + response);
+    /**
+     * Asynchronous counterpart of {@link #createUser(String, String, String, String)}.
+     *
+     * @return a future completed once the User has been created, or exceptionally with an IOException.
+     */
+    public CompletableFuture<Void> createUserAsync(String ID, String password, String name, String userGroup) {
+        if (!isValidPassword(password)) {
+            return invalidPassword();
         }
+        String userURL = buildApiUrl("add_user") + "&agent_user=" + safeEncode(ID) + "&agent_pass=" + safeEncode(password)
+                + "&hotkeys_active=1&closer_default_blended=1&agent_user_level=1&agent_full_name=" + safeEncode(name)
+                + "&agent_user_group=" + safeEncode(userGroup);
 
-        return;
+        return executeApiCallAsync(userURL, false)
+                .thenAccept(response -> unchecked(
+                        () -> checkNoError(response, "Error while creating user " + ID + ":\n" + response)));
     }
 
     /**
@@ -364,31 +923,39 @@ public class VicidialClientSingleton {
      * @throws InterruptedException When the thread is interrupted while waiting.
      */
     public void createPhone(String ID, String password) throws IOException, InterruptedException {
+        await(createPhoneAsync(ID, password));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #createPhone(String, String)}.
+     *
+     * @return a future completed once the Phone has been created, or exceptionally with an IOException.
+     */
+    public CompletableFuture<Void> createPhoneAsync(String ID, String password) {
+        if (!isValidPassword(password)) {
+            return invalidPassword();
+        }
         String cid = "0000000000";
+        String id = safeEncode(ID);
         String phoneURL = buildApiUrl("add_phone") +
-                "&extension=" + ID +
-                "&dialplan_number=" + ID +
-                "&voicemail_id=" + ID +
-                "&phone_login=" + ID +
-                "&phone_pass=" + password +
-                "&server_ip=" + this.serverIp +
+                "&extension=" + id +
+                "&dialplan_number=" + id +
+                "&voicemail_id=" + id +
+                "&phone_login=" + id +
+                "&phone_pass=" + safeEncode(password) +
+                "&server_ip=" + safeEncode(this.serverIp) +
                 "&protocol=SIP" +
-                "&registration_password=" + password +
-                "&phone_full_name=" + ID +
+                "&registration_password=" + safeEncode(password) +
+                "&phone_full_name=" + id +
                 "&local_gmt=-5.00" +
                 "&is_webphone=Y" +
                 "&webphone_auto_answer=Y" +
                 "&outbound_cid=" + cid +
-                "&template_id=" + templateId;
-
-        String response = executeApiCall(phoneURL);
-
-        if (response.contains("ERROR:")) {
-            throw new IOException("Error while creating phone " + ID + ":\n" + response);
-        }
-
-        return;
+                "&template_id=" + safeEncode(templateId);
 
+        return executeApiCallAsync(phoneURL, false)
+                .thenAccept(response -> unchecked(
+                        () -> checkNoError(response, "Error while creating phone " + ID + ":\n" + response)));
     }
 
     /**
@@ -399,25 +966,68 @@ public class VicidialClientSingleton {
      * @throws IOException          If an I/O (network) error occurs.
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
-    public String getFromWeb(String URL) throws IOException, InterruptedException{      
+    public String getFromWeb(String URL) throws IOException, InterruptedException {
+        return await(getFromWebAsync(URL));
+    }
 
-        String originalInput = apiUser +":"+apiPass;
-        Base64.Encoder encoder = Base64.getEncoder();
-        String encodedString = encoder.encodeToString(originalInput.getBytes(StandardCharsets.UTF_8));
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(URL))
-                .GET()
-                .header("Authorization", "Basic " + encodedString)
-                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8")
-                .timeout(Duration.ofSeconds(15)) // Request timeout
-                .build();
-        
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new IOException("Error calling the API. Status code: " + response.statusCode());
+    /**
+     * Asynchronous counterpart of {@link #getFromWeb(String)}.
+     *
+     * @param URL full URL to call
+     * @return a future completed with the response body as text
+     */
+    public CompletableFuture<String> getFromWebAsync(String URL) {
+        HttpRequest request;
+        try {
+            request = buildWebRequest(URL);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
-        
-        return response.body();
+        return shared(request, webBreaker);
+    }
+
+    /**
+     * Performs an authenticated GET request and returns the body as a stream once the headers arrive.
+     *
+     * <p>The caller must close the returned stream.</p>
+     *
+     * @param URL full URL to call
+     * @return response body stream
+     * @throws IOException          If an I/O (network) error occurs.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public InputStream getFromWebStream(String URL) throws IOException, InterruptedException {
+        return await(getFromWebStreamAsync(URL));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #getFromWebStream(String)}.
+     *
+     * @param URL full URL to call
+     * @return a future completed with the response body stream
+     */
+    public CompletableFuture<InputStream> getFromWebStreamAsync(String URL) {
+        HttpRequest request;
+        try {
+            request = buildWebRequest(URL);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return send(request, HttpResponse.BodyHandlers.ofInputStream(), webBreaker, true);
+    }
+
+    /**
+     * Returns the URL of the admin DID listing on the configured serverUrl, so DIDs are listed on the
+     * server they are removed from (the profile's own under --targets).
+     *
+     * @return the DID listing URL
+     * @throws IOException when SERVER_URL is not configured
+     */
+    public String getDidListUrl() throws IOException {
+        if (serverUrl == null || serverUrl.isBlank()) {
+            throw new IOException("SERVER_URL is not set; it is needed to list and remove DIDs.");
+        }
+        return serverUrl + "?" + DID_PAGE;
     }
 
     /**
@@ -427,22 +1037,26 @@ public class VicidialClientSingleton {
      * @throws IOException          If an I/O (network) error occurs.
      * @throws InterruptedException If the thread is interrupted while waiting.
      */
-    public void removeDID(int id) throws IOException, InterruptedException{
-        String originalInput = apiUser +":"+apiPass;
-        Base64.Encoder encoder = Base64.getEncoder();
-        String encodedString = encoder.encodeToString(originalInput.getBytes(StandardCharsets.UTF_8));
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(serverUrl + "?ADD=6311&did_id=" + id + "&CoNfIrM=YES"))
-                .GET()
-                .header("Authorization", "Basic " + encodedString)
-                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8")
-                .timeout(Duration.ofSeconds(15)) // Request timeout
-                .build();
-        
-        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        if (response.statusCode() != 200) {
-            throw new IOException("Error calling the API. Status code: " + response.statusCode());
+    public void removeDID(int id) throws IOException, InterruptedException {
+        await(removeDIDAsync(id));
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #removeDID(int)}.
+     *
+     * @param id numeric DID identifier to be removed
+     * @return a future completed once the admin page acknowledged the removal
+     */
+    public CompletableFuture<Void> removeDIDAsync(int id) {
+        HttpRequest request;
+        try {
+            request = buildWebRequest(serverUrl + "?ADD=6311&did_id=" + id + "&CoNfIrM=YES");
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
         }
+        return send(request, HttpResponse.BodyHandlers.ofString(), webBreaker, true)
+                .whenComplete((body, error) -> cache.invalidateFunction(DID_PAGE))
+                .thenAccept(body -> { });
     }
 
 }
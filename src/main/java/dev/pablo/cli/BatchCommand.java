@@ -0,0 +1,377 @@
+package dev.pablo.cli;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import dev.pablo.api.Deadline;
+import dev.pablo.api.Invocation;
+import dev.pablo.api.RunContext;
+import dev.pablo.api.VicidialClientSingleton;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Help.Ansi;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Runs many vicidial-cli command lines in one JVM.
+ *
+ * <p>Each row of the input is one command line, split like a shell would (quotes and backslash
+ * escapes) and executed through the same picocli subcommands registered in {@link MainApplication}.
+ * Every row shares the warm {@link VicidialClientSingleton} (configuration, HttpClient and its TLS
+ * connections), so a runbook of dozens of calls pays the JVM and TLS startup once.</p>
+ *
+ * <p>With {@code --parallel N}, up to N rows run at the same time on virtual threads. The output of
+ * each row is buffered (see {@link ThreadRoutedOutputStream}) and printed in input order once the row
+ * ends, so rows never mix their output. The exit code of every row is collected into a final
+ * summary.</p>
+ *
+ * <p>Usage:
+ * <pre>
+ *   vicidial-cli batch runbook.txt [--parallel &lt;N&gt;] [--fail-fast]
+ *   generate-lines | vicidial-cli batch
+ * </pre>
+ * </p>
+ */
+@Command(name = "batch", description = {
+    "Runs many command lines in one JVM, sharing one warm Vicidial client.",
+    "Reads one command line per row (e.g. 'updateCred 1001 -n \"Jane Doe\" -p s3cret') from FILE or stdin.",
+    "Blank rows and rows starting with '#' are skipped; a leading 'vicidial-cli' is optional.",
+    "Usage: vicidial-cli batch [FILE] [--parallel <N>] [--fail-fast]",
+    "Example: vicidial-cli batch runbook.txt --parallel 8"
+}, mixinStandardHelpOptions = true)
+public class BatchCommand implements Callable<Integer> {
+    /** Exit code of a row that could not be parsed or is not allowed in a batch (as picocli usage errors). */
+    private static final int USAGE_ERROR = 2;
+
+    @Parameters(index = "0", arity = "0..1", paramLabel = "FILE",
+        description = "File with one command line per row; '-' or none reads stdin.")
+    private String file;
+
+    @Option(names = { "--parallel" }, paramLabel = "N", defaultValue = "1",
+        description = "Rows run at the same time (default: ${DEFAULT-VALUE}). Output is still printed in input order.")
+    private int parallel;
+
+    @Option(names = { "--fail-fast" },
+        description = "Start no more rows once one has failed (rows already running finish).")
+    private boolean failFast;
+
+    /** One command line of the input. */
+    private record Row(int line, String text) {
+    }
+
+    /** Outcome of a row; exit code -1 when it was not run. */
+    private record RowResult(Row row, int exitCode, String command, double seconds) {
+    }
+
+    /** A row running in parallel mode, with its buffered output. */
+    private record Pending(Row row, Future<RowResult> result, ByteArrayOutputStream out, ByteArrayOutputStream err) {
+    }
+
+    @Override
+    public Integer call() {
+        int limit = Math.max(1, parallel);
+        List<RowResult> results = new ArrayList<>();
+        AtomicBoolean failed = new AtomicBoolean();
+        long start = System.nanoTime();
+
+        try (BufferedReader reader = openInput()) {
+            if (limit == 1) {
+                runSequentially(reader, failed, results);
+            } else {
+                runInParallel(reader, limit, failed, results);
+            }
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Reading Error:|@ " + e.getMessage()));
+            return 1;
+        } catch (InterruptedException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The batch was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+
+        return printSummary(results, (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    private BufferedReader openInput() throws IOException {
+        if (file == null || file.equals("-")) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        Path path = Invocation.current().resolve(file);
+        if (!Files.isRegularFile(path)) {
+            throw new IOException("Invalid path: " + path.toAbsolutePath());
+        }
+        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the next row to run, or null at the end of the input
+     */
+    private static Row nextRow(BufferedReader reader, int[] lineNumber) throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber[0]++;
+            String trimmed = text.strip();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                return new Row(lineNumber[0], trimmed);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true when no more rows may start (--fail-fast after a failure, or the deadline is over)
+     */
+    private boolean stopped(AtomicBoolean failed) {
+        Deadline deadline = Deadline.current();
+        return (failFast && failed.get()) || (deadline != null && deadline.isOver());
+    }
+
+    /**
+     * Runs the rows one after the other, their output going straight to stdout/stderr.
+     */
+    private void runSequentially(BufferedReader reader, AtomicBoolean failed, List<RowResult> results)
+            throws IOException {
+        int[] lineNumber = { 0 };
+        Row row;
+        while ((row = nextRow(reader, lineNumber)) != null) {
+            if (stopped(failed)) {
+                results.add(new RowResult(row, -1, commandOf(row), 0));
+                continue;
+            }
+            printHeader(row);
+            RowResult result = execute(row);
+            if (result.exitCode() != 0) {
+                failed.set(true);
+            }
+            results.add(result);
+        }
+    }
+
+    /**
+     * Runs up to {@code limit} rows at the same time, each with its output buffered, and prints every
+     * row's output in input order as soon as the rows before it have been printed.
+     */
+    private void runInParallel(BufferedReader reader, int limit, AtomicBoolean failed, List<RowResult> results)
+            throws IOException, InterruptedException {
+        ThreadRoutedOutputStream.install();
+        Semaphore running = new Semaphore(limit);
+        // Rows started or waiting for a permit, in input order; bounds the output held in memory.
+        Deque<Pending> window = new ArrayDeque<>();
+        int maxWindow = limit * 4;
+
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(RunContext.capture().threads(Thread.ofVirtual().factory()))) {
+            int[] lineNumber = { 0 };
+            Row row;
+            while ((row = nextRow(reader, lineNumber)) != null) {
+                while (window.size() >= maxWindow) {
+                    results.add(flush(window.poll()));
+                }
+                Row current = row;
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                Future<RowResult> result = executor.submit(() -> {
+                    running.acquire();
+                    try {
+                        if (stopped(failed)) {
+                            return new RowResult(current, -1, commandOf(current), 0);
+                        }
+                        ThreadRoutedOutputStream.stdout().route(out);
+                        ThreadRoutedOutputStream.stderr().route(err);
+                        RowResult executed = execute(current);
+                        if (executed.exitCode() != 0) {
+                            failed.set(true);
+                        }
+                        return executed;
+                    } finally {
+                        System.out.flush();
+                        System.err.flush();
+                        ThreadRoutedOutputStream.stdout().route(null);
+                        ThreadRoutedOutputStream.stderr().route(null);
+                        running.release();
+                    }
+                });
+                window.add(new Pending(row, result, out, err));
+            }
+            while (!window.isEmpty()) {
+                results.add(flush(window.poll()));
+            }
+        }
+    }
+
+    /**
+     * Waits for a parallel row and prints its buffered output.
+     */
+    private RowResult flush(Pending pending) throws InterruptedException {
+        RowResult result;
+        try {
+            result = pending.result().get();
+        } catch (ExecutionException e) {
+            result = new RowResult(pending.row(), 1, commandOf(pending.row()), 0);
+            System.err.println(Ansi.AUTO.text("❌ @|red Unexpected error:|@ " + e.getCause()));
+        }
+        if (result.exitCode() == -1) {
+            return result;
+        }
+        printHeader(pending.row());
+        System.out.write(pending.out().toByteArray(), 0, pending.out().size());
+        System.out.flush();
+        System.err.write(pending.err().toByteArray(), 0, pending.err().size());
+        System.err.flush();
+        return result;
+    }
+
+    /**
+     * Parses and executes one row through a fresh picocli command tree.
+     */
+    private static RowResult execute(Row row) {
+        long start = System.nanoTime();
+        String[] args;
+        try {
+            args = tokenize(row.text());
+        } catch (IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Line " + row.line() + ":|@ " + e.getMessage()));
+            return new RowResult(row, USAGE_ERROR, "?", 0);
+        }
+        String command = args.length > 0 ? args[0] : "";
+        if (command.equals("batch") || command.equals("serve")) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Line " + row.line() + ":|@ '" + command
+                    + "' cannot run inside a batch."));
+            return new RowResult(row, USAGE_ERROR, command, 0);
+        }
+
+        int exitCode = MainApplication.createCommandLine().execute(args);
+        return new RowResult(row, exitCode, command, (System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+    /**
+     * Prints which row runs next. Only the subcommand is shown: the arguments may carry passwords.
+     */
+    private static void printHeader(Row row) {
+        System.err.println(Ansi.AUTO.text("@|faint ▶ line " + row.line() + ": " + commandOf(row) + "|@"));
+    }
+
+    private static String commandOf(Row row) {
+        try {
+            String[] args = tokenize(row.text());
+            return args.length > 0 ? args[0] : "";
+        } catch (IllegalArgumentException e) {
+            return "?";
+        }
+    }
+
+    /**
+     * Splits a row into arguments like a POSIX shell: whitespace separates arguments, single quotes
+     * keep everything literally, double quotes keep whitespace and honour backslash escapes, and a
+     * backslash outside quotes escapes the next character. A leading "vicidial-cli" is dropped.
+     *
+     * @param text command line
+     * @return the arguments
+     * @throws IllegalArgumentException on an unterminated quote or a trailing backslash
+     */
+    static String[] tokenize(String text) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inArgument = false;
+        char quote = 0;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '\\') {
+                if (++i == text.length()) {
+                    throw new IllegalArgumentException("Trailing backslash.");
+                }
+                current.append(text.charAt(i));
+                inArgument = true;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArgument = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArgument) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArgument = false;
+                }
+            } else {
+                current.append(c);
+                inArgument = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated " + quote + " quote.");
+        }
+        if (inArgument) {
+            args.add(current.toString());
+        }
+
+        if (!args.isEmpty() && args.get(0).equals("vicidial-cli")) {
+            args.remove(0);
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Prints the failed and skipped rows, then the totals.
+     *
+     * @return 0 when every row succeeded, 1 otherwise
+     */
+    private int printSummary(List<RowResult> results, double seconds) {
+        int succeeded = 0;
+        int failed = 0;
+        int notRun = 0;
+
+        System.out.println("---------------------------------------------------------");
+        for (RowResult result : results) {
+            String line = "line " + result.row().line() + " (" + result.command() + ")";
+            if (result.exitCode() == 0) {
+                succeeded++;
+            } else if (result.exitCode() == -1) {
+                notRun++;
+                System.out.println(Ansi.AUTO.text("⏭ @|yellow " + line + " not run.|@"));
+            } else {
+                failed++;
+                System.out.println(Ansi.AUTO.text(String.format("❌ @|red %s exited with %d|@ after %.2f s",
+                        line, result.exitCode(), result.seconds())));
+            }
+        }
+        System.out.println("---------------------------------------------------------");
+        System.out.println(Ansi.AUTO.text("@|blue Succeeded: " + succeeded + " | Failed: " + failed
+                + " | Not run: " + notRun + "|@"));
+        System.out.println(Ansi.AUTO.text(String.format("@|blue Ran %d rows in %.2f s (parallel %d).|@",
+                succeeded + failed, seconds, Math.max(1, parallel))));
+        if (notRun > 0) {
+            Deadline deadline = Deadline.current();
+            String why = deadline != null && deadline.isOver() ? "the deadline was reached" : "a row failed (--fail-fast)";
+            System.out.println(Ansi.AUTO.text("⏭ @|yellow " + notRun + " row(s) not run because " + why + ".|@"));
+        }
+
+        return succeeded == results.size() ? 0 : 1;
+    }
+}
@@ -0,0 +1,198 @@
+package dev.pablo.cli;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import dev.pablo.api.ClientProfile;
+import dev.pablo.api.RunContext;
+import picocli.CommandLine.Help.Ansi;
+
+/**
+ * Runs one command line against several Vicidial clusters at the same time (--targets).
+ *
+ * <p>Every selected {@link ClientProfile} gets its own virtual thread, bound to the profile, which
+ * executes the whole command line again through a fresh picocli command tree: commands keep their
+ * state in fields, so one parsed instance cannot serve several clusters. The nested run sees the bound
+ * profile and does not fan out again. Output of each cluster is buffered and printed per cluster, in
+ * profile order, followed by each cluster's exit code and timing. The files a command writes (exports,
+ * results, checkpoints, vaults, DID snapshots, job journals) get an {@code @<profile>} suffix, so the
+ * clusters never write the same file.</p>
+ */
+final class ClusterFanOut {
+    private final Path profilesFile;
+    private final List<String> targets;
+
+    /** Exit code and duration of the command on one cluster. */
+    private record Outcome(int exitCode, double seconds) {
+    }
+
+    /** The command running on one cluster, with its buffered output. */
+    private record ClusterRun(String name, Future<Outcome> outcome, ByteArrayOutputStream out,
+            ByteArrayOutputStream err) {
+    }
+
+    /**
+     * @param profilesFile profile file
+     * @param targets      profile names, or the single name "all"
+     */
+    ClusterFanOut(Path profilesFile, List<String> targets) {
+        this.profilesFile = profilesFile;
+        this.targets = targets;
+    }
+
+    /**
+     * Executes the command line on every target and prints the per-cluster results.
+     *
+     * @param args     the command line as given (the nested runs parse it again)
+     * @param command  name of the subcommand
+     * @return 0 when the command succeeded on every cluster, 1 otherwise
+     */
+    int run(List<String> args, String command) {
+        if (command.equals("serve") || command.equals("batch")) {
+            System.err.println(Ansi.AUTO.text("❌ @|red --targets cannot run '" + command
+                    + "'; put --targets on each command instead.|@"));
+            return 1;
+        }
+
+        List<ClientProfile> selected;
+        try {
+            selected = select(ClientProfile.load(profilesFile));
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Profile error:|@ " + e.getMessage()));
+            return 1;
+        } catch (IllegalArgumentException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red " + e.getMessage() + "|@"));
+            return 1;
+        }
+
+        ThreadRoutedOutputStream.install();
+        String[] argv = args.toArray(new String[0]);
+        List<ClusterRun> runs = new ArrayList<>(selected.size());
+        long start = System.nanoTime();
+
+        System.err.println(Ansi.AUTO.text("@|faint ⇉ Running " + command + " on " + selected.size()
+                + " cluster(s)...|@"));
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(RunContext.capture().threads(Thread.ofVirtual().factory()))) {
+            for (ClientProfile profile : selected) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                Future<Outcome> outcome = executor.submit(() -> {
+                    profile.bind();
+                    ThreadRoutedOutputStream.stdout().route(out);
+                    ThreadRoutedOutputStream.stderr().route(err);
+                    long clusterStart = System.nanoTime();
+                    try {
+                        int exitCode = MainApplication.createCommandLine().execute(argv);
+                        return new Outcome(exitCode, (System.nanoTime() - clusterStart) / 1_000_000_000.0);
+                    } finally {
+                        System.out.flush();
+                        System.err.flush();
+                        ThreadRoutedOutputStream.stdout().route(null);
+                        ThreadRoutedOutputStream.stderr().route(null);
+                    }
+                });
+                runs.add(new ClusterRun(profile.getName(), outcome, out, err));
+            }
+
+            Map<String, Outcome> outcomes = new LinkedHashMap<>();
+            for (ClusterRun run : runs) {
+                outcomes.put(run.name(), print(run));
+            }
+            return printSummary(outcomes, (System.nanoTime() - start) / 1_000_000_000.0);
+        } catch (InterruptedException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red The request was interrupted.|@"));
+            Thread.currentThread().interrupt();
+            return 1;
+        }
+    }
+
+    /**
+     * @return the profiles named by the targets, in the order given ("all": file order)
+     * @throws IllegalArgumentException when a target is not a profile of the file
+     */
+    private List<ClientProfile> select(Map<String, ClientProfile> profiles) {
+        if (profiles.isEmpty()) {
+            throw new IllegalArgumentException("No profile defined in " + profilesFile);
+        }
+        if (targets.size() == 1 && targets.get(0).equals("all")) {
+            return new ArrayList<>(profiles.values());
+        }
+        List<ClientProfile> selected = new ArrayList<>();
+        for (String target : targets) {
+            ClientProfile profile = profiles.get(target);
+            if (profile == null) {
+                throw new IllegalArgumentException("Unknown profile: " + target + " (defined in " + profilesFile
+                        + ": " + String.join(", ", profiles.keySet()) + ")");
+            }
+            if (!selected.contains(profile)) {
+                selected.add(profile);
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Waits for one cluster and prints its header and buffered output.
+     *
+     * @return the outcome on that cluster
+     */
+    private static Outcome print(ClusterRun run) throws InterruptedException {
+        Outcome outcome;
+        try {
+            outcome = run.outcome().get();
+        } catch (ExecutionException e) {
+            outcome = new Outcome(1, 0);
+            run.err().writeBytes(("Unexpected error: " + e.getCause() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        }
+        String color = outcome.exitCode() == 0 ? "green" : "red";
+        System.out.println(Ansi.AUTO.text(String.format("@|bold,%s ═══ %s|@ @|faint (exit %d, %.2f s)|@",
+                color, run.name(), outcome.exitCode(), outcome.seconds())));
+        System.out.flush();
+        System.out.write(run.out().toByteArray(), 0, run.out().size());
+        System.out.flush();
+        System.err.write(run.err().toByteArray(), 0, run.err().size());
+        System.err.flush();
+        return outcome;
+    }
+
+    /**
+     * Prints one line per cluster with its exit code and timing, then the totals.
+     *
+     * @return 0 when the command succeeded on every cluster, 1 otherwise
+     */
+    private static int printSummary(Map<String, Outcome> outcomes, double seconds) {
+        int width = 7;
+        for (String name : outcomes.keySet()) {
+            width = Math.max(width, name.length());
+        }
+        int failed = 0;
+
+        System.out.println("---------------------------------------------------------");
+        for (Map.Entry<String, Outcome> entry : outcomes.entrySet()) {
+            Outcome outcome = entry.getValue();
+            String line = String.format("%-" + width + "s  exit %d  %8.2f s", entry.getKey(), outcome.exitCode(),
+                    outcome.seconds());
+            if (outcome.exitCode() == 0) {
+                System.out.println(Ansi.AUTO.text("✅ @|green " + line + "|@"));
+            } else {
+                failed++;
+                System.out.println(Ansi.AUTO.text("❌ @|red " + line + "|@"));
+            }
+        }
+        System.out.println("---------------------------------------------------------");
+        System.out.println(Ansi.AUTO.text(String.format("@|blue Clusters: %d | Succeeded: %d | Failed: %d | Wall time: %.2f s|@",
+                outcomes.size(), outcomes.size() - failed, failed, seconds)));
+
+        return failed == 0 ? 0 : 1;
+    }
+}
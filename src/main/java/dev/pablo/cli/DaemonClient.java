@@ -0,0 +1,114 @@
+package dev.pablo.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import dev.pablo.api.UpdateCredCommand;
+
+/**
+ * Thin client that forwards a command line to a running {@link ServeCommand} daemon.
+ *
+ * <p>The working directory and the environment of this process go with the command line: the daemon
+ * resolves relative paths, reads .env and the VICIDIAL_CLI_* variables as this process would.</p>
+ */
+final class DaemonClient {
+    /** Longest environment variable value forwarded (in chars, at most 3 bytes each in modified UTF-8). */
+    private static final int MAX_VARIABLE_LENGTH = 16 * 1024;
+
+    private DaemonClient() {
+    }
+
+    /**
+     * Tells whether a command line must run in this process: {@code serve} and {@code batch} (a batch
+     * reads its rows from this process and already shares one client), and {@code updateCred} when the
+     * vault passphrase would be asked on this terminal, which the daemon cannot reach.
+     */
+    static boolean mustRunLocally(String[] args) {
+        List<String> arguments = Arrays.asList(args);
+        if (arguments.contains("serve") || arguments.contains("batch")) {
+            return true;
+        }
+        String passphrase = System.getenv(UpdateCredCommand.PASSPHRASE_ENV);
+        return arguments.contains("updateCred") && (passphrase == null || passphrase.isEmpty())
+                && System.console() != null;
+    }
+
+    /**
+     * Forwards the arguments to the daemon listening on the socket and relays its output.
+     *
+     * @param socket daemon socket path
+     * @param args   command line to execute
+     * @return the remote exit code, or null when no daemon could be reached (run locally instead)
+     */
+    static Integer tryForward(Path socket, String[] args) {
+        if (!Files.exists(socket)) {
+            return null;
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            return null;
+        }
+
+        try (channel;
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(channel));
+                DataInputStream in = new DataInputStream(Channels.newInputStream(channel))) {
+            Map<String, String> environment = new HashMap<>(System.getenv());
+            // The wire format limits strings to 64 KiB; the variables the CLI reads are far shorter.
+            environment.values().removeIf(value -> value.length() > MAX_VARIABLE_LENGTH);
+            DaemonProtocol.writeRequest(out, new DaemonProtocol.Request(args, Paths.get("").toAbsolutePath(), environment));
+            return relay(in);
+        } catch (IOException e) {
+            System.err.println("Lost connection to the vicidial-cli daemon: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Copies stdout/stderr frames to the local streams until the exit frame arrives.
+     */
+    private static int relay(DataInputStream in) throws IOException {
+        while (true) {
+            byte type;
+            try {
+                type = in.readByte();
+            } catch (EOFException e) {
+                throw new IOException("daemon closed the connection before reporting an exit code");
+            }
+            int length = in.readInt();
+            byte[] payload = in.readNBytes(length);
+
+            switch (type) {
+                case DaemonProtocol.STDOUT -> write(System.out, payload);
+                case DaemonProtocol.STDERR -> write(System.err, payload);
+                case DaemonProtocol.EXIT -> {
+                    return ByteBuffer.wrap(payload).getInt();
+                }
+                default -> throw new IOException("Unknown frame type " + type);
+            }
+        }
+    }
+
+    private static void write(PrintStream stream, byte[] payload) {
+        stream.write(payload, 0, payload.length);
+        stream.flush();
+    }
+}
@@ -0,0 +1,128 @@
+package dev.pablo.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Wire format spoken between {@link DaemonClient} and {@link ServeCommand} over a Unix domain socket.
+ *
+ * <p>Request: {@code int argc} followed by {@code argc} modified-UTF-8 strings (the arguments), the
+ * client's working directory as one more string, then {@code int envc} followed by {@code envc} pairs
+ * of strings (name, value): the client's environment. The daemon runs the command as if in the client
+ * process (see {@link dev.pablo.api.Invocation}).</p>
+ *
+ * <p>Response: a sequence of frames {@code byte type, int length, byte[length] payload}, where type is
+ * {@link #STDOUT}, {@link #STDERR} or {@link #EXIT}. The EXIT frame carries the exit code as a 4 byte
+ * int and is always the last frame.</p>
+ */
+final class DaemonProtocol {
+    static final byte STDOUT = 1;
+    static final byte STDERR = 2;
+    static final byte EXIT = 3;
+
+    /** Environment variable holding the daemon socket path. */
+    static final String SOCKET_ENV = "VICIDIAL_CLI_SOCKET";
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @return the socket path from {@link #SOCKET_ENV}, or ~/.vicidial-cli.sock
+     */
+    static Path defaultSocketPath() {
+        String configured = System.getenv(SOCKET_ENV);
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".vicidial-cli.sock");
+    }
+
+    /** A command line and the working directory and environment it was typed in. */
+    record Request(String[] args, Path directory, Map<String, String> environment) {
+    }
+
+    static void writeRequest(DataOutputStream out, Request request) throws IOException {
+        out.writeInt(request.args().length);
+        for (String arg : request.args()) {
+            out.writeUTF(arg);
+        }
+        out.writeUTF(request.directory().toString());
+        out.writeInt(request.environment().size());
+        for (Map.Entry<String, String> variable : request.environment().entrySet()) {
+            out.writeUTF(variable.getKey());
+            out.writeUTF(variable.getValue());
+        }
+        out.flush();
+    }
+
+    static Request readRequest(DataInputStream in) throws IOException {
+        int argc = in.readInt();
+        if (argc < 0 || argc > 10_000) {
+            throw new IOException("Invalid argument count: " + argc);
+        }
+        String[] args = new String[argc];
+        for (int i = 0; i < argc; i++) {
+            args[i] = in.readUTF();
+        }
+        Path directory = Paths.get(in.readUTF());
+        if (!directory.isAbsolute()) {
+            throw new IOException("Invalid working directory: " + directory);
+        }
+        int envc = in.readInt();
+        if (envc < 0 || envc > 10_000) {
+            throw new IOException("Invalid environment size: " + envc);
+        }
+        Map<String, String> environment = new HashMap<>();
+        for (int i = 0; i < envc; i++) {
+            environment.put(in.readUTF(), in.readUTF());
+        }
+        return new Request(args, directory, environment);
+    }
+
+    /**
+     * OutputStream that wraps every write into a frame of the given type. Frames from the stdout and
+     * stderr streams of one connection are serialized on the shared DataOutputStream.
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(type);
+                out.writeInt(len);
+                out.write(b, off, len);
+                out.flush();
+            }
+        }
+    }
+
+    static void writeExit(DataOutputStream out, int exitCode) throws IOException {
+        synchronized (out) {
+            out.writeByte(EXIT);
+            out.writeInt(4);
+            out.writeInt(exitCode);
+            out.flush();
+        }
+    }
+}
@@ -2,16 +2,40 @@ package dev.pablo.cli;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Help.Ansi;
+import picocli.CommandLine.ParseResult;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ScopeType;
 import picocli.CommandLine.Model.CommandSpec;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import dev.pablo.api.CampaignsCommand;
+import dev.pablo.api.ClientOptions;
+import dev.pablo.api.ClientProfile;
 import dev.pablo.api.LeadDetailCommand;
 import dev.pablo.api.DuplicateLeadCommand;
 import dev.pablo.api.UpdateCredCommand;
+import dev.pablo.api.ConfigurationException;
 import dev.pablo.api.CreatCredentialCommand;
+import dev.pablo.api.Deadline;
 import dev.pablo.api.DeleteDIDCommand;
+import dev.pablo.api.ExportLeadsCommand;
+import dev.pablo.api.ImportLeadsCommand;
+import dev.pablo.api.Invocation;
+import dev.pablo.api.RequestMetrics;
+import dev.pablo.api.VicidialClientSingleton;
 
 @Command(name = "vicidial-cli", mixinStandardHelpOptions = true, // Enables --help, -h, --version
     version = "Vicidial CLI 1.0", description = "Command-line tool for the Vicidial API.")
@@ -19,20 +43,211 @@ public class MainApplication implements Callable<Integer> {
     @CommandLine.Spec
     CommandSpec spec;
 
+    /** Format of the request metrics printed at the end of the run; null when disabled. */
+    private String metricsFormat;
+
+    /** File receiving the request metrics instead of stdout. */
+    private Path metricsFile;
+
+    @Option(names = { "--metrics" }, arity = "0..1", fallbackValue = "table", paramLabel = "FORMAT",
+        scope = ScopeType.INHERIT,
+        description = "Print per-function request metrics (latency p50/p90/p99/max, bytes, errors) at the end of the run: table (default), json or prometheus.")
+    void setMetricsFormat(String format) {
+        this.metricsFormat = format;
+    }
+
+    @Option(names = { "--metrics-file" }, paramLabel = "PATH", scope = ScopeType.INHERIT,
+        description = "Write the metrics to this file instead of stdout (implies --metrics).")
+    void setMetricsFile(Path file) {
+        this.metricsFile = file;
+    }
+
+    /** Client settings of this run, bound as {@link ClientOptions} while it executes. */
+    private boolean verbose;
+    private boolean noCache;
+    private double hedgePercentile = -1;
+
+    @Option(names = { "-v", "--verbose" }, scope = ScopeType.INHERIT,
+        description = "Print client diagnostics (e.g. current concurrency limit) to stderr.")
+    void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    @Option(names = { "--no-cache" }, scope = ScopeType.INHERIT,
+        description = "Do not answer read-only calls (campaigns, lead lookups, DID page) from the response cache.")
+    void setNoCache(boolean noCache) {
+        this.noCache = noCache;
+    }
+
+    @Option(names = { "--hedge" }, arity = "0..1", fallbackValue = "95", paramLabel = "PERCENTILE",
+        scope = ScopeType.INHERIT,
+        description = "Send a second copy of a read-only call (campaigns, lead lookups, DID page) that is slower than this latency percentile (default: 95) and keep the first response; overrides HEDGE_PERCENTILE. With -v, prints the hedge rate and p99 with and without hedging.")
+    void setHedge(double percentile) {
+        if (percentile < 0 || percentile >= 100) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--hedge must be at least 0 and below 100: " + percentile);
+        }
+        this.hedgePercentile = percentile;
+    }
+
+    /** Time budget of the whole run; null when unbounded. */
+    private Duration deadline;
+
+    @Option(names = { "--deadline" }, paramLabel = "DURATION", scope = ScopeType.INHERIT,
+        converter = DurationConverter.class,
+        description = "Stop the command after this long (e.g. 30s, 5m, 1h, 1500ms or PT2M): requests in flight are cancelled, pending items are reported as abandoned and request timeouts never exceed the time left.")
+    void setDeadline(Duration deadline) {
+        this.deadline = deadline;
+    }
+
+    /** Cluster profiles the subcommand runs against; null to use the .env configuration alone. */
+    private List<String> targets;
+
+    /** Profile file; null for the default location. */
+    private Path profilesFile;
+
+    @Option(names = { "--targets" }, paramLabel = "PROFILES", scope = ScopeType.INHERIT,
+        description = "Run the subcommand on these clusters at the same time: comma-separated profile names, or 'all'. Each cluster's output is printed in turn, followed by its exit code and timing.")
+    void setTargets(String names) {
+        List<String> parsed = Arrays.stream(names.split(",")).map(String::strip).filter(name -> !name.isEmpty()).toList();
+        if (parsed.isEmpty()) {
+            throw new CommandLine.ParameterException(spec.commandLine(), "--targets needs at least one profile name (or 'all').");
+        }
+        this.targets = parsed;
+    }
+
+    @Option(names = { "--profiles" }, paramLabel = "PATH", scope = ScopeType.INHERIT,
+        description = "Cluster profile file used by --targets (default: $VICIDIAL_CLI_PROFILES or ~/.vicidial-cli-profiles).")
+    void setProfilesFile(Path file) {
+        this.profilesFile = file;
+    }
+
     public static void main(String[] args) {
-        // Use Picocli as the command engine instead of custom API handling
+        // Forward to a running daemon (see ServeCommand) when one is configured.
+        String socket = System.getenv(DaemonProtocol.SOCKET_ENV);
+        if (socket != null && !socket.isBlank() && !DaemonClient.mustRunLocally(args)) {
+            Integer remoteExitCode = DaemonClient.tryForward(Paths.get(socket), args);
+            if (remoteExitCode != null) {
+                System.exit(remoteExitCode);
+            }
+        }
+
+        int exitCode = createCommandLine().execute(args);
+
+        System.exit(exitCode);
+    }
 
-        int exitCode = new CommandLine(new MainApplication())
+    /**
+     * Builds the picocli command tree with every subcommand registered.
+     *
+     * @return a fresh CommandLine ready to execute one command line
+     */
+    public static CommandLine createCommandLine() {
+        // Use Picocli as the command engine instead of custom API handling
+        MainApplication app = new MainApplication();
+        return new CommandLine(app)
+                // Relative to the caller's working directory, also for a command forwarded to the daemon.
+                .registerConverter(Path.class, value -> Invocation.current().resolve(value))
+                .setExecutionStrategy(app::executeWithOptions)
+                .setExecutionExceptionHandler(MainApplication::handleExecutionException)
                 .addSubcommand("createCreds", CreatCredentialCommand.class)
                 .addSubcommand("duplicateInList", DuplicateLeadCommand.class)
                 .addSubcommand("getAllCampaigns", CampaignsCommand.class)
                 .addSubcommand("leadDetails", LeadDetailCommand.class)
                 .addSubcommand("updateCred", UpdateCredCommand.class)
                 .addSubcommand("deleteDIDs", DeleteDIDCommand.class)
+                .addSubcommand("exportLeads", ExportLeadsCommand.class)
+                .addSubcommand("importLeads", ImportLeadsCommand.class)
+                .addSubcommand("serve", ServeCommand.class)
+                .addSubcommand("batch", BatchCommand.class);
+    }
 
-                .execute(args);
+    /**
+     * Binds -v, --no-cache and --hedge to this run only (see {@link ClientOptions}), so a batch row or a
+     * daemon command does not change them for the commands that follow it.
+     */
+    private int executeWithOptions(ParseResult parseResult) {
+        try (ClientOptions options = ClientOptions.bind(verbose, noCache, hedgePercentile)) {
+            return executeAndReportMetrics(parseResult);
+        }
+    }
 
-        System.exit(exitCode);
+    /**
+     * Runs the selected subcommand, then dumps the request metrics when --metrics or --metrics-file
+     * was given.
+     *
+     * <p>With --deadline, the subcommand runs under a {@link Deadline}: when it expires, or when the
+     * subcommand fails with an unexpected exception, every request still in flight is cancelled.</p>
+     *
+     * <p>With --targets, the subcommand runs once per selected cluster profile (see
+     * {@link ClusterFanOut}); each cluster gets its own deadline.</p>
+     */
+    private int executeAndReportMetrics(ParseResult parseResult) {
+        // The runs started by --targets parse the same command line again, with a profile bound.
+        boolean clusterRun = targets != null && ClientProfile.current() != null;
+        int exitCode;
+        if (targets != null && !clusterRun && parseResult.subcommand() != null) {
+            ClusterFanOut fanOut = new ClusterFanOut(profilesFile != null ? profilesFile : ClientProfile.defaultPath(), targets);
+            exitCode = fanOut.run(parseResult.originalArgs(), parseResult.subcommand().commandSpec().name());
+        } else if (deadline == null) {
+            exitCode = new CommandLine.RunLast().execute(parseResult);
+        } else {
+            exitCode = executeWithDeadline(parseResult);
+        }
+        if (clusterRun) {
+            // Reported once, for every cluster, by the run that fanned out.
+            return exitCode;
+        }
+        VicidialClientSingleton.reportHedging();
+
+        if (metricsFormat == null && metricsFile == null) {
+            return exitCode;
+        }
+        try {
+            String report = RequestMetrics.getInstance().render(metricsFormat != null ? metricsFormat : "table");
+            if (metricsFile != null) {
+                Files.writeString(metricsFile, report, StandardCharsets.UTF_8);
+            } else {
+                System.out.println();
+                System.out.print(report);
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Metrics error:|@ " + e.getMessage()));
+            return exitCode == 0 ? 1 : exitCode;
+        }
+        return exitCode;
+    }
+
+    private int executeWithDeadline(ParseResult parseResult) {
+        try (Deadline scope = Deadline.start(deadline)) {
+            int exitCode;
+            try {
+                exitCode = new CommandLine.RunLast().execute(parseResult);
+            } catch (RuntimeException e) {
+                scope.cancel("the command failed");
+                throw e;
+            }
+            if (scope.isOver()) {
+                System.err.println(Ansi.AUTO.text("⏱ @|yellow Deadline of " + Deadline.format(deadline)
+                        + " reached: " + scope.getCancelledRequests() + " request(s) cancelled in flight.|@"));
+                return exitCode == 0 ? 1 : exitCode;
+            }
+            // Nothing of this run may outlive it.
+            scope.cancel("the command ended");
+            return exitCode;
+        }
+    }
+
+    /**
+     * Reports a missing configuration as a one-line error; any other exception keeps picocli's default
+     * handling (stack trace).
+     */
+    private static int handleExecutionException(Exception e, CommandLine commandLine, ParseResult parseResult)
+            throws Exception {
+        if (e instanceof ConfigurationException) {
+            System.err.println(Ansi.AUTO.text("❌ @|red " + e.getMessage() + "|@"));
+            return 1;
+        }
+        throw e;
     }
 
     @Override
@@ -43,4 +258,39 @@ public class MainApplication implements Callable<Integer> {
 
         return 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Converts "30s", "5m", "1h", "1500ms", a plain number of seconds or an ISO-8601 duration
+     * ("PT2M") to a positive Duration.
+     */
+    static class DurationConverter implements CommandLine.ITypeConverter<Duration> {
+        private static final Pattern SIMPLE = Pattern.compile("(\\d+)(ms|s|m|h)?");
+
+        @Override
+        public Duration convert(String value) {
+            String text = value.trim().toLowerCase();
+            Duration duration;
+            Matcher matcher = SIMPLE.matcher(text);
+            if (matcher.matches()) {
+                long amount = Long.parseLong(matcher.group(1));
+                String unit = matcher.group(2) == null ? "s" : matcher.group(2);
+                duration = switch (unit) {
+                    case "ms" -> Duration.ofMillis(amount);
+                    case "m" -> Duration.ofMinutes(amount);
+                    case "h" -> Duration.ofHours(amount);
+                    default -> Duration.ofSeconds(amount);
+                };
+            } else {
+                try {
+                    duration = Duration.parse(text.toUpperCase());
+                } catch (DateTimeParseException e) {
+                    throw new CommandLine.TypeConversionException("Invalid duration: " + value + " (e.g. 30s, 5m, 1h, PT2M)");
+                }
+            }
+            if (!duration.isPositive()) {
+                throw new CommandLine.TypeConversionException("The duration must be positive: " + value);
+            }
+            return duration;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package dev.pablo.cli;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.Callable;
+
+import dev.pablo.api.Invocation;
+import dev.pablo.api.RunContext;
+import dev.pablo.api.VicidialClientSingleton;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Help.Ansi;
+import picocli.CommandLine.Option;
+
+/**
+ * Runs vicidial-cli as a long-lived daemon that executes subcommands received over a Unix domain socket.
+ *
+ * <p>The daemon keeps a warm {@link VicidialClientSingleton} (configuration, HttpClient and its TLS
+ * connection pool) per client configuration, shared by every invocation. Each connection carries one command line, executed on
+ * its own virtual thread through the same picocli subcommands registered in {@link MainApplication};
+ * stdout, stderr and the exit code are streamed back to the thin client (see {@link DaemonClient}).</p>
+ *
+ * <p>Usage:
+ * <pre>
+ *   vicidial-cli serve [--socket &lt;path&gt;]
+ *   VICIDIAL_CLI_SOCKET=&lt;path&gt; vicidial-cli getAllCampaigns
+ * </pre>
+ * </p>
+ *
+ * <p>Each command runs with the working directory and environment of the client that sent it (see
+ * {@link Invocation}).</p>
+ *
+ * <p>The socket file is created with owner-only permissions since the daemon holds the API credentials:
+ * it is bound inside a new owner-only directory, restricted, then moved into place.</p>
+ */
+@Command(name = "serve", description = {
+    "Runs a persistent daemon that keeps one warm Vicidial client and executes commands sent over a Unix domain socket.",
+    "Clients forward their commands to it when VICIDIAL_CLI_SOCKET points at the socket.",
+    "Usage: vicidial-cli serve [--socket <path>]"
+}, mixinStandardHelpOptions = true)
+public class ServeCommand implements Callable<Integer> {
+
+    @Option(names = { "-s", "--socket" }, description = "Unix domain socket path (default: $VICIDIAL_CLI_SOCKET or ~/.vicidial-cli.sock).")
+    private Path socket;
+
+    @Override
+    public Integer call() {
+        Path path = socket != null ? socket : DaemonProtocol.defaultSocketPath();
+
+        try {
+            // Fail on configuration errors now rather than on the first forwarded command.
+            VicidialClientSingleton.getInstance();
+        } catch (IllegalStateException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red " + e.getMessage() + "|@"));
+            return 1;
+        }
+
+        // Concurrent sessions must not mix their output.
+        ThreadRoutedOutputStream.install();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            Files.deleteIfExists(path);
+            bindPrivately(server, path);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ignored) {
+                    // best effort
+                }
+            }));
+
+            System.out.println(Ansi.AUTO.text("✅ @|green vicidial-cli daemon listening on " + path + "|@"));
+
+            // Sessions run with the daemon's own options (e.g. serve -v), not with those of earlier sessions.
+            RunContext context = RunContext.capture();
+            while (true) {
+                SocketChannel connection = server.accept();
+                Thread.ofVirtual().name("vicidial-cli-session").start(context.wrap(() -> handle(connection)));
+            }
+        } catch (IOException e) {
+            System.err.println(Ansi.AUTO.text("❌ @|red Daemon error:|@ " + e.getMessage()));
+            return 1;
+        }
+    }
+
+    /**
+     * Executes the command line received on a connection and streams its output back.
+     */
+    private void handle(SocketChannel connection) {
+        try (connection;
+                DataInputStream in = new DataInputStream(Channels.newInputStream(connection));
+                DataOutputStream out = new DataOutputStream(Channels.newOutputStream(connection))) {
+            DaemonProtocol.Request request = DaemonProtocol.readRequest(in);
+            String[] args = request.args();
+
+            int exitCode;
+            if (args.length > 0 && args[0].equals("serve")) {
+                new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDERR)
+                        .write("The daemon cannot start another daemon.\n".getBytes(StandardCharsets.UTF_8));
+                exitCode = 1;
+            } else {
+                ThreadRoutedOutputStream stdout = ThreadRoutedOutputStream.stdout();
+                ThreadRoutedOutputStream stderr = ThreadRoutedOutputStream.stderr();
+                stdout.route(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDOUT));
+                stderr.route(new DaemonProtocol.FrameOutputStream(out, DaemonProtocol.STDERR));
+                try (Invocation invocation = Invocation.bind(request.directory(), request.environment())) {
+                    CommandLine commandLine = MainApplication.createCommandLine();
+                    exitCode = commandLine.execute(args);
+                    System.out.flush();
+                    System.err.flush();
+                } finally {
+                    stdout.route(null);
+                    stderr.route(null);
+                }
+            }
+
+            DaemonProtocol.writeExit(out, exitCode);
+        } catch (IOException e) {
+            // Client went away; nothing left to report to it.
+        }
+    }
+
+    /**
+     * Binds the server to the path without the socket ever being reachable with looser permissions: it
+     * is bound in a new directory only the owner can enter, restricted to the owner, then renamed to
+     * the path.
+     */
+    private static void bindPrivately(ServerSocketChannel server, Path path) throws IOException {
+        Path directory;
+        try {
+            directory = Files.createTempDirectory(path.toAbsolutePath().getParent(), ".vicidial-cli-",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system: rely on the directory permissions.
+            server.bind(UnixDomainSocketAddress.of(path));
+            return;
+        }
+        Path staged = directory.resolve("daemon.sock");
+        try {
+            server.bind(UnixDomainSocketAddress.of(staged));
+            restrictPermissions(staged);
+            Files.move(staged, path, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staged);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void restrictPermissions(Path path) {
+        try {
+            Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException ignored) {
+            // Not a POSIX file system: rely on the directory permissions.
+        }
+    }
+}
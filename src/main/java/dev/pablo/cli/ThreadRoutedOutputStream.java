@@ -0,0 +1,89 @@
+package dev.pablo.cli;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import dev.pablo.api.RunContext;
+
+/**
+ * OutputStream that forwards writes to a per-thread target, falling back to a default stream.
+ *
+ * <p>Installed behind {@code System.out}/{@code System.err} so several commands can run in one JVM
+ * and still have their output captured separately. The target is not inherited: it is carried, with
+ * the rest of the run's state, to the threads and callbacks a command wraps with a {@link RunContext}.</p>
+ */
+final class ThreadRoutedOutputStream extends OutputStream {
+    private static ThreadRoutedOutputStream stdout;
+    private static ThreadRoutedOutputStream stderr;
+
+    private final OutputStream fallback;
+    private final ThreadLocal<OutputStream> target = RunContext.newCarried();
+
+    ThreadRoutedOutputStream(OutputStream fallback) {
+        this.fallback = fallback;
+    }
+
+    /**
+     * Replaces System.out/System.err with routed streams, once per JVM. Later calls keep the streams
+     * already installed, so the daemon and batch runs inside it share them.
+     */
+    static synchronized void install() {
+        if (stdout == null) {
+            stdout = new ThreadRoutedOutputStream(new FileOutputStream(FileDescriptor.out));
+            stderr = new ThreadRoutedOutputStream(new FileOutputStream(FileDescriptor.err));
+            System.setOut(new PrintStream(stdout, true, StandardCharsets.UTF_8));
+            System.setErr(new PrintStream(stderr, true, StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * @return the stream behind System.out; {@link #install()} must have been called
+     */
+    static synchronized ThreadRoutedOutputStream stdout() {
+        return stdout;
+    }
+
+    /**
+     * @return the stream behind System.err; {@link #install()} must have been called
+     */
+    static synchronized ThreadRoutedOutputStream stderr() {
+        return stderr;
+    }
+
+    /**
+     * Routes the output of the current thread to the given stream.
+     *
+     * @param stream target, or null to restore the fallback stream
+     */
+    void route(OutputStream stream) {
+        if (stream == null) {
+            target.remove();
+        } else {
+            target.set(stream);
+        }
+    }
+
+    private OutputStream current() {
+        OutputStream stream = target.get();
+        return stream != null ? stream : fallback;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        current().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        current().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        current().flush();
+    }
+}
@@ -0,0 +1,395 @@
+package dev.pablo.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Append-only, encrypted file of rotated credentials.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ *   int    magic "VCRV"
+ *   short  version
+ *   int    PBKDF2 iterations
+ *   byte[16] salt
+ *   byte[28] passphrase check: nonce and tag of an empty AES-256-GCM message
+ *   record *:
+ *     int      length of nonce + ciphertext
+ *     byte[12] nonce
+ *     byte[]   AES-256-GCM ciphertext (128-bit tag) of: UTF id, UTF password, boolean user updated,
+ *              boolean phone updated, long rotation time (epoch millis), boolean pending (absent in
+ *              records written before it existed, read as false)
+ * </pre>
+ * The key is derived from a passphrase with PBKDF2-HMAC-SHA256. Every record has its own random nonce
+ * and is authenticated together with the header, so a record cannot be moved to another file.</p>
+ *
+ * <p>A password is appended as pending before it is sent, and again with the outcome once the updates
+ * complete, so a password that may be in effect is never only in memory. Records are appended and
+ * forced to disk one by one, as agents are rotated: a crash loses at most the record being written,
+ * whose torn tail is dropped (truncated) the next time the file is opened for appending. Damage
+ * anywhere else fails the open. The file is created with owner-only permissions, and a vault open for
+ * appending holds an exclusive lock on it, so two runs never write the header or append from the same
+ * stale position.</p>
+ */
+public class CredentialVault implements Closeable {
+    private static final int MAGIC = 0x56435256; // "VCRV"
+    private static final short VERSION = 1;
+    private static final int ITERATIONS = 310_000;
+    private static final int SALT_BYTES = 16;
+    private static final int NONCE_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_BYTES = 4 + 2 + 4 + SALT_BYTES;
+    private static final int CHECK_BYTES = NONCE_BYTES + TAG_BITS / 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * One rotated credential.
+     *
+     * @param id           user and phone identifier
+     * @param password     new password
+     * @param userUpdated  whether the user now has this password
+     * @param phoneUpdated whether the phone now has this password
+     * @param rotatedAt    when the updates completed (when they were sent, for a pending entry)
+     * @param pending      whether the updates were sent without their outcome being known yet: the
+     *                     user and the phone may have this password or the previous one
+     */
+    public record Entry(String id, String password, boolean userUpdated, boolean phoneUpdated, Instant rotatedAt,
+            boolean pending) {
+        /**
+         * @return an entry recorded before the updates of {@code password} are sent
+         */
+        public static Entry pending(String id, String password, Instant sentAt) {
+            return new Entry(id, password, false, false, sentAt, true);
+        }
+
+        /**
+         * @return true when both the user and the phone have the new password
+         */
+        public boolean isComplete() {
+            return userUpdated && phoneUpdated && !pending;
+        }
+    }
+
+    private final FileChannel channel;
+    private final SecretKey key;
+    private final byte[] header;
+    private final boolean writable;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private CredentialVault(FileChannel channel, SecretKey key, byte[] header, boolean writable) {
+        this.channel = channel;
+        this.key = key;
+        this.header = header;
+        this.writable = writable;
+    }
+
+    /**
+     * Opens a vault for appending, creating it when the file does not exist (or is empty).
+     *
+     * @param path       vault file
+     * @param passphrase passphrase the key is derived from
+     * @return the vault, positioned for appending
+     * @throws IOException when the file cannot be read or written, is not a vault, the passphrase is
+     *                     wrong, or another run has the vault open for appending
+     */
+    public static CredentialVault open(Path path, char[] passphrase) throws IOException {
+        createOwnerOnly(path);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Released when the channel is closed.
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Vault " + path + " is in use by another run.");
+            }
+            CredentialVault vault = channel.size() == 0 ? create(channel, passphrase) : read(channel, passphrase, true);
+            channel.position(channel.size());
+            return vault;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing vault to read its entries; the file is never modified.
+     *
+     * @param path       vault file
+     * @param passphrase passphrase the key is derived from
+     * @return the vault, which cannot be appended to
+     * @throws IOException when the file cannot be read, is not a vault, or the passphrase is wrong
+     */
+    public static CredentialVault openReadOnly(Path path, char[] passphrase) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() == 0) {
+                throw new IOException("Empty vault.");
+            }
+            return read(channel, passphrase, false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static CredentialVault create(FileChannel channel, char[] passphrase) throws IOException {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                .putInt(MAGIC).putShort(VERSION).putInt(ITERATIONS).put(salt);
+        CredentialVault vault = new CredentialVault(channel, deriveKey(passphrase, salt, ITERATIONS), header.array(), true);
+
+        // An empty message sealed with the key, so a wrong passphrase is caught before anything is added.
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+        ByteBuffer start = ByteBuffer.allocate(HEADER_BYTES + CHECK_BYTES)
+                .put(header.array()).put(nonce).put(vault.seal(nonce, new byte[0]));
+        start.flip();
+        while (start.hasRemaining()) {
+            channel.write(start);
+        }
+        channel.force(true);
+        return vault;
+    }
+
+    /**
+     * Reads the entries of a vault. A torn last record (the file ends inside it) is skipped, and cut
+     * off when {@code writable}; any other damage fails the read.
+     */
+    private static CredentialVault read(FileChannel channel, char[] passphrase, boolean writable) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getShort() != VERSION) {
+            throw new IOException("Not a credential vault (or an unsupported version).");
+        }
+        int iterations = header.getInt();
+        byte[] salt = new byte[SALT_BYTES];
+        header.get(salt);
+
+        CredentialVault vault = new CredentialVault(channel, deriveKey(passphrase, salt, iterations), header.array(),
+                writable);
+        ByteBuffer check = ByteBuffer.allocate(CHECK_BYTES);
+        readFully(channel, check, HEADER_BYTES);
+        try {
+            vault.unseal(check.array());
+        } catch (AEADBadTagException e) {
+            throw new IOException("Wrong passphrase (or corrupted vault).");
+        }
+
+        long position = HEADER_BYTES + CHECK_BYTES;
+        long size = channel.size();
+        while (position + 4 <= size) {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(channel, length, position);
+            int recordBytes = length.flip().getInt();
+            if (position + 4 + Math.max(recordBytes, 0) > size) {
+                // The file ends inside this record: an append interrupted by a crash.
+                break;
+            }
+            if (recordBytes <= NONCE_BYTES || recordBytes > MAX_RECORD_BYTES) {
+                if (isZeroTail(channel, position, size)) {
+                    break;
+                }
+                throw new IOException("Corrupted vault record at byte " + position + ".");
+            }
+            ByteBuffer record = ByteBuffer.allocate(recordBytes);
+            readFully(channel, record, position + 4);
+            try {
+                vault.entries.add(vault.decrypt(record.array()));
+            } catch (AEADBadTagException e) {
+                throw new IOException("Corrupted vault record at byte " + position + ".");
+            }
+            position += 4 + recordBytes;
+        }
+        if (position < size && writable) {
+            // Partial record of an interrupted append.
+            channel.truncate(position);
+        }
+        return vault;
+    }
+
+    /**
+     * @return every entry, in the order they were appended (an ID rotated twice appears twice)
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Encrypts and appends an entry, then forces it to disk.
+     *
+     * @param entry rotated credential
+     * @throws IOException when the record cannot be written
+     */
+    public synchronized void append(Entry entry) throws IOException {
+        if (!writable) {
+            throw new IOException("The vault is open read-only.");
+        }
+        byte[] nonce = new byte[NONCE_BYTES];
+        RANDOM.nextBytes(nonce);
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(plain)) {
+            out.writeUTF(entry.id());
+            out.writeUTF(entry.password());
+            out.writeBoolean(entry.userUpdated());
+            out.writeBoolean(entry.phoneUpdated());
+            out.writeLong(entry.rotatedAt().toEpochMilli());
+            out.writeBoolean(entry.pending());
+        }
+
+        byte[] sealed = seal(nonce, plain.toByteArray());
+        ByteBuffer record = ByteBuffer.allocate(4 + NONCE_BYTES + sealed.length)
+                .putInt(NONCE_BYTES + sealed.length).put(nonce).put(sealed);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        channel.force(false);
+        entries.add(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Encrypts a message with the header as associated data.
+     *
+     * @return ciphertext followed by the tag
+     */
+    private byte[] seal(byte[] nonce, byte[] plain) throws IOException {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(header);
+            return cipher.doFinal(plain);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not encrypt the vault record.", e);
+        }
+    }
+
+    /**
+     * Decrypts a nonce followed by a sealed message.
+     *
+     * @throws AEADBadTagException when the key is wrong or the record was altered
+     */
+    private byte[] unseal(byte[] record) throws IOException, AEADBadTagException {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, record, 0, NONCE_BYTES));
+            cipher.updateAAD(header);
+            return cipher.doFinal(record, NONCE_BYTES, record.length - NONCE_BYTES);
+        } catch (AEADBadTagException e) {
+            throw e;
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not decrypt the vault record.", e);
+        }
+    }
+
+    private Entry decrypt(byte[] record) throws IOException, AEADBadTagException {
+        byte[] plain = unseal(record);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(plain))) {
+            return new Entry(in.readUTF(), in.readUTF(), in.readBoolean(), in.readBoolean(),
+                    Instant.ofEpochMilli(in.readLong()), in.available() > 0 && in.readBoolean());
+        }
+    }
+
+    private static SecretKey deriveKey(char[] passphrase, byte[] salt, int iterations) throws IOException {
+        if (iterations <= 0) {
+            throw new IOException("Invalid key derivation parameters.");
+        }
+        KeySpec spec = new PBEKeySpec(passphrase, salt, iterations, 256);
+        try {
+            byte[] key = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256").generateSecret(spec).getEncoded();
+            try {
+                return new SecretKeySpec(key, "AES");
+            } finally {
+                Arrays.fill(key, (byte) 0);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not derive the vault key.", e);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Truncated vault.");
+            }
+        }
+    }
+
+    /**
+     * @return true when every byte from {@code position} to the end of the file is zero, as left by a
+     *         crash after the file grew but before the record reached the disk
+     */
+    private static boolean isZeroTail(FileChannel channel, long position, long size) throws IOException {
+        if (size - position > MAX_RECORD_BYTES + 4) {
+            return false;
+        }
+        ByteBuffer tail = ByteBuffer.allocate((int) (size - position));
+        readFully(channel, tail, position);
+        for (byte b : tail.array()) {
+            if (b != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the file, when it does not exist, already readable by the owner only, so that it is never
+     * visible to others even briefly.
+     */
+    private static void createOwnerOnly(Path path) throws IOException {
+        if (Files.exists(path)) {
+            return;
+        }
+        try {
+            Files.createFile(path, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system: rely on the directory permissions.
+            Files.createFile(path);
+        } catch (FileAlreadyExistsException e) {
+            // Created concurrently: opened as an existing vault.
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.pablo.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal CSV line parser (and writer) used by the bulk commands.
+ *
+ * <p>Supports comma separated values, fields wrapped in double quotes (which may contain commas)
+ * and escaped quotes ({@code ""}). Values are trimmed unless quoted.</p>
+ */
+public class CsvParser {
+
+    private CsvParser() {
+    }
+
+    /**
+     * Splits a single CSV line into its fields.
+     *
+     * @param line raw CSV line (without line terminator)
+     * @return list of field values, never null
+     */
+    public static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        inQuotes = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(quoted ? current.toString() : current.toString().trim());
+                current.setLength(0);
+                quoted = false;
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(quoted ? current.toString() : current.toString().trim());
+
+        return fields;
+    }
+
+    /**
+     * Joins fields into a single CSV line, quoting the ones that need it.
+     *
+     * @param fields field values (null is written as an empty field)
+     * @return CSV line (without line terminator)
+     */
+    public static String formatLine(String... fields) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(escape(fields[i]));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Quotes a field when it contains a comma, a quote, a line break or surrounding spaces, so that
+     * {@link #parseLine(String)} reads it back unchanged.
+     *
+     * @param field field value (null is treated as empty)
+     * @return the field ready to be written to a CSV line
+     */
+    public static String escape(String field) {
+        if (field == null || field.isEmpty()) {
+            return "";
+        }
+        boolean needsQuotes = field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0
+                || Character.isWhitespace(field.charAt(0))
+                || Character.isWhitespace(field.charAt(field.length() - 1));
+        if (!needsQuotes) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,181 @@
+package dev.pablo.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indexed, read-only view over the DIDs parsed from the admin DID page.
+ *
+ * <p>The inventory is built once from {@link HtmlParser#ParseDIDs(String)} output and answers lookups
+ * without scanning the whole list:
+ * <ul>
+ *   <li>callerId → DidModel through an open-addressing hash table keyed by the callerId as a primitive
+ *   {@code long} (callerIds that are not plain numbers, e.g. "default", use a regular map)</li>
+ *   <li>secondary indexes by group, carrier and active flag</li>
+ * </ul>
+ * When several DIDs share a callerId the first one parsed wins, like a linear scan would.</p>
+ */
+public class DidInventory {
+    private static final long EMPTY = -1L;
+
+    private final List<DidModel> dids;
+    private final long[] keys;
+    private final DidModel[] values;
+    private final int mask;
+    private final Map<String, DidModel> byTextCallerId = new HashMap<>();
+    private final Map<String, List<DidModel>> byGroup = new HashMap<>();
+    private final Map<String, List<DidModel>> byCarrier = new HashMap<>();
+    private final Map<Character, List<DidModel>> byActive = new HashMap<>();
+
+    private DidInventory(List<DidModel> dids) {
+        this.dids = Collections.unmodifiableList(new ArrayList<>(dids));
+
+        // Keep the load factor at or below 0.5 so probe sequences stay short.
+        int capacity = Integer.highestOneBit(Math.max(2, dids.size()) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new DidModel[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+
+        for (DidModel did : this.dids) {
+            long key = toKey(did.getCallerId());
+            if (key == EMPTY) {
+                if (did.getCallerId() != null) {
+                    byTextCallerId.putIfAbsent(did.getCallerId(), did);
+                }
+            } else {
+                putIfAbsent(key, did);
+            }
+            byGroup.computeIfAbsent(did.getGroup(), k -> new ArrayList<>()).add(did);
+            byCarrier.computeIfAbsent(did.getCarrier(), k -> new ArrayList<>()).add(did);
+            byActive.computeIfAbsent(did.getActive(), k -> new ArrayList<>()).add(did);
+        }
+    }
+
+    /**
+     * Builds an inventory over the provided DIDs.
+     *
+     * @param dids parsed DIDs, in page order
+     * @return indexed inventory
+     */
+    public static DidInventory of(List<DidModel> dids) {
+        return new DidInventory(dids);
+    }
+
+    /**
+     * Finds the DID with the given callerId.
+     *
+     * @param callerId caller id to match (exact match)
+     * @return matched DidModel or null if not found
+     */
+    public DidModel findByCallerId(String callerId) {
+        if (callerId == null) {
+            return null;
+        }
+        long key = toKey(callerId);
+        return key == EMPTY ? byTextCallerId.get(callerId) : get(key);
+    }
+
+    /**
+     * Returns the DIDs assigned to a user group.
+     *
+     * @param group group name
+     * @return matched DIDs in page order, empty when none
+     */
+    public List<DidModel> findByGroup(String group) {
+        return byGroup.getOrDefault(group, List.of());
+    }
+
+    /**
+     * Returns the DIDs routed through a carrier.
+     *
+     * @param carrier carrier name
+     * @return matched DIDs in page order, empty when none
+     */
+    public List<DidModel> findByCarrier(String carrier) {
+        return byCarrier.getOrDefault(carrier, List.of());
+    }
+
+    /**
+     * Returns the DIDs with the given active flag ('Y' or 'N').
+     *
+     * @param active active flag
+     * @return matched DIDs in page order, empty when none
+     */
+    public List<DidModel> findByActive(char active) {
+        return byActive.getOrDefault(active, List.of());
+    }
+
+    /**
+     * @return every DID in page order
+     */
+    public List<DidModel> all() {
+        return dids;
+    }
+
+    /**
+     * @return number of DIDs in the inventory
+     */
+    public int size() {
+        return dids.size();
+    }
+
+    private DidModel get(long key) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private void putIfAbsent(long key, DidModel did) {
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = did;
+    }
+
+    private int slot(long key) {
+        // MurmurHash3 finalizer: spreads sequential phone numbers across the table.
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    /**
+     * Converts a callerId into its numeric key, or EMPTY when it is not a canonical number
+     * (non-digits, leading zeros or too long) and must be matched as text.
+     */
+    private static long toKey(String callerId) {
+        if (callerId == null || callerId.isEmpty() || callerId.length() > 18) {
+            return EMPTY;
+        }
+        if (callerId.length() > 1 && callerId.charAt(0) == '0') {
+            return EMPTY;
+        }
+        long value = 0;
+        for (int i = 0; i < callerId.length(); i++) {
+            char c = callerId.charAt(i);
+            if (c < '0' || c > '9') {
+                return EMPTY;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
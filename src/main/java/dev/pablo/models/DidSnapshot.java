@@ -0,0 +1,219 @@
+package dev.pablo.models;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of the DID table, kept on disk between runs.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ *   int    magic "VDID"
+ *   short  version
+ *   long   creation time (epoch millis)
+ *   string source URL
+ *   int    record count
+ *   record * count:
+ *     byte   deleted flag (0/1)
+ *     int    id
+ *     char   active
+ *     string callerId, description, carrier, group, route, rec, modify
+ * </pre>
+ * where a string is an int byte length (-1 for null) followed by UTF-8 bytes.</p>
+ *
+ * <p>The file is memory-mapped when opened. Removing a DID flips its deleted flag in place, so the
+ * snapshot never lists a DID this tool already deleted without being rewritten.</p>
+ */
+public class DidSnapshot implements Closeable {
+    private static final int MAGIC = 0x56444944; // "VDID"
+    private static final short VERSION = 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final Instant createdAt;
+    private final String sourceUrl;
+    private final List<DidModel> dids = new ArrayList<>();
+    private final Map<Integer, Integer> flagOffsets = new HashMap<>();
+
+    private DidSnapshot(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+                throw new IOException("Not a DID snapshot (or an unsupported version).");
+            }
+            this.createdAt = Instant.ofEpochMilli(buffer.getLong());
+            this.sourceUrl = readString();
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                int flagOffset = buffer.position();
+                boolean deleted = buffer.get() != 0;
+                DidModel did = new DidModel();
+                did.setId(buffer.getInt());
+                did.setActive(buffer.getChar());
+                did.setCallerId(readString());
+                did.setDescription(readString());
+                did.setCarrier(readString());
+                did.setGroup(readString());
+                did.setRoute(readString());
+                did.setRec(readString());
+                did.setModify(readString());
+                if (!deleted) {
+                    dids.add(did);
+                    flagOffsets.putIfAbsent(did.getId(), flagOffset);
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Truncated or corrupted DID snapshot.", e);
+        }
+    }
+
+    /**
+     * Writes a new snapshot, replacing the previous one atomically.
+     *
+     * @param path      snapshot file
+     * @param sourceUrl page the DIDs were parsed from
+     * @param dids      parsed DIDs, in page order
+     * @throws IOException when the file cannot be written
+     */
+    public static void write(Path path, String sourceUrl, List<DidModel> dids) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // A temp file of its own, so concurrent writers (one per cluster under --targets) never interleave.
+        Path temp = Files.createTempFile(parent, path.getFileName() + ".", ".tmp");
+        try {
+            writeRecords(temp, sourceUrl, dids);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeRecords(Path temp, String sourceUrl, List<DidModel> dids) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+            writeString(out, sourceUrl);
+            out.writeInt(dids.size());
+            for (DidModel did : dids) {
+                out.writeByte(0);
+                out.writeInt(did.getId());
+                out.writeChar(did.getActive());
+                writeString(out, did.getCallerId());
+                writeString(out, did.getDescription());
+                writeString(out, did.getCarrier());
+                writeString(out, did.getGroup());
+                writeString(out, did.getRoute());
+                writeString(out, did.getRec());
+                writeString(out, did.getModify());
+            }
+        }
+    }
+
+    /**
+     * Opens (memory-maps) an existing snapshot.
+     *
+     * @param path snapshot file
+     * @return the snapshot
+     * @throws IOException when the file is missing, unreadable or not a valid snapshot
+     */
+    public static DidSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new DidSnapshot(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return when the snapshot was taken
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return age of the snapshot
+     */
+    public Duration getAge() {
+        return Duration.between(createdAt, Instant.now());
+    }
+
+    /**
+     * @return page the DIDs were parsed from
+     */
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+
+    /**
+     * @return DIDs not marked as deleted, in page order
+     */
+    public List<DidModel> getDids() {
+        return dids;
+    }
+
+    /**
+     * Flags a DID as deleted directly in the file.
+     *
+     * @param id DID identifier
+     * @return false when the DID is not in the snapshot (or already flagged)
+     * @throws IOException when the change cannot be written
+     */
+    public synchronized boolean markDeleted(int id) throws IOException {
+        Integer offset = flagOffsets.remove(id);
+        if (offset == null) {
+            return false;
+        }
+        buffer.put(offset, (byte) 1);
+        buffer.force(offset, 1);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readString() {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid string length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
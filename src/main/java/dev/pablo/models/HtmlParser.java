@@ -1,63 +1,107 @@
 package dev.pablo.models;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 import org.jsoup.select.Elements;
 
 public class HtmlParser {
+    // Rows of the DID table contain the class 'records_list_'.
+    private static final String DID_ROW_QUERY = "tr[class*='records_list_']";
+
     public static List<DidModel> ParseDIDs(String html) {
 
         List<DidModel> dids = new ArrayList<>();
         Document doc = Jsoup.parse(html);
 
         // Select all 'tr' elements that conitains the class 'records_list_'.
-        Elements rows = doc.select("tr[class*='records_list_']");
+        Elements rows = doc.select(DID_ROW_QUERY);
 
         for (Element row : rows) {
-            // get all cell of each row.
-            Elements cells = row.select("td");
-            DidModel did = new DidModel();
-
-            for (int index = 0; index < cells.size(); index++) {
-                // build up a did based on positions of each sub-cell.
-                switch (index) {
-                    case 0:
-                        did.setId(Integer.parseInt(cells.get(index).text()));
-                        break;
-                    case 1:
-                        did.setCallerId(cells.get(index).text());
-                        break;
-                    case 2:
-                        did.setDescription(cells.get(index).text());
-                        break;
-                    case 3:
-                        did.setCarrier(cells.get(index).text());
-                        break;
-                    case 4:
-                        did.setActive(cells.get(index).text().charAt(0));
-                        break;
-                    case 5:
-                        did.setGroup(cells.get(index).text());
-                        break;
-                    case 6:
-                        did.setRoute(cells.get(index).text());
-                        break;
-                    case 7:
-                        did.setRec(cells.get(index).text());
-                        break;
-                    case 8:
-                        did.setModify(cells.get(index).text());
-                        dids.add(did);
-                        break;
+            DidModel did = parseDidRow(row);
+            if (did != null) {
+                dids.add(did);
+            }
+        }
+
+        return dids;
+    }
+
+    /**
+     * Parses the DID table incrementally while the page is still being read.
+     *
+     * <p>Each DID is handed to the consumer as soon as its row closes, and the row is then removed
+     * from the partial DOM, so memory stays bounded by a single row instead of the whole page.</p>
+     *
+     * @param html     HTML stream of the admin DID page (UTF-8)
+     * @param consumer receives every parsed DID, in page order
+     * @throws IOException if reading the stream fails
+     */
+    public static void StreamDIDs(InputStream html, Consumer<DidModel> consumer) throws IOException {
+        try (StreamParser streamer = new StreamParser(Parser.htmlParser())
+                .parse(new InputStreamReader(html, StandardCharsets.UTF_8), "")) {
+            Element row;
+            while ((row = streamer.selectNext(DID_ROW_QUERY)) != null) {
+                DidModel did = parseDidRow(row);
+                row.remove();
+                if (did != null) {
+                    consumer.accept(did);
                 }
             }
+        }
+    }
 
+    /**
+     * Builds a DidModel from a table row, or returns null when the row is incomplete.
+     */
+    private static DidModel parseDidRow(Element row) {
+        // get all cell of each row.
+        Elements cells = row.select("td");
+        DidModel did = new DidModel();
+
+        for (int index = 0; index < cells.size(); index++) {
+            // build up a did based on positions of each sub-cell.
+            switch (index) {
+                case 0:
+                    did.setId(Integer.parseInt(cells.get(index).text()));
+                    break;
+                case 1:
+                    did.setCallerId(cells.get(index).text());
+                    break;
+                case 2:
+                    did.setDescription(cells.get(index).text());
+                    break;
+                case 3:
+                    did.setCarrier(cells.get(index).text());
+                    break;
+                case 4:
+                    did.setActive(cells.get(index).text().charAt(0));
+                    break;
+                case 5:
+                    did.setGroup(cells.get(index).text());
+                    break;
+                case 6:
+                    did.setRoute(cells.get(index).text());
+                    break;
+                case 7:
+                    did.setRec(cells.get(index).text());
+                    break;
+                case 8:
+                    did.setModify(cells.get(index).text());
+                    return did;
+            }
         }
 
-        return dids;
+        return null;
     }
 }
@@ -0,0 +1,696 @@
+package dev.pablo.models;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Durable journal of a bulk job, so a run that died halfway can be resumed without redoing the items
+ * it completed.
+ *
+ * <p>A job is two files in the job directory:
+ * <ul>
+ *   <li>{@code <jobId>.wal}, the write-ahead log. Layout (big-endian):
+ * <pre>
+ *   int    magic "VJOB"
+ *   short  version
+ *   UTF    command the job belongs to
+ *   record *:
+ *     int  length of the payload
+ *     int  CRC-32 of the payload
+ *     payload: byte type (1 started, 2 completed, 3 failed), UTF item key, UTF detail
+ * </pre></li>
+ *   <li>{@code <jobId>.idx}, a memory-mapped open-addressing hash table of the recorded keys: a
+ *   32-byte header (int magic "VJIX" at 0, short version at 4, int capacity at 8, int count at 12,
+ *   long length of the log it covers at 16, int completed count at 24) followed by {@code capacity}
+ *   24-byte slots holding the first 128 bits of the SHA-256 of a key (all zero: empty) and the state
+ *   of the item (int, the type of its last record; completed is final). Looking an item up never
+ *   reads the log.</li>
+ * </ul></p>
+ *
+ * <p>Records are buffered in memory and group-committed: a background thread writes them and forces the
+ * log to disk every {@value #COMMIT_MILLIS} ms, then adds the newly completed keys to the index.
+ * {@link #startedDurably(String)} does not wait for the interval: it has the pending group committed
+ * right away and returns once its record is on disk, so a non-idempotent item is never sent before its
+ * start is durable. A crash therefore loses at most the outcomes of the last commit interval (and
+ * the starts recorded with {@link #started(String)}): those items are in doubt, or done again, on the
+ * next run.
+ * The index is only a cache of the log: when it is missing, damaged or behind, it is rebuilt or caught
+ * up from the log when the job is opened, and a partial record left at the end of the log is dropped.
+ * A job can only be opened by one process at a time.</p>
+ *
+ * <p>An item started by an earlier run without a completed or failed record is <em>in doubt</em>: the
+ * run may have died after the server did the work but before the outcome was committed. Commands
+ * whose items are not idempotent must not simply do those again (see {@link #isInDoubt(String)}).</p>
+ */
+public final class JobJournal implements Closeable {
+    /** Environment variable pointing at the job directory. */
+    public static final String DIRECTORY_ENV = "VICIDIAL_CLI_JOBS";
+
+    private static final int WAL_MAGIC = 0x564A4F42; // "VJOB"
+    private static final int INDEX_MAGIC = 0x564A4958; // "VJIX"
+    private static final short VERSION = 1;
+    private static final short INDEX_VERSION = 2;
+    private static final int INDEX_HEADER_BYTES = 32;
+    private static final int CAPACITY_AT = 8;
+    private static final int COUNT_AT = 12;
+    private static final int COVERED_AT = 16;
+    private static final int COMPLETED_AT = 24;
+    private static final int SLOT_BYTES = 24;
+    private static final int STATE_AT = 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int MAX_DETAIL_CHARS = 1000;
+    private static final long COMMIT_MILLIS = 50;
+
+    private static final byte STARTED = 1;
+    private static final byte COMPLETED = 2;
+    private static final byte FAILED = 3;
+
+    private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._@-]{0,127}");
+
+    private final String jobId;
+    private final Path walPath;
+    private final Path indexPath;
+    private final FileChannel wal;
+    private final FileLock lock;
+    private long walEnd;
+
+    // Index: guarded by itself.
+    private final Object indexLock = new Object();
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int count;
+    private int completedCount;
+    // Items in doubt when the job was opened, by hash.
+    private final Set<Digest> inDoubt = new HashSet<>();
+
+    // Records not yet committed: guarded by this.
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private List<Update> pendingUpdates = new ArrayList<>();
+    private boolean closed;
+    // Commit tickets: sequence number of the last record buffered, of the last one forced to disk, and
+    // of the last one a caller waits for.
+    private long appendedSeq;
+    private long committedSeq;
+    private long awaitedSeq;
+
+    private final Object commitLock = new Object();
+    private volatile IOException failure;
+    private final Thread committer;
+
+    /** First 128 bits of the SHA-256 of a key, never all zero. */
+    private record Digest(long high, long low) {
+    }
+
+    /** State change of an item, applied to the index once its record is committed. */
+    private record Update(String key, byte type) {
+    }
+
+    private JobJournal(String jobId, Path walPath, Path indexPath, FileChannel wal, FileLock lock) {
+        this.jobId = jobId;
+        this.walPath = walPath;
+        this.indexPath = indexPath;
+        this.wal = wal;
+        this.lock = lock;
+        this.committer = Thread.ofVirtual().name("job-journal-" + jobId).unstarted(this::commitLoop);
+    }
+
+    /**
+     * @param configured value of $VICIDIAL_CLI_JOBS, or null when it is not set
+     * @return the configured directory, or ~/.vicidial-cli-jobs
+     */
+    public static Path defaultDirectory(String configured) {
+        if (configured != null && !configured.isBlank()) {
+            return Paths.get(configured);
+        }
+        return Paths.get(System.getProperty("user.home"), ".vicidial-cli-jobs");
+    }
+
+    /**
+     * Opens a job, creating it when it does not exist yet.
+     *
+     * @param directory job directory (created when missing)
+     * @param jobId     job identifier: letters, digits, '.', '_', '-' and '@'
+     * @param command   command running the job; a job cannot be resumed by another command
+     * @return the journal, ready to record items
+     * @throws IOException when the files cannot be read or written, belong to another command, or the
+     *                     job is open in another process
+     * @throws IllegalArgumentException when the job identifier is invalid
+     */
+    public static JobJournal open(Path directory, String jobId, String command) throws IOException {
+        if (!JOB_ID.matcher(jobId).matches()) {
+            throw new IllegalArgumentException("Invalid job ID: " + jobId
+                    + " (use up to 128 letters, digits, '.', '_', '-' or '@').");
+        }
+        Files.createDirectories(directory);
+        Path walPath = directory.resolve(jobId + ".wal");
+        Path indexPath = directory.resolve(jobId + ".idx");
+
+        FileChannel wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        JobJournal journal = null;
+        try {
+            FileLock lock;
+            try {
+                lock = wal.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Job " + jobId + " is already running.");
+            }
+            journal = new JobJournal(jobId, walPath, indexPath, wal, lock);
+            long logStart = wal.size() == 0 ? journal.writeHeader(command) : journal.readHeader(command);
+            journal.recover(logStart);
+            journal.committer.start();
+            return journal;
+        } catch (IOException | RuntimeException e) {
+            if (journal != null) {
+                journal.closeIndex();
+            }
+            wal.close();
+            throw e;
+        }
+    }
+
+    private long writeHeader(String command) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(WAL_MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(command);
+        }
+        writeFully(wal, ByteBuffer.wrap(bytes.toByteArray()), 0);
+        wal.force(true);
+        return bytes.size();
+    }
+
+    private long readHeader(String command) throws IOException {
+        ByteBuffer start = ByteBuffer.allocate((int) Math.min(wal.size(), 8 + 3 * 65535));
+        readFully(wal, start, 0);
+        start.flip();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(start.array(), 0, start.limit()))) {
+            if (in.readInt() != WAL_MAGIC || in.readShort() != VERSION) {
+                throw new IOException(walPath + " is not a job journal (or an unsupported version).");
+            }
+            String owner = in.readUTF();
+            if (!owner.equals(command)) {
+                throw new IOException("Job " + jobId + " belongs to '" + owner + "'; use another job ID for '"
+                        + command + "'.");
+            }
+            return start.limit() - in.available();
+        } catch (EOFException e) {
+            throw new IOException(walPath + " is not a job journal (truncated header).");
+        }
+    }
+
+    /**
+     * Loads the index (rebuilding it when unusable), applies the records the log holds beyond it,
+     * drops a partial record at the end of the log, and notes the items left in doubt.
+     */
+    private void recover(long logStart) throws IOException {
+        long covered = openIndex(logStart);
+        long size = wal.size();
+        long position = covered;
+        while (position + 8 <= size) {
+            ByteBuffer head = ByteBuffer.allocate(8);
+            readFully(wal, head, position);
+            head.flip();
+            int length = head.getInt();
+            int crc = head.getInt();
+            if (length < 5 || length > MAX_RECORD_BYTES || position + 8 + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(wal, payload, position + 8);
+            CRC32 check = new CRC32();
+            check.update(payload.array());
+            if ((int) check.getValue() != crc) {
+                break;
+            }
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload.array()))) {
+                byte type = in.readByte();
+                String key = in.readUTF();
+                if (type == STARTED || type == COMPLETED || type == FAILED) {
+                    record(key, type);
+                }
+            }
+            position += 8 + length;
+        }
+        if (position < size) {
+            // Partial record of an interrupted commit.
+            wal.truncate(position);
+            wal.force(true);
+        }
+        walEnd = position;
+        synchronized (indexLock) {
+            index.putLong(COVERED_AT, walEnd);
+            for (int i = 0; i < capacity; i++) {
+                int offset = INDEX_HEADER_BYTES + i * SLOT_BYTES;
+                if (index.getLong(offset) != 0 && index.getInt(offset + STATE_AT) == STARTED) {
+                    inDoubt.add(new Digest(index.getLong(offset), index.getLong(offset + 8)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the index file, or creates an empty one when it is missing or does not match the log.
+     *
+     * @return log position the index is up to date with
+     */
+    private long openIndex(long logStart) throws IOException {
+        if (Files.exists(indexPath)) {
+            FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long size = channel.size();
+            if (size >= INDEX_HEADER_BYTES) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                int slots = mapped.getInt(CAPACITY_AT);
+                long covered = mapped.getLong(COVERED_AT);
+                if (mapped.getInt(0) == INDEX_MAGIC && mapped.getShort(4) == INDEX_VERSION && slots > 0
+                        && Integer.bitCount(slots) == 1 && size == INDEX_HEADER_BYTES + (long) slots * SLOT_BYTES
+                        && covered >= logStart && covered <= wal.size()) {
+                    indexChannel = channel;
+                    index = mapped;
+                    capacity = slots;
+                    count = mapped.getInt(COUNT_AT);
+                    completedCount = mapped.getInt(COMPLETED_AT);
+                    return covered;
+                }
+            }
+            channel.close();
+        }
+        createIndex(indexPath, INITIAL_CAPACITY);
+        return logStart;
+    }
+
+    /**
+     * Creates an empty index of the given capacity at a path and maps it as the current index.
+     */
+    private void createIndex(Path path, int slots) throws IOException {
+        closeIndex();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                INDEX_HEADER_BYTES + (long) slots * SLOT_BYTES);
+        mapped.putInt(0, INDEX_MAGIC).putShort(4, INDEX_VERSION).putInt(CAPACITY_AT, slots).putInt(COUNT_AT, 0)
+                .putLong(COVERED_AT, 0).putInt(COMPLETED_AT, 0);
+        indexChannel = channel;
+        index = mapped;
+        capacity = slots;
+        count = 0;
+        completedCount = 0;
+    }
+
+    /**
+     * @return job identifier
+     */
+    public String getJobId() {
+        return jobId;
+    }
+
+    /**
+     * @return write-ahead log file of the job
+     */
+    public Path getPath() {
+        return walPath;
+    }
+
+    /**
+     * @return number of items completed by this job so far (committed ones)
+     */
+    public int getCompletedCount() {
+        synchronized (indexLock) {
+            return completedCount;
+        }
+    }
+
+    /**
+     * @return number of items in doubt when the job was opened (see {@link #isInDoubt(String)})
+     */
+    public int getInDoubtCount() {
+        return inDoubt.size();
+    }
+
+    /**
+     * Tells whether an item was completed by an earlier run (or an earlier commit of this one). Only
+     * the memory-mapped index is read.
+     *
+     * @param key item key
+     * @return true when the item must not be done again
+     */
+    public boolean isCompleted(String key) {
+        long[] hash = hash(key);
+        synchronized (indexLock) {
+            int slot = slotOf(hash);
+            return slot >= 0 && index.getInt(slot + STATE_AT) == COMPLETED;
+        }
+    }
+
+    /**
+     * Tells whether an earlier run started an item but recorded neither its completion nor its
+     * failure, i.e. died while doing it. The work may or may not have been done.
+     *
+     * @param key item key
+     * @return true when the item was in doubt when the job was opened
+     */
+    public boolean isInDoubt(String key) {
+        long[] hash = hash(key);
+        return inDoubt.contains(new Digest(hash[0], hash[1]));
+    }
+
+    /**
+     * Records that an item is about to be done. The record is committed with the next group: use
+     * {@link #startedDurably(String)} before work that must not be repeated.
+     */
+    public void started(String key) {
+        append(STARTED, key, "");
+    }
+
+    /**
+     * Records that an item is about to be done and waits until the record is forced to disk, so that if
+     * the process dies while doing the item, the next run reports it as in doubt instead of doing it
+     * again.
+     *
+     * @throws IOException          when the journal could not be written: the item must not be done
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public void startedDurably(String key) throws IOException, InterruptedException {
+        long ticket = append(STARTED, key, "");
+        synchronized (this) {
+            awaitedSeq = Math.max(awaitedSeq, ticket);
+            // Wakes the committer, so the group is committed now rather than at the end of the interval.
+            notifyAll();
+            while (committedSeq < ticket && failure == null) {
+                wait();
+            }
+            if (committedSeq >= ticket) {
+                return;
+            }
+        }
+        throw new IOException("Could not write the journal of job " + jobId + ": " + failure.getMessage(), failure);
+    }
+
+    /**
+     * Records that an item was done; the next run of the job skips it.
+     *
+     * @param detail short result (for example the ID of what was created)
+     */
+    public void completed(String key, String detail) {
+        append(COMPLETED, key, detail);
+    }
+
+    /**
+     * Records that an item failed; the next run of the job tries it again.
+     *
+     * @param detail reason of the failure
+     */
+    public void failed(String key, String detail) {
+        append(FAILED, key, detail);
+    }
+
+    /**
+     * Buffers a record for the next commit. A failed commit is reported by {@link #close()}.
+     *
+     * @return the commit ticket of the record
+     */
+    private long append(byte type, String key, String detail) {
+        String text = detail == null ? "" : detail.length() > MAX_DETAIL_CHARS ? detail.substring(0, MAX_DETAIL_CHARS) : detail;
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(16 + key.length() + text.length());
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(type);
+            out.writeUTF(key);
+            out.writeUTF(text);
+        } catch (IOException e) {
+            // Only a key or detail longer than 65535 bytes once encoded can fail here.
+            throw new IllegalArgumentException("Journal record too long for item " + key, e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Job journal " + jobId + " is closed.");
+            }
+            ByteBuffer head = ByteBuffer.allocate(8).putInt(payload.size()).putInt((int) crc.getValue());
+            pending.writeBytes(head.array());
+            pending.writeBytes(payload.toByteArray());
+            pendingUpdates.add(new Update(key, type));
+            return ++appendedSeq;
+        }
+    }
+
+    private void commitLoop() {
+        while (true) {
+            synchronized (this) {
+                try {
+                    if (!closed && awaitedSeq <= committedSeq) {
+                        wait(COMMIT_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+            }
+            commit();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the log, forces it to disk, then indexes the new states. Only
+     * the committer thread and {@link #close()} commit, so the channels are never closed by the
+     * interruption of a worker thread.
+     */
+    private void commit() {
+        synchronized (commitLock) {
+            if (failure != null) {
+                return;
+            }
+            byte[] records;
+            List<Update> updates;
+            long ticket;
+            synchronized (this) {
+                if (pending.size() == 0) {
+                    return;
+                }
+                records = pending.toByteArray();
+                updates = pendingUpdates;
+                ticket = appendedSeq;
+                pending = new ByteArrayOutputStream();
+                pendingUpdates = new ArrayList<>();
+            }
+            try {
+                writeFully(wal, ByteBuffer.wrap(records), walEnd);
+                wal.force(false);
+                walEnd += records.length;
+                synchronized (this) {
+                    committedSeq = ticket;
+                    notifyAll();
+                }
+                for (Update update : updates) {
+                    record(update.key(), update.type());
+                }
+                synchronized (indexLock) {
+                    index.putLong(COVERED_AT, walEnd);
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the state of a key in the index, adding the key (and growing the index once more than half
+     * full) when it is new. A completed item stays completed.
+     */
+    private void record(String key, byte type) throws IOException {
+        long[] hash = hash(key);
+        synchronized (indexLock) {
+            int slot = slotOf(hash);
+            if (slot < 0) {
+                if ((count + 1) * 2L > capacity) {
+                    grow();
+                }
+                slot = put(index, capacity, hash, 0);
+                count++;
+                index.putInt(COUNT_AT, count);
+            }
+            int state = index.getInt(slot + STATE_AT);
+            if (state == COMPLETED || state == type) {
+                return;
+            }
+            index.putInt(slot + STATE_AT, type);
+            if (type == COMPLETED) {
+                completedCount++;
+                index.putInt(COMPLETED_AT, completedCount);
+            }
+        }
+    }
+
+    /**
+     * @return byte offset of the key's slot, or -1 when the key is not indexed
+     */
+    private int slotOf(long[] hash) {
+        int mask = capacity - 1;
+        for (int i = (int) hash[0] & mask; ; i = (i + 1) & mask) {
+            int offset = INDEX_HEADER_BYTES + i * SLOT_BYTES;
+            long first = index.getLong(offset);
+            if (first == 0) {
+                return -1;
+            }
+            if (first == hash[0] && index.getLong(offset + 8) == hash[1]) {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * @return byte offset of the slot the key was put in
+     */
+    private static int put(MappedByteBuffer table, int slots, long[] hash, int state) {
+        int mask = slots - 1;
+        for (int i = (int) hash[0] & mask; ; i = (i + 1) & mask) {
+            int offset = INDEX_HEADER_BYTES + i * SLOT_BYTES;
+            if (table.getLong(offset) == 0) {
+                table.putLong(offset, hash[0]).putLong(offset + 8, hash[1]).putInt(offset + STATE_AT, state);
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Rehashes the index into a table twice as large, written beside it and moved over it.
+     */
+    private void grow() throws IOException {
+        MappedByteBuffer old = index;
+        int oldCapacity = capacity;
+        int entries = count;
+        int completed = completedCount;
+        long covered = old.getLong(COVERED_AT);
+        Path grown = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+        createIndex(grown, oldCapacity * 2);
+        for (int i = 0; i < oldCapacity; i++) {
+            int offset = INDEX_HEADER_BYTES + i * SLOT_BYTES;
+            long first = old.getLong(offset);
+            if (first != 0) {
+                put(index, capacity, new long[] { first, old.getLong(offset + 8) }, old.getInt(offset + STATE_AT));
+            }
+        }
+        count = entries;
+        completedCount = completed;
+        index.putInt(COUNT_AT, count).putLong(COVERED_AT, covered).putInt(COMPLETED_AT, completedCount);
+        index.force();
+        Files.move(grown, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return the first 128 bits of the SHA-256 of the key, never all zero
+     */
+    private static long[] hash(String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(digest);
+        long first = bytes.getLong();
+        long second = bytes.getLong();
+        return new long[] { first == 0 ? 1 : first, second };
+    }
+
+    /**
+     * Commits the buffered records, saves the index and releases the job.
+     *
+     * @throws IOException when a commit failed: items completed since then were not recorded and will
+     *                     be done again by the next run
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                committer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        commit();
+        try {
+            synchronized (indexLock) {
+                index.force();
+            }
+            closeIndex();
+            lock.release();
+        } finally {
+            wal.close();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (failure != null) {
+            throw new IOException("Could not write the journal of job " + jobId + ": " + failure.getMessage(), failure);
+        }
+    }
+
+    private void closeIndex() throws IOException {
+        if (indexChannel != null) {
+            indexChannel.close();
+            indexChannel = null;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Truncated job journal.");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package dev.pablo.models;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes leads to a file as NDJSON (one JSON object per line) or CSV, through a single reusable
+ * buffer in front of a {@link FileChannel}.
+ *
+ * <p>Records are appended as they arrive and nothing but the current buffer is kept in memory, so the
+ * export size does not affect the heap. Field names and order follow {@link LeadModel#FIELDS}.
+ * Instances are not thread-safe.</p>
+ */
+public class LeadExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Output formats. */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private final FileChannel channel;
+    private final Format format;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder record = new StringBuilder(512);
+    private long written;
+
+    private LeadExportWriter(FileChannel channel, Format format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Creates (or truncates) the output file and writes the CSV header when needed.
+     *
+     * @param path   output file
+     * @param format output format
+     * @return writer ready to receive leads
+     * @throws IOException when the file cannot be opened
+     */
+    public static LeadExportWriter open(Path path, Format format) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        LeadExportWriter writer = new LeadExportWriter(channel, format);
+        if (format == Format.CSV) {
+            writer.write(CsvParser.formatLine(LeadModel.FIELDS) + "\n");
+        }
+        return writer;
+    }
+
+    /**
+     * Appends one lead.
+     *
+     * @param lead lead to write
+     * @throws IOException when writing to the file fails
+     */
+    public void write(LeadModel lead) throws IOException {
+        record.setLength(0);
+        if (format == Format.NDJSON) {
+            record.append('{');
+            for (int i = 0; i < LeadModel.FIELD_COUNT; i++) {
+                if (i > 0) {
+                    record.append(',');
+                }
+                record.append('"').append(LeadModel.FIELDS[i]).append("\":");
+                appendJsonString(record, lead.get(i));
+            }
+            record.append('}');
+        } else {
+            for (int i = 0; i < LeadModel.FIELD_COUNT; i++) {
+                if (i > 0) {
+                    record.append(',');
+                }
+                record.append(CsvParser.escape(lead.get(i)));
+            }
+        }
+        record.append('\n');
+        write(record.toString());
+        written++;
+    }
+
+    /**
+     * @return number of leads written so far
+     */
+    public long getWritten() {
+        return written;
+    }
+
+    /**
+     * Writes the buffered bytes to the file.
+     *
+     * @throws IOException when writing to the file fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.remaining()) {
+            flush();
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        buffer.put(bytes);
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
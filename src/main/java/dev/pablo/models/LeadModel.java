@@ -2,441 +2,462 @@ package dev.pablo.models;
 
 /**
  * Represents a single Lead object
+ *
+ * <p>The record returned by the Vicidial API is kept as-is: a single {@code indexOf} pass records
+ * where each '|' separated field starts and ends, and a field only becomes a String the first time
+ * its getter is called. Callers that read a dozen of the 32 fields therefore only pay for those.
+ * {@link #reset(String)} lets one instance be reused across many rows (flyweight).</p>
+ *
+ * <p>Values are the same the former eager {@code split("\\|")} produced: missing fields, including
+ * trailing empty ones, read as null.</p>
  */
 public class LeadModel {
-    private String status;
-    private String user;
-    private String vendor_lead_code;
-    private String source_id;
-    private String list_id;
-    private String gmt_offset_now;
-    private String phone_code;
-    private String phone_number;
-    private String title;
-    private String first_name;
-    private String middle_initial;
-    private String last_name;
-    private String address1;
-    private String address2;
-    private String address3;
-    private String city;
-    private String state;
-    private String province;
-    private String postal_code;
-    private String country_code;
-    private String gender;
-    private String date_of_birth;
-    private String alt_phone;
-    private String email;
-    private String security_phrase;
-    private String comments;
-    private String called_count;
-    private String last_local_call_time;
-    private String rank;
-    private String owner;
-    private String entry_list_id;
-    private String lead_id;
+    public static final int STATUS = 0;
+    public static final int USER = 1;
+    public static final int VENDOR_LEAD_CODE = 2;
+    public static final int SOURCE_ID = 3;
+    public static final int LIST_ID = 4;
+    public static final int GMT_OFFSET_NOW = 5;
+    public static final int PHONE_CODE = 6;
+    public static final int PHONE_NUMBER = 7;
+    public static final int TITLE = 8;
+    public static final int FIRST_NAME = 9;
+    public static final int MIDDLE_INITIAL = 10;
+    public static final int LAST_NAME = 11;
+    public static final int ADDRESS1 = 12;
+    public static final int ADDRESS2 = 13;
+    public static final int ADDRESS3 = 14;
+    public static final int CITY = 15;
+    public static final int STATE = 16;
+    public static final int PROVINCE = 17;
+    public static final int POSTAL_CODE = 18;
+    public static final int COUNTRY_CODE = 19;
+    public static final int GENDER = 20;
+    public static final int DATE_OF_BIRTH = 21;
+    public static final int ALT_PHONE = 22;
+    public static final int EMAIL = 23;
+    public static final int SECURITY_PHRASE = 24;
+    public static final int COMMENTS = 25;
+    public static final int CALLED_COUNT = 26;
+    public static final int LAST_LOCAL_CALL_TIME = 27;
+    public static final int RANK = 28;
+    public static final int OWNER = 29;
+    public static final int ENTRY_LIST_ID = 30;
+    public static final int LEAD_ID = 31;
+
+    /** Number of fields of a lead_all_info record. */
+    public static final int FIELD_COUNT = 32;
+
+    /** Field names, indexed by the constants above. */
+    public static final String[] FIELDS = {
+            "status",
+            "user",
+            "vendor_lead_code",
+            "source_id",
+            "list_id",
+            "gmt_offset_now",
+            "phone_code",
+            "phone_number",
+            "title",
+            "first_name",
+            "middle_initial",
+            "last_name",
+            "address1",
+            "address2",
+            "address3",
+            "city",
+            "state",
+            "province",
+            "postal_code",
+            "country_code",
+            "gender",
+            "date_of_birth",
+            "alt_phone",
+            "email",
+            "security_phrase",
+            "comments",
+            "called_count",
+            "last_local_call_time",
+            "rank",
+            "owner",
+            "entry_list_id",
+            "lead_id"
+    };
+
+    private String raw = "";
+    private final int[] starts = new int[FIELD_COUNT];
+    private final int[] ends = new int[FIELD_COUNT];
+    // Number of fields present in raw, after dropping trailing empty ones (like String.split).
+    private int present;
+    // Materialized or overridden values; a set bit in 'cached' marks the slot as valid.
+    private final String[] values = new String[FIELD_COUNT];
+    private int cached;
+
+    /**
+     * Creates an empty Lead (every field null), e.g. to be filled with {@link #reset(String)}.
+     */
+    public LeadModel() {
+    }
 
     /**
      *  Creates a Lead object from the Vicidial API response.
      *  Splits the fields based on the '|' delimiter.
      */
     public LeadModel(String rowInput) {
-        String[] details = rowInput.split("\\|");
-        for (int i = 0; i < details.length; i++) {
-            switch (i) {
-                case 0:
-                    this.status = details[i];
-                    break;
-                case 1:
-                    this.user = details[i];
-                    break;
-                case 2:
-                    this.vendor_lead_code = details[i];
-                    break;
-                case 3:
-                    this.source_id = details[i];
-                    break;
-                case 4:
-                    this.list_id = details[i];
-                    break;
-                case 5:
-                    this.gmt_offset_now = details[i];
-                    break;
-                case 6:
-                    this.phone_code = details[i];
-                    break;
-                case 7:
-                    this.phone_number = details[i];
-                    break;
-                case 8:
-                    this.title = details[i];
-                    break;
-                case 9:
-                    this.first_name = details[i];
-                    break;
-                case 10:
-                    this.middle_initial = details[i];
-                    break;
-                case 11:
-                    this.last_name = details[i];
-                    break;
-                case 12:
-                    this.address1 = details[i];
-                    break;
-                case 13:
-                    this.address2 = details[i];
-                    break;
-                case 14:
-                    this.address3 = details[i];
-                    break;
-                case 15:
-                    this.city = details[i];
-                    break;
-                case 16:
-                    this.state = details[i];
-                    break;
-                case 17:
-                    this.province = details[i];
-                    break;
-                case 18:
-                    this.postal_code = details[i];
-                    break;
-                case 19:
-                    this.country_code = details[i];
-                    break;
-                case 20:
-                    this.gender = details[i];
-                    break;
-                case 21:
-                    this.date_of_birth = details[i];
-                    break;
-                case 22:
-                    this.alt_phone = details[i];
-                    break;
-                case 23:
-                    this.email = details[i];
-                    break;
-                case 24:
-                    this.security_phrase = details[i];
-                    break;
-                case 25:
-                    this.comments = details[i];
-                    break;
-                case 26:
-                    this.called_count = details[i];
-                    break;
-                case 27:
-                    this.last_local_call_time = details[i];
-                    break;
-                case 28:
-                    this.rank = details[i];
-                    break;
-                case 29:
-                    this.owner = details[i];
-                    break;
-                case 30:
-                    this.entry_list_id = details[i];
-                    break;
-                case 31:
-                    this.lead_id = details[i];
-                    break;
-                default:
-                    // ignore extra fields
-                    break;
+        reset(rowInput);
+    }
+
+    /**
+     * Points this instance at a new record, discarding every value read or set before.
+     *
+     * @param rowInput '|' separated lead record
+     * @return this instance
+     */
+    public LeadModel reset(String rowInput) {
+        this.raw = rowInput;
+        this.cached = 0;
+
+        int field = 0;
+        int start = 0;
+        int lastNonEmpty = -1;
+        while (true) {
+            int bar = rowInput.indexOf('|', start);
+            int end = bar < 0 ? rowInput.length() : bar;
+            if (field < FIELD_COUNT) {
+                starts[field] = start;
+                ends[field] = end;
+            }
+            if (end > start) {
+                lastNonEmpty = field;
+            }
+            if (bar < 0) {
+                break;
             }
+            field++;
+            start = bar + 1;
         }
+
+        // split() keeps a lone empty field but drops trailing empty ones otherwise.
+        this.present = field == 0 ? 1 : lastNonEmpty + 1;
+        return this;
+    }
+
+    /**
+     * Returns a field by index, materializing it on first access.
+     *
+     * @param index field index (see {@link #FIELDS})
+     * @return the value, or null when the record does not contain it
+     */
+    public String get(int index) {
+        if ((cached & (1 << index)) != 0) {
+            return values[index];
+        }
+        String value = index < present ? raw.substring(starts[index], ends[index]) : null;
+        values[index] = value;
+        cached |= 1 << index;
+        return value;
+    }
+
+    /**
+     * Overrides a field by index.
+     *
+     * @param index field index (see {@link #FIELDS})
+     * @param value new value
+     */
+    public void set(int index, String value) {
+        values[index] = value;
+        cached |= 1 << index;
     }
 
     public String getStatus() {
-        return status;
+        return get(STATUS);
     }
 
     public void setStatus(String status) {
-        this.status = status;
+        set(STATUS, status);
     }
 
     public String getUser() {
-        return user;
+        return get(USER);
     }
 
     public void setUser(String user) {
-        this.user = user;
+        set(USER, user);
     }
 
     public String getVendor_lead_code() {
-        return vendor_lead_code;
+        return get(VENDOR_LEAD_CODE);
     }
 
     public void setVendor_lead_code(String vendor_lead_code) {
-        this.vendor_lead_code = vendor_lead_code;
+        set(VENDOR_LEAD_CODE, vendor_lead_code);
     }
 
     public String getSource_id() {
-        return source_id;
+        return get(SOURCE_ID);
     }
 
     public void setSource_id(String source_id) {
-        this.source_id = source_id;
+        set(SOURCE_ID, source_id);
     }
 
     public String getList_id() {
-        return list_id;
+        return get(LIST_ID);
     }
 
     public void setList_id(String list_id) {
-        this.list_id = list_id;
+        set(LIST_ID, list_id);
     }
 
     public String getGmt_offset_now() {
-        return gmt_offset_now;
+        return get(GMT_OFFSET_NOW);
     }
 
     public void setGmt_offset_now(String gmt_offset_now) {
-        this.gmt_offset_now = gmt_offset_now;
+        set(GMT_OFFSET_NOW, gmt_offset_now);
     }
 
     public String getPhone_code() {
-        return phone_code;
+        return get(PHONE_CODE);
     }
 
     public void setPhone_code(String phone_code) {
-        this.phone_code = phone_code;
+        set(PHONE_CODE, phone_code);
     }
 
     public String getPhone_number() {
-        return phone_number;
+        return get(PHONE_NUMBER);
     }
 
     public void setPhone_number(String phone_number) {
-        this.phone_number = phone_number;
+        set(PHONE_NUMBER, phone_number);
     }
 
     public String getTitle() {
-        return title;
+        return get(TITLE);
     }
 
     public void setTitle(String title) {
-        this.title = title;
+        set(TITLE, title);
     }
 
     public String getFirst_name() {
-        return first_name;
+        return get(FIRST_NAME);
     }
 
     public void setFirst_name(String first_name) {
-        this.first_name = first_name;
+        set(FIRST_NAME, first_name);
     }
 
     public String getMiddle_initial() {
-        return middle_initial;
+        return get(MIDDLE_INITIAL);
     }
 
     public void setMiddle_initial(String middle_initial) {
-        this.middle_initial = middle_initial;
+        set(MIDDLE_INITIAL, middle_initial);
     }
 
     public String getLast_name() {
-        return last_name;
+        return get(LAST_NAME);
     }
 
     public void setLast_name(String last_name) {
-        this.last_name = last_name;
+        set(LAST_NAME, last_name);
     }
 
     public String getAddress1() {
-        return address1;
+        return get(ADDRESS1);
     }
 
     public void setAddress1(String address1) {
-        this.address1 = address1;
+        set(ADDRESS1, address1);
     }
 
     public String getAddress2() {
-        return address2;
+        return get(ADDRESS2);
     }
 
     public void setAddress2(String address2) {
-        this.address2 = address2;
+        set(ADDRESS2, address2);
     }
 
     public String getAddress3() {
-        return address3;
+        return get(ADDRESS3);
     }
 
     public void setAddress3(String address3) {
-        this.address3 = address3;
+        set(ADDRESS3, address3);
     }
 
     public String getCity() {
-        return city;
+        return get(CITY);
     }
 
     public void setCity(String city) {
-        this.city = city;
+        set(CITY, city);
     }
 
     public String getState() {
-        return state;
+        return get(STATE);
     }
 
     public void setState(String state) {
-        this.state = state;
+        set(STATE, state);
     }
 
     public String getProvince() {
-        return province;
+        return get(PROVINCE);
     }
 
     public void setProvince(String province) {
-        this.province = province;
+        set(PROVINCE, province);
     }
 
     public String getPostal_code() {
-        return postal_code;
+        return get(POSTAL_CODE);
     }
 
     public void setPostal_code(String postal_code) {
-        this.postal_code = postal_code;
+        set(POSTAL_CODE, postal_code);
     }
 
     public String getCountry_code() {
-        return country_code;
+        return get(COUNTRY_CODE);
     }
 
     public void setCountry_code(String country_code) {
-        this.country_code = country_code;
+        set(COUNTRY_CODE, country_code);
     }
 
     public String getGender() {
-        return gender;
+        return get(GENDER);
     }
 
     public void setGender(String gender) {
-        this.gender = gender;
+        set(GENDER, gender);
     }
 
     public String getDate_of_birth() {
-        return date_of_birth;
+        return get(DATE_OF_BIRTH);
     }
 
     public void setDate_of_birth(String date_of_birth) {
-        this.date_of_birth = date_of_birth;
+        set(DATE_OF_BIRTH, date_of_birth);
     }
 
     public String getAlt_phone() {
-        return alt_phone;
+        return get(ALT_PHONE);
     }
 
     public void setAlt_phone(String alt_phone) {
-        this.alt_phone = alt_phone;
+        set(ALT_PHONE, alt_phone);
     }
 
     public String getEmail() {
-        return email;
+        return get(EMAIL);
     }
 
     public void setEmail(String email) {
-        this.email = email;
+        set(EMAIL, email);
     }
 
     public String getSecurity_phrase() {
-        return security_phrase;
+        return get(SECURITY_PHRASE);
     }
 
     public void setSecurity_phrase(String security_phrase) {
-        this.security_phrase = security_phrase;
+        set(SECURITY_PHRASE, security_phrase);
     }
 
     public String getComments() {
-        return comments;
+        return get(COMMENTS);
     }
 
     public void setComments(String comments) {
-        this.comments = comments;
+        set(COMMENTS, comments);
     }
 
     public String getCalled_count() {
-        return called_count;
+        return get(CALLED_COUNT);
     }
 
     public void setCalled_count(String called_count) {
-        this.called_count = called_count;
+        set(CALLED_COUNT, called_count);
     }
 
     public String getLast_local_call_time() {
-        return last_local_call_time;
+        return get(LAST_LOCAL_CALL_TIME);
     }
 
     public void setLast_local_call_time(String last_local_call_time) {
-        this.last_local_call_time = last_local_call_time;
+        set(LAST_LOCAL_CALL_TIME, last_local_call_time);
     }
 
     public String getRank() {
-        return rank;
+        return get(RANK);
     }
 
     public void setRank(String rank) {
-        this.rank = rank;
+        set(RANK, rank);
     }
 
     public String getOwner() {
-        return owner;
+        return get(OWNER);
     }
 
     public void setOwner(String owner) {
-        this.owner = owner;
+        set(OWNER, owner);
     }
 
     public String getEntry_list_id() {
-        return entry_list_id;
+        return get(ENTRY_LIST_ID);
     }
 
     public void setEntry_list_id(String entry_list_id) {
-        this.entry_list_id = entry_list_id;
+        set(ENTRY_LIST_ID, entry_list_id);
     }
 
     public String getLead_id() {
-        return lead_id;
+        return get(LEAD_ID);
     }
 
     public void setLead_id(String lead_id) {
-        this.lead_id = lead_id;
+        set(LEAD_ID, lead_id);
     }
 
     @Override
     public String toString() {
-        return "status: " + status +
-                "\nuser: " + user +
-                "\nvendor_lead_code: " + vendor_lead_code +
-                "\nsource_id: " + source_id +
-                "\nlist_id: " + list_id +
-                "\ngmt_offset_now: " + gmt_offset_now +
-                "\nphone_code: " + phone_code +
-                "\nphone_number: " + phone_number +
-                "\ntitle: " + title +
-                "\nfirst_name: " + first_name +
-                "\nmiddle_initial: " + middle_initial +
-                "\nlast_name: " + last_name +
-                "\naddress1: " + address1 +
-                "\naddress2: " + address2 +
-                "\naddress3: " + address3 +
-                "\ncity: " + city +
-                "\nstate: " + state +
-                "\nprovince: " + province +
-                "\npostal_code: " + postal_code +
-                "\ncountry_code: " + country_code +
-                "\ngender: " + gender +
-                "\ndate_of_birth: " + date_of_birth +
-                "\nalt_phone: " + alt_phone +
-                "\nemail: " + email +
-                "\nsecurity_phrase: " + security_phrase +
-                "\ncomments: " + comments +
-                "\ncalled_count: " + called_count +
-                "\nlast_local_call_time: " + last_local_call_time +
-                "\nrank: " + rank +
-                "\nowner: " + owner +
-                "\nentry_list_id: " + entry_list_id +
-                "\nlead_id: " + lead_id;
+        return "status: " + getStatus() +
+                "\nuser: " + getUser() +
+                "\nvendor_lead_code: " + getVendor_lead_code() +
+                "\nsource_id: " + getSource_id() +
+                "\nlist_id: " + getList_id() +
+                "\ngmt_offset_now: " + getGmt_offset_now() +
+                "\nphone_code: " + getPhone_code() +
+                "\nphone_number: " + getPhone_number() +
+                "\ntitle: " + getTitle() +
+                "\nfirst_name: " + getFirst_name() +
+                "\nmiddle_initial: " + getMiddle_initial() +
+                "\nlast_name: " + getLast_name() +
+                "\naddress1: " + getAddress1() +
+                "\naddress2: " + getAddress2() +
+                "\naddress3: " + getAddress3() +
+                "\ncity: " + getCity() +
+                "\nstate: " + getState() +
+                "\nprovince: " + getProvince() +
+                "\npostal_code: " + getPostal_code() +
+                "\ncountry_code: " + getCountry_code() +
+                "\ngender: " + getGender() +
+                "\ndate_of_birth: " + getDate_of_birth() +
+                "\nalt_phone: " + getAlt_phone() +
+                "\nemail: " + getEmail() +
+                "\nsecurity_phrase: " + getSecurity_phrase() +
+                "\ncomments: " + getComments() +
+                "\ncalled_count: " + getCalled_count() +
+                "\nlast_local_call_time: " + getLast_local_call_time() +
+                "\nrank: " + getRank() +
+                "\nowner: " + getOwner() +
+                "\nentry_list_id: " + getEntry_list_id() +
+                "\nlead_id: " + getLead_id();
     }
 }
@@ -0,0 +1,62 @@
+package dev.pablo.cli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Splitting of batch rows into arguments by {@link BatchCommand#tokenize(String)}.
+ */
+public class BatchCommandTest {
+
+    private static void assertTokens(String row, String... expected) {
+        assertArrayEquals("Row: " + row, expected, BatchCommand.tokenize(row));
+    }
+
+    private static void assertRejected(String row) {
+        try {
+            BatchCommand.tokenize(row);
+            fail("Row accepted: " + row);
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void whitespaceSeparatesArguments() {
+        assertTokens("updateCred  1001\t-p s3cret ", "updateCred", "1001", "-p", "s3cret");
+        assertTokens("   ");
+    }
+
+    @Test
+    public void leadingProgramNameIsDropped() {
+        assertTokens("vicidial-cli updateCred 1001", "updateCred", "1001");
+    }
+
+    @Test
+    public void doubleQuotesKeepWhitespace() {
+        assertTokens("updateCred 1001 -n \"Jane Doe\" -p s3cret", "updateCred", "1001", "-n", "Jane Doe", "-p", "s3cret");
+        assertTokens("a \"\" b", "a", "", "b");
+        assertTokens("pre\"fix suf\"fix", "prefix suffix");
+    }
+
+    @Test
+    public void singleQuotesKeepEverythingLiterally() {
+        assertTokens("a 'x \"y\" \\z'", "a", "x \"y\" \\z");
+        assertTokens("''", "");
+    }
+
+    @Test
+    public void backslashEscapesTheNextCharacter() {
+        assertTokens("a\\ b", "a b");
+        assertTokens("\"say \\\"hi\\\"\"", "say \"hi\"");
+        assertTokens("\\'", "'");
+    }
+
+    @Test
+    public void unterminatedQuoteOrTrailingBackslashIsRejected() {
+        assertRejected("updateCred \"Jane");
+        assertRejected("updateCred 'Jane");
+        assertRejected("updateCred Jane\\");
+    }
+}
@@ -0,0 +1,152 @@
+package dev.pablo.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Recovery of {@link CredentialVault} after an interrupted append, and rejection of a wrong
+ * passphrase.
+ */
+public class CredentialVaultTest {
+    private static final char[] PASSPHRASE = "correct horse".toCharArray();
+    private static final Instant ROTATED_AT = Instant.ofEpochMilli(1_700_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path path;
+
+    @Before
+    public void setUp() {
+        path = folder.getRoot().toPath().resolve("agents.csv.vault");
+    }
+
+    private static CredentialVault.Entry entry(String id) {
+        return new CredentialVault.Entry(id, "pw-" + id, true, true, ROTATED_AT, false);
+    }
+
+    private void writeTwoEntries() throws IOException {
+        try (CredentialVault vault = CredentialVault.open(path, PASSPHRASE)) {
+            vault.append(entry("1001"));
+            vault.append(CredentialVault.Entry.pending("1002", "pw-1002", ROTATED_AT));
+        }
+    }
+
+    private void appendBytes(byte[] bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes));
+        }
+    }
+
+    @Test
+    public void entriesAreReadBack() throws IOException {
+        writeTwoEntries();
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(path, PASSPHRASE)) {
+            List<CredentialVault.Entry> entries = vault.getEntries();
+            assertEquals(2, entries.size());
+            assertEquals(entry("1001"), entries.get(0));
+            assertTrue(entries.get(0).isComplete());
+            assertTrue(entries.get(1).pending());
+            assertFalse(entries.get(1).isComplete());
+        }
+    }
+
+    @Test
+    public void tornTailIsSkippedAndCutOffOnAppend() throws IOException {
+        writeTwoEntries();
+        long intact = Files.size(path);
+        // The crash hit while the next record was written: its length announces more than the file holds.
+        appendBytes(ByteBuffer.allocate(10).putInt(60).put(new byte[] { 1, 2, 3, 4, 5, 6 }).array());
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(path, PASSPHRASE)) {
+            assertEquals(2, vault.getEntries().size());
+        }
+        assertEquals("A read-only open modified the file.", intact + 10, Files.size(path));
+
+        try (CredentialVault vault = CredentialVault.open(path, PASSPHRASE)) {
+            assertEquals(2, vault.getEntries().size());
+            assertEquals(intact, Files.size(path));
+            vault.append(entry("1003"));
+        }
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(path, PASSPHRASE)) {
+            assertEquals(3, vault.getEntries().size());
+            assertEquals("1003", vault.getEntries().get(2).id());
+        }
+    }
+
+    @Test
+    public void zeroTailIsCutOff() throws IOException {
+        writeTwoEntries();
+        long intact = Files.size(path);
+        // The file grew but the record never reached the disk.
+        appendBytes(new byte[64]);
+
+        try (CredentialVault vault = CredentialVault.open(path, PASSPHRASE)) {
+            assertEquals(2, vault.getEntries().size());
+        }
+        assertEquals(intact, Files.size(path));
+    }
+
+    @Test
+    public void damagedRecordFailsTheOpen() throws IOException {
+        writeTwoEntries();
+        byte[] bytes = Files.readAllBytes(path);
+        // Flip a byte of the last record's ciphertext.
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(path, bytes);
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(path, PASSPHRASE)) {
+            fail("A damaged vault was opened.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Corrupted vault record"));
+        }
+    }
+
+    @Test
+    public void wrongPassphraseIsRejected() throws IOException {
+        writeTwoEntries();
+        long size = Files.size(path);
+
+        try (CredentialVault vault = CredentialVault.openReadOnly(path, "wrong".toCharArray())) {
+            fail("A vault was opened with a wrong passphrase.");
+        } catch (IOException expected) {
+            assertEquals("Wrong passphrase (or corrupted vault).", expected.getMessage());
+        }
+        try (CredentialVault vault = CredentialVault.open(path, "wrong".toCharArray())) {
+            fail("A vault was opened for appending with a wrong passphrase.");
+        } catch (IOException expected) {
+            assertEquals("Wrong passphrase (or corrupted vault).", expected.getMessage());
+        }
+        assertEquals(size, Files.size(path));
+    }
+
+    @Test
+    public void secondWriterIsRejected() throws IOException {
+        try (CredentialVault vault = CredentialVault.open(path, PASSPHRASE)) {
+            try (CredentialVault other = CredentialVault.open(path, PASSPHRASE)) {
+                fail("The vault was opened twice for appending.");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage(), expected.getMessage().endsWith("is in use by another run."));
+            }
+            vault.append(entry("1001"));
+        }
+    }
+}
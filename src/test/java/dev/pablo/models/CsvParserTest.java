@@ -0,0 +1,58 @@
+package dev.pablo.models;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Fields written by {@link CsvParser#formatLine(String...)} are read back unchanged by
+ * {@link CsvParser#parseLine(String)}.
+ */
+public class CsvParserTest {
+
+    private static void assertRoundTrip(String... fields) {
+        String line = CsvParser.formatLine(fields);
+        assertEquals("Line: " + line, Arrays.asList(fields), CsvParser.parseLine(line));
+    }
+
+    @Test
+    public void plainFieldsAreNotQuoted() {
+        assertEquals("1001,Jane,s3cret", CsvParser.formatLine("1001", "Jane", "s3cret"));
+        assertRoundTrip("1001", "Jane", "s3cret");
+    }
+
+    @Test
+    public void specialCharactersRoundTrip() {
+        assertRoundTrip("Doe, Jane", "say \"hi\"", "\"", ",", "a\"\"b");
+        assertRoundTrip(" leading", "trailing ", " both ", "\tTab");
+    }
+
+    @Test
+    public void emptyFieldsRoundTrip() {
+        assertRoundTrip("", "x", "");
+        assertRoundTrip("");
+    }
+
+    @Test
+    public void nullIsWrittenAsEmpty() {
+        assertEquals("a,,b", CsvParser.formatLine("a", null, "b"));
+        assertEquals(List.of("a", "", "b"), CsvParser.parseLine(CsvParser.formatLine("a", null, "b")));
+    }
+
+    @Test
+    public void unquotedValuesAreTrimmed() {
+        assertEquals(List.of("a", "b c", " d "), CsvParser.parseLine(" a , b c ,\" d \""));
+    }
+
+    @Test
+    public void escapeQuotesOnlyWhenNeeded() {
+        assertEquals("plain", CsvParser.escape("plain"));
+        assertEquals("", CsvParser.escape(null));
+        assertEquals("\"a,b\"", CsvParser.escape("a,b"));
+        assertEquals("\"a\"\"b\"", CsvParser.escape("a\"b"));
+        assertEquals("\"line\nbreak\"", CsvParser.escape("line\nbreak"));
+    }
+}
@@ -0,0 +1,290 @@
+package dev.pablo.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Recovery of {@link JobJournal}: what a job knows when it is opened again after a clean or an
+ * interrupted run.
+ */
+public class JobJournalTest {
+    private static final String JOB = "job-1";
+    private static final String COMMAND = "createCreds";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() {
+        directory = folder.getRoot().toPath();
+    }
+
+    private JobJournal open() throws IOException {
+        return JobJournal.open(directory, JOB, COMMAND);
+    }
+
+    private Path wal() {
+        return directory.resolve(JOB + ".wal");
+    }
+
+    private Path index() {
+        return directory.resolve(JOB + ".idx");
+    }
+
+    @Test
+    public void completedItemsAreSkippedByTheNextRun() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "1");
+            journal.started("b");
+            journal.failed("b", "USER_FAILED");
+        }
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertFalse(journal.isCompleted("b"));
+            assertFalse(journal.isInDoubt("a"));
+            assertFalse(journal.isInDoubt("b"));
+            assertFalse(journal.isCompleted("c"));
+            assertEquals(1, journal.getCompletedCount());
+            assertEquals(0, journal.getInDoubtCount());
+        }
+    }
+
+    @Test
+    public void startedItemWithoutOutcomeIsInDoubt() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+            // The run dies while "b" is in flight: only its start reached the log.
+            journal.started("b");
+        }
+
+        try (JobJournal journal = open()) {
+            assertFalse(journal.isInDoubt("a"));
+            assertTrue(journal.isInDoubt("b"));
+            assertFalse(journal.isCompleted("b"));
+            assertEquals(1, journal.getInDoubtCount());
+
+            // Resolved by this run, but still reported as it was when the job was opened.
+            journal.started("b");
+            journal.completed("b", "");
+            assertTrue(journal.isInDoubt("b"));
+        }
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("b"));
+            assertFalse(journal.isInDoubt("b"));
+            assertEquals(2, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void durableStartIsOnDiskBeforeItReturns() throws IOException, InterruptedException {
+        Path crashed = folder.newFolder("crashed").toPath();
+        try (JobJournal journal = open()) {
+            journal.startedDurably("a");
+            // The process dies here: only what reached the log survives.
+            Files.copy(wal(), crashed.resolve(JOB + ".wal"));
+        }
+
+        try (JobJournal journal = JobJournal.open(crashed, JOB, COMMAND)) {
+            assertTrue(journal.isInDoubt("a"));
+        }
+    }
+
+    @Test
+    public void completedItemStaysCompleted() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+            journal.started("a");
+            journal.failed("a", "again");
+        }
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertFalse(journal.isInDoubt("a"));
+            assertEquals(1, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+        }
+        long size = Files.size(wal());
+        // A record whose header claims more bytes than the file holds, as left by a crash mid-write.
+        append(wal(), ByteBuffer.allocate(11).putInt(100).putInt(12345).put(new byte[] { 2, 0, 1 }).array());
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertEquals(size, Files.size(wal()));
+            journal.started("b");
+            journal.completed("b", "");
+        }
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertTrue(journal.isCompleted("b"));
+            assertEquals(2, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void recordWithBadChecksumEndsTheLog() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+        }
+        long size = Files.size(wal());
+        try (JobJournal journal = open()) {
+            journal.started("b");
+            journal.completed("b", "");
+        }
+        Files.delete(index());
+        // Flip the last payload byte of the second run's records.
+        try (FileChannel channel = FileChannel.open(wal(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last, channel.size() - 1);
+            last.put(0, (byte) (last.get(0) ^ 0x5A)).rewind();
+            channel.write(last, channel.size() - 1);
+        }
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertFalse(journal.isCompleted("b"));
+            // The start of "b" was committed before the damaged record.
+            assertTrue(journal.isInDoubt("b"));
+            assertTrue(Files.size(wal()) > size);
+        }
+    }
+
+    @Test
+    public void missingIndexIsRebuiltFromTheLog() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+            journal.started("b");
+        }
+        Files.delete(index());
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertTrue(journal.isInDoubt("b"));
+            assertEquals(1, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void staleIndexIsCaughtUpFromTheLog() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+        }
+        Path saved = directory.resolve("saved.idx");
+        Files.copy(index(), saved);
+        try (JobJournal journal = open()) {
+            journal.started("b");
+            journal.completed("b", "");
+            journal.started("c");
+        }
+        // An index that only covers the first run.
+        Files.copy(saved, index(), StandardCopyOption.REPLACE_EXISTING);
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertTrue(journal.isCompleted("b"));
+            assertTrue(journal.isInDoubt("c"));
+            assertEquals(2, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void damagedIndexIsRebuilt() throws IOException {
+        try (JobJournal journal = open()) {
+            journal.started("a");
+            journal.completed("a", "");
+        }
+        Files.write(index(), new byte[] { 1, 2, 3 });
+
+        try (JobJournal journal = open()) {
+            assertTrue(journal.isCompleted("a"));
+            assertEquals(1, journal.getCompletedCount());
+        }
+    }
+
+    @Test
+    public void indexGrowsPastItsInitialCapacity() throws IOException {
+        int items = 5000;
+        try (JobJournal journal = open()) {
+            for (int i = 0; i < items; i++) {
+                journal.started("item-" + i);
+                if (i % 2 == 0) {
+                    journal.completed("item-" + i, "");
+                }
+            }
+        }
+
+        try (JobJournal journal = open()) {
+            assertEquals(items / 2, journal.getCompletedCount());
+            assertEquals(items / 2, journal.getInDoubtCount());
+            for (int i = 0; i < items; i++) {
+                assertEquals(i % 2 == 0, journal.isCompleted("item-" + i));
+                assertEquals(i % 2 != 0, journal.isInDoubt("item-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void jobCannotBeOpenedTwice() throws IOException {
+        try (JobJournal journal = open()) {
+            try {
+                open();
+                fail("A running job was opened again.");
+            } catch (IOException expected) {
+                assertTrue(expected.getMessage().contains("already running"));
+            }
+        }
+        open().close();
+    }
+
+    @Test
+    public void jobBelongsToItsCommand() throws IOException {
+        open().close();
+        try {
+            JobJournal.open(directory, JOB, "deleteDIDs");
+            fail("A job was resumed by another command.");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains(COMMAND));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void jobIdMustBeAFileName() throws IOException {
+        JobJournal.open(directory, "../escape", COMMAND);
+    }
+
+    private static void append(Path path, byte[] bytes) throws IOException {
+        Files.write(path, bytes, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,104 @@
+package dev.pablo.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+/**
+ * {@link LeadModel} reads every field as the former eager {@code split("\\|")} did.
+ */
+public class LeadModelTest {
+
+    /**
+     * Checks each of the 32 fields against {@code split("\\|")}: a field the split does not return
+     * reads as null.
+     */
+    private static void assertSplitLike(String row, LeadModel lead) {
+        String[] expected = row.split("\\|");
+        for (int i = 0; i < LeadModel.FIELD_COUNT; i++) {
+            assertEquals("Field " + LeadModel.FIELDS[i] + " of '" + row + "'",
+                    i < expected.length ? expected[i] : null, lead.get(i));
+        }
+    }
+
+    private static String fullRow() {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < LeadModel.FIELD_COUNT; i++) {
+            if (i > 0) {
+                row.append('|');
+            }
+            row.append(LeadModel.FIELDS[i]).append('-').append(i);
+        }
+        return row.toString();
+    }
+
+    @Test
+    public void emptyInputIsOneEmptyField() {
+        assertSplitLike("", new LeadModel(""));
+        assertEquals("", new LeadModel("").getStatus());
+    }
+
+    @Test
+    public void onlySeparatorsReadAsNull() {
+        assertSplitLike("|||", new LeadModel("|||"));
+        assertNull(new LeadModel("|||").getStatus());
+    }
+
+    @Test
+    public void fullRecordMatchesSplit() {
+        String row = fullRow();
+        LeadModel lead = new LeadModel(row);
+        assertSplitLike(row, lead);
+        assertEquals("lead_id-31", lead.getLead_id());
+    }
+
+    @Test
+    public void innerEmptyFieldsAreKept() {
+        String row = "NEW||vendor|||1001||5551234";
+        LeadModel lead = new LeadModel(row);
+        assertSplitLike(row, lead);
+        assertEquals("", lead.getUser());
+        assertEquals("5551234", lead.getPhone_number());
+    }
+
+    @Test
+    public void trailingEmptyFieldsReadAsNull() {
+        String row = "NEW|agent|vendor||||";
+        LeadModel lead = new LeadModel(row);
+        assertSplitLike(row, lead);
+        assertNull(lead.getSource_id());
+        assertNull(lead.getList_id());
+    }
+
+    @Test
+    public void fieldsBeyondTheThirtySecondAreIgnored() {
+        String row = fullRow() + "|extra-32|extra-33";
+        assertSplitLike(row, new LeadModel(row));
+
+        // A value past the last field keeps the empty fields before it, as split does.
+        String gap = "NEW" + "|".repeat(40) + "late";
+        assertSplitLike(gap, new LeadModel(gap));
+        assertEquals("", new LeadModel(gap).getLead_id());
+    }
+
+    @Test
+    public void resetAfterSetReadsTheNewRecord() {
+        LeadModel lead = new LeadModel(fullRow());
+        lead.setFirst_name("Jane");
+        lead.setCity(null);
+        assertEquals("Jane", lead.getFirst_name());
+        assertNull(lead.getCity());
+
+        String next = "CALLBK|agent2|v2|src|1002|-5.00|1|5559876|Mr|John";
+        assertSame(lead, lead.reset(next));
+        assertSplitLike(next, lead);
+        assertEquals("John", lead.getFirst_name());
+
+        String shorter = "DNC";
+        lead.reset(shorter);
+        assertSplitLike(shorter, lead);
+        assertNull(lead.getFirst_name());
+    }
+}